@@ -13,6 +13,7 @@ import java.awt.GridBagConstraints;
 import java.awt.Insets;
 import java.awt.GridBagLayout;
 import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
 
 public class GamePlatform extends JFrame {
     private CardLayout cardLayout;
@@ -416,8 +417,8 @@ class GameHub extends JPanel {
         
         gamesPanel.add(createGameCard(
             "Tic-Tac-Toe", 
-            "Classic strategy game with 2×2 to 10×10 board sizes", 
-            "• Multiple board sizes (2×2 to 10×10)<br>• Unique toss feature for 2×2 games<br>• Player customization<br>• Score tracking<br>• Strategic gameplay",
+            "Classic strategy game with 2×2 to 19×19 board sizes", 
+            "• Multiple board sizes (2×2 to 19×19)<br>• Gomoku-style k-in-a-row rules<br>• Unique toss feature for 2×2 games<br>• Player customization<br>• Score tracking<br>• Strategic gameplay",
             new Color(239, 68, 68),
             () -> {
                 parent.playSound("click");
@@ -706,10 +707,16 @@ class GameHub extends JPanel {
 
 class TicTacToeGame extends JPanel {
     private GamePlatform parent;
-    private String[][] board;
+    private TicTacToeBitboard board;
     private String currentPlayer = "X";
     private boolean gameOver = false;
     private int boardSize = 3;
+    // Stones in a row needed to win; equal to boardSize for the classic full-line rule
+    private int winLength = 3;
+    // Infinite mode: no fixed size, stones in a sparse map instead of the bitboard
+    private boolean infiniteMode = false;
+    private TicTacToeSparseBoard sparseBoard;
+    private JCheckBox infiniteCheck;
     private JLabel statusLabel;
     private JLabel player1Label, player2Label;
     private int player1Score = 0, player2Score = 0;
@@ -719,6 +726,7 @@ class TicTacToeGame extends JPanel {
     private String player2Symbol = "O";
     private JTextField name1Field, name2Field, symbol1Field, symbol2Field;
     private JSpinner boardSizeSpinner;
+    private JComboBox<String> winRuleCombo;
     private JPanel setupPanel;
     private JPanel gamePanel;
     private CardLayout cardLayout;
@@ -729,23 +737,76 @@ class TicTacToeGame extends JPanel {
     private long gameStartTime;
     // Reference to the custom board panel
     private ModernTicTacToeBoard boardPanel;
-    private List<int[]> winningCoords = new ArrayList<>();
-    private boolean winningLineExists = false;
+    // Computer opponent (plays player 2 on boards from 3×3 up)
+    private JComboBox<String> opponentCombo;
+    private TicTacToeEngine computerEngine;
+    private SwingWorker<Integer, Void> computerWorker;
+    // Perfect-play verdict for 3×3/4×4 when the tables are available
+    private JLabel outcomeLabel;
+    private String lastSearchSummary = " ";
+    private static final long MCTS_MOVE_MILLIS = 2000;
+    // Created on first use and kept, so its worker threads are shared by every game
+    private TicTacToeMcts mctsEngine;
+    // "Solve Position": df-pn proof of the current position, cancelled as soon as it changes
+    private final TicTacToeProofSolver proofSolver = new TicTacToeProofSolver();
+    private SwingWorker<Integer, String> solverWorker;
     
     // Move class for undo/redo
     private static class Move {
         int row, col;
         String player;
-        String previousValue;
         
-        Move(int row, int col, String player, String previousValue) {
+        Move(int row, int col, String player) {
             this.row = row;
             this.col = col;
             this.player = player;
-            this.previousValue = previousValue;
         }
     }
-    
+
+    // Board layout for one panel size, shared by hit-testing, painting and dirty-cell repaints
+    private static class BoardGeometry {
+        final int width, height, size;
+        final int boardPx, cellSize, boardX, boardY;
+
+        BoardGeometry(int width, int height, int size) {
+            this.width = width;
+            this.height = height;
+            this.size = size;
+            int margin = Math.max(16, Math.min(32, Math.max(width, height) / 24));
+            boardPx = Math.min(width, height) - 2 * margin;
+            cellSize = Math.max(1, boardPx / size);
+            boardX = (width - boardPx) / 2;
+            boardY = (height - boardPx) / 2;
+        }
+
+        boolean matches(int width, int height, int size) {
+            return this.width == width && this.height == height && this.size == size;
+        }
+
+        int cellX(int col) {
+            return boardX + col * cellSize;
+        }
+
+        int cellY(int row) {
+            return boardY + row * cellSize;
+        }
+
+        // Row or column under a pixel, or -1 off the board
+        int rowAt(int y) {
+            return indexAt(y - boardY);
+        }
+
+        int colAt(int x) {
+            return indexAt(x - boardX);
+        }
+
+        private int indexAt(int offset) {
+            if (offset < 0) return -1;
+            int index = offset / cellSize;
+            return index < size ? index : -1;
+        }
+    }
+
     // At the top of TicTacToeGame class, add:
     private boolean tossReadyForMove = false;
     // Add this as a field in TicTacToeGame:
@@ -851,10 +912,24 @@ class TicTacToeGame extends JPanel {
         symbol2Field.setFont(new Font("Arial", Font.PLAIN, 16));
         symbol2Field.setBorder(BorderFactory.createTitledBorder("Symbol"));
         
-        JPanel player2Fields = new JPanel(new GridLayout(2, 1, 10, 10));
+        String[] opponents = new String[TicTacToeAI.STRENGTH_NAMES.length + 3];
+        opponents[0] = "Human";
+        for (int i = 0; i < TicTacToeAI.STRENGTH_NAMES.length; i++) {
+            opponents[i + 1] = "Computer (" + TicTacToeAI.STRENGTH_NAMES[i] + ")";
+        }
+        // Monte Carlo search is the stronger choice on 7×7 and up,
+        // threat search for 4- or 5-in-a-row on big boards
+        opponents[opponents.length - 2] = "Computer (MCTS)";
+        opponents[opponents.length - 1] = "Computer (Threat search)";
+        opponentCombo = new JComboBox<>(opponents);
+        opponentCombo.setFont(new Font("Arial", Font.PLAIN, 16));
+        opponentCombo.setBorder(BorderFactory.createTitledBorder("Opponent"));
+        
+        JPanel player2Fields = new JPanel(new GridLayout(3, 1, 10, 10));
         player2Fields.setOpaque(false);
         player2Fields.add(name2Field);
         player2Fields.add(symbol2Field);
+        player2Fields.add(opponentCombo);
         
         player2Panel.add(player2Title, BorderLayout.NORTH);
         player2Panel.add(player2Fields, BorderLayout.CENTER);
@@ -872,7 +947,7 @@ class TicTacToeGame extends JPanel {
         boardSizeTitle.setForeground(new Color(30, 41, 59));
         boardSizeTitle.setHorizontalAlignment(SwingConstants.CENTER);
         
-        SpinnerNumberModel spinnerModel = new SpinnerNumberModel(2, 2, 10, 1);
+        SpinnerNumberModel spinnerModel = new SpinnerNumberModel(2, 2, TicTacToeBitboard.MAX_SIZE, 1);
         boardSizeSpinner = new JSpinner(spinnerModel);
         boardSizeSpinner.setFont(new Font("Arial", Font.PLAIN, 16));
         JComponent editor = boardSizeSpinner.getEditor();
@@ -881,15 +956,29 @@ class TicTacToeGame extends JPanel {
             spinnerEditor.getTextField().setHorizontalAlignment(SwingConstants.CENTER);
         }
         
-        JLabel boardSizeLabel = new JLabel("Grid Size (2×2 to 10×10)");
+        JLabel boardSizeLabel = new JLabel("Grid Size (2×2 to 19×19)");
         boardSizeLabel.setFont(new Font("Arial", Font.PLAIN, 14));
         boardSizeLabel.setForeground(new Color(100, 116, 139));
         boardSizeLabel.setHorizontalAlignment(SwingConstants.CENTER);
         
-        JPanel boardSizeFields = new JPanel(new GridLayout(2, 1, 10, 10));
+        // "Full line" is classic Tic-Tac-Toe; k in a row plays Gomoku-style on big boards
+        winRuleCombo = new JComboBox<>(new String[]{"Full line", "3 in a row", "4 in a row", "5 in a row", "6 in a row"});
+        winRuleCombo.setFont(new Font("Arial", Font.PLAIN, 16));
+        winRuleCombo.setBorder(BorderFactory.createTitledBorder("To win"));
+        
+        // Unbounded board, panned and zoomed; plays k in a row (5 unless another rule is picked)
+        infiniteCheck = new JCheckBox("Infinite board");
+        infiniteCheck.setFont(new Font("Arial", Font.PLAIN, 16));
+        infiniteCheck.setOpaque(false);
+        infiniteCheck.setHorizontalAlignment(SwingConstants.CENTER);
+        infiniteCheck.addActionListener(e -> boardSizeSpinner.setEnabled(!infiniteCheck.isSelected()));
+        
+        JPanel boardSizeFields = new JPanel(new GridLayout(4, 1, 10, 10));
         boardSizeFields.setOpaque(false);
         boardSizeFields.add(boardSizeSpinner);
         boardSizeFields.add(boardSizeLabel);
+        boardSizeFields.add(winRuleCombo);
+        boardSizeFields.add(infiniteCheck);
         
         boardSizePanel.add(boardSizeTitle, BorderLayout.NORTH);
         boardSizePanel.add(boardSizeFields, BorderLayout.CENTER);
@@ -909,10 +998,36 @@ class TicTacToeGame extends JPanel {
             player1Symbol = symbol1Field.getText().trim().isEmpty() ? "X" : symbol1Field.getText().trim().substring(0, 1);
             player2Symbol = symbol2Field.getText().trim().isEmpty() ? "O" : symbol2Field.getText().trim().substring(0, 1);
             boardSize = (Integer) boardSizeSpinner.getValue();
+            int rule = winRuleCombo.getSelectedIndex();
+            infiniteMode = infiniteCheck.isSelected();
+            if (infiniteMode) {
+                // No toss mode and no full line without a size
+                boardSize = Math.max(3, boardSize);
+                winLength = rule <= 0 ? TicTacToeSparseBoard.DEFAULT_WIN_LENGTH : rule + 2;
+            } else {
+                winLength = rule <= 0 || boardSize < 3 ? boardSize : Math.min(boardSize, rule + 2);
+            }
             if (player1Symbol.equals(player2Symbol)) {
                 JOptionPane.showMessageDialog(this, "Players must have different symbols!", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
+            // The 2×2 toss mode is for two humans; the computer plays from 3×3 up, on bounded boards
+            int opponent = opponentCombo.getSelectedIndex();
+            cancelComputerMove();
+            if (boardPanel != null) boardPanel.cancelAnalysis();
+            if (opponent <= 0 || boardSize < 3 || infiniteMode) {
+                computerEngine = null;
+            } else if (opponent == TicTacToeAI.STRENGTH_NAMES.length + 1) {
+                if (mctsEngine == null) mctsEngine = new TicTacToeMcts(MCTS_MOVE_MILLIS);
+                computerEngine = mctsEngine;
+            } else if (opponent == TicTacToeAI.STRENGTH_NAMES.length + 2) {
+                computerEngine = new TicTacToeThreatSearch();
+            } else {
+                computerEngine = TicTacToeAI.forStrength(opponent - 1);
+            }
+            if (computerEngine != null && name2Field.getText().trim().isEmpty()) {
+                player2Name = "Computer";
+            }
             parent.playSound("click");
             // Remove old gamePanel if it exists
             contentPanel.remove(gamePanel);
@@ -951,10 +1066,21 @@ class TicTacToeGame extends JPanel {
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 0));
         controlPanel.setOpaque(false);
         JButton undoButton = parent.createStyledButton("Undo", new Color(59, 130, 246));
-        undoButton.addActionListener(e -> undoMove());
+        undoButton.addActionListener(e -> {
+            cancelComputerMove();
+            undoMove();
+            // Against the computer, take back its reply as well so the human is to move
+            if (isComputerTurn() && !moveHistory.isEmpty()) undoMove();
+            startComputerMoveIfNeeded();
+        });
         undoButton.setForeground(Color.WHITE);
         JButton redoButton = parent.createStyledButton("Redo", new Color(16, 185, 129));
-        redoButton.addActionListener(e -> redoMove());
+        redoButton.addActionListener(e -> {
+            cancelComputerMove();
+            redoMove();
+            if (isComputerTurn() && !redoStack.isEmpty()) redoMove();
+            startComputerMoveIfNeeded();
+        });
         redoButton.setForeground(Color.WHITE);
         JButton resetButton = parent.createStyledButton("Reset", new Color(239, 68, 68));
         resetButton.addActionListener(e -> resetGame());
@@ -962,9 +1088,29 @@ class TicTacToeGame extends JPanel {
         JButton changeGridButton = parent.createStyledButton("Change Board", new Color(100, 116, 139));
         changeGridButton.addActionListener(e -> {
             parent.playSound("click");
+            cancelComputerMove();
+            cancelSolve();
+            if (boardPanel != null) boardPanel.cancelAnalysis();
             cardLayout.show(contentPanel, "SETUP");
         });
         changeGridButton.setForeground(Color.WHITE);
+        JButton solveButton = parent.createStyledButton("Solve", new Color(168, 85, 247));
+        solveButton.addActionListener(e -> solvePosition());
+        solveButton.setForeground(Color.WHITE);
+        JButton heatmapButton = parent.createStyledButton("Heatmap", new Color(245, 158, 11));
+        heatmapButton.addActionListener(e -> {
+            if (boardPanel == null || boardSize < 3) {
+                parent.playSound("error");
+                return;
+            }
+            parent.playSound("click");
+            boardPanel.setAnalysisMode(!boardPanel.isAnalysisMode());
+        });
+        heatmapButton.setForeground(Color.WHITE);
+        if (boardSize >= 3 && !infiniteMode) {
+            controlPanel.add(heatmapButton);
+            controlPanel.add(solveButton);
+        }
         controlPanel.add(undoButton);
         controlPanel.add(redoButton);
         controlPanel.add(resetButton);
@@ -1009,6 +1155,10 @@ class TicTacToeGame extends JPanel {
         statusLabel.setForeground(new Color(30, 41, 59));
         statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
         statusLabel.setBorder(BorderFactory.createEmptyBorder(20, 0, 20, 0));
+        outcomeLabel = new JLabel(" ");
+        outcomeLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        outcomeLabel.setForeground(new Color(100, 116, 139));
+        outcomeLabel.setHorizontalAlignment(SwingConstants.CENTER);
         JPanel statusPanel = new JPanel();
         statusPanel.setLayout(new BoxLayout(statusPanel, BoxLayout.Y_AXIS));
         statusPanel.setOpaque(false);
@@ -1059,6 +1209,7 @@ class TicTacToeGame extends JPanel {
             JPanel statusLabelPanel = new JPanel(new BorderLayout());
             statusLabelPanel.setOpaque(false);
             statusLabelPanel.add(statusLabel, BorderLayout.CENTER);
+            statusLabelPanel.add(outcomeLabel, BorderLayout.SOUTH);
             statusPanel.add(statusLabelPanel);
             // --- End center statusLabel ---
         }
@@ -1072,12 +1223,13 @@ class TicTacToeGame extends JPanel {
     }
     
     private void startNewGame() {
+        cancelComputerMove();
+        cancelSolve();
+        lastSearchSummary = " ";
         gameStartTime = System.currentTimeMillis();
         moveHistory.clear();
         redoStack.clear();
         gameOver = false;
-        winningCoords.clear();
-        winningLineExists = false;
         // --- For 2x2, randomize initial state to avoid previous pattern ---
         if (boardSize == 2) {
             tossReadyForMove = false;
@@ -1095,18 +1247,21 @@ class TicTacToeGame extends JPanel {
         statusLabel.setText(player1Name + " (" + player1Symbol + ")'s Turn");
         statusLabel.setForeground(new Color(30, 41, 59));
         }
-        // Initialize board array
-        board = new String[boardSize][boardSize];
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                board[i][j] = "";
-            }
+        // Initialize bitboard, or the sparse map in infinite mode
+        if (infiniteMode) {
+            board = null;
+            sparseBoard = new TicTacToeSparseBoard(winLength);
+        } else {
+            board = new TicTacToeBitboard(boardSize, winLength);
         }
         updatePlayerCards();
+        updateOutcomeLabel();
+        if (boardPanel != null) boardPanel.refreshAnalysis();
         if (gamePanel != null) gamePanel.repaint();
     }
     
     private void undoMove() {
+        cancelSolve();
         if (moveHistory.isEmpty()) {
             parent.playSound("error");
             return;
@@ -1116,29 +1271,17 @@ class TicTacToeGame extends JPanel {
         Move lastMove = moveHistory.pop();
         redoStack.push(lastMove);
         
-        board[lastMove.row][lastMove.col] = lastMove.previousValue;
-        currentPlayer = lastMove.player;
-        // After undo, recalculate game state
-        if (gameOver) {
-            gameOver = false;
-            winningLineExists = false;
-            winningCoords.clear();
-        }
-        // Check if the board is in a win/draw state after undo
-        boolean foundWin = false;
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                if (!board[i][j].isEmpty() && checkWinner(i, j)) {
-                    foundWin = true;
-                    break;
-                }
-            }
-            if (foundWin) break;
+        if (infiniteMode) {
+            sparseBoard.clear(lastMove.row, lastMove.col);
+        } else {
+            board.clear(board.cell(lastMove.row, lastMove.col));
         }
-        if (foundWin) {
+        currentPlayer = lastMove.player;
+        // After undo, read the game state straight from the line counters
+        gameOver = false;
+        if (checkWinner()) {
             gameOver = true;
-            // Show winner based on who had the last move
-            if (lastMove.player.equals(player1Symbol)) {
+            if (winnerIndex() == TicTacToeBitboard.PLAYER1) {
                 statusLabel.setText(player1Name + " (" + player1Symbol + ") Wins!");
             } else {
                 statusLabel.setText(player2Name + " (" + player2Symbol + ") Wins!");
@@ -1153,6 +1296,8 @@ class TicTacToeGame extends JPanel {
         }
         statusLabel.setForeground(new Color(30, 41, 59));
         updatePlayerCards();
+        updateOutcomeLabel();
+        if (boardPanel != null) boardPanel.refreshAnalysis();
         if (this.boardPanel != null) this.boardPanel.repaint();
         if (boardSize == 2) {
             statusLabel.setVisible(false);
@@ -1168,6 +1313,7 @@ class TicTacToeGame extends JPanel {
     }
     
     private void redoMove() {
+        cancelSolve();
         if (redoStack.isEmpty()) {
             parent.playSound("error");
             return;
@@ -1177,12 +1323,16 @@ class TicTacToeGame extends JPanel {
         Move move = redoStack.pop();
         moveHistory.push(move);
         
-        board[move.row][move.col] = move.player;
+        if (infiniteMode) {
+            sparseBoard.place(playerIndex(move.player), move.row, move.col);
+        } else {
+            board.place(playerIndex(move.player), board.cell(move.row, move.col));
+        }
         // Set current player to the next player after the redo move
         currentPlayer = move.player.equals(player1Symbol) ? player2Symbol : player1Symbol;
         // After redo, recalculate game state
         gameOver = false;
-        if (checkWinner(move.row, move.col)) {
+        if (checkWinner()) {
             gameOver = true;
             if (move.player.equals(player1Symbol)) {
                 player1Score++;
@@ -1203,6 +1353,8 @@ class TicTacToeGame extends JPanel {
             String playerName = currentPlayer.equals(player1Symbol) ? player1Name : player2Name;
             statusLabel.setText(playerName + " (" + currentPlayer + ")'s Turn");
         }
+        updateOutcomeLabel();
+        if (boardPanel != null) boardPanel.refreshAnalysis();
         if (this.boardPanel != null) this.boardPanel.repaint();
         if (boardSize == 2) {
             statusLabel.setVisible(false);
@@ -1229,132 +1381,410 @@ class TicTacToeGame extends JPanel {
 
     // Custom JPanel for modern Tic-Tac-Toe board
     private class ModernTicTacToeBoard extends JPanel {
+        // Analysis overlay: what playing each empty cell is worth to the side to move
+        private boolean analysisMode;
+        private TicTacToeAnalysis.Job analysisJob;
+        private int[] cellKinds = new int[0];      // 0 while a cell is still being analysed
+        private float[] cellWinRates = new float[0];
+        // Infinite mode viewport: board coordinates shown at the panel centre, pixels per cell
+        private static final int MIN_ZOOM = 12, MAX_ZOOM = 120;
+        private double viewRow = 0.5, viewCol = 0.5;
+        private int zoom = 40;
+        private Point dragStart;
+        private double dragRow, dragCol;
+        // Render caches: the static layer (background, board, grid, empty cells) is rebuilt only
+        // when the geometry changes; symbol sprites are keyed by symbol, colour and cell size
+        private BoardGeometry geometry;
+        private BufferedImage staticLayer;
+        private final Map<String, BufferedImage> glyphSprites = new HashMap<>();
+        private Font analysisFont;
+        private BasicStroke winStroke;
+        private Font viewportFont;
+        private int viewportFontZoom;
+        private final Color panelColor = new Color(248, 250, 252);
+        private final Color boardColor = new Color(245, 247, 252);
+        private final Color gridColor = new Color(225, 228, 235, 110);
+        private final Color viewportGridColor = new Color(225, 228, 235);
+        private final Color shadowColor = new Color(0, 0, 0, 10);
+        private final Color cellBorderColor = new Color(230, 233, 240, 60);
+        private final Color glyphBackColor = new Color(255, 255, 255, 200);
+        private final Color player1Color = new Color(239, 68, 68);   // Red for player 1
+        private final Color player2Color = new Color(16, 185, 129);  // Green for player 2
+        private final Color winColor = new Color(0, 255, 0, 80);
+        private final BasicStroke thinStroke = new BasicStroke(1f);
+        // Analysis colours: fixed results, then estimates by whole percent from red to green
+        private final Color drawColor = new Color(245, 158, 11);
+        private final Color[] kindColors = new Color[5];
+        private final Color[] kindFills = new Color[5];
+        private final Color[] kindTexts = new Color[5];
+        private final Color[] rateFills = new Color[101];
+        private final Color[] rateTexts = new Color[101];
+        
         public ModernTicTacToeBoard() {
             setBackground(new Color(245, 247, 252));
             setOpaque(true);
-            addMouseListener(new MouseAdapter() {
+            createAnalysisColors();
+            MouseAdapter mouseHandler = new MouseAdapter() {
                 @Override
                 public void mouseClicked(MouseEvent e) {
-                    int w = getWidth();
-                    int h = getHeight();
-                    int margin = Math.max(16, Math.min(32, Math.max(w, h) / 24));
-                    int boardPx = Math.min(w, h) - 2 * margin;
-                    int cellSize = boardPx / boardSize;
-                    int boardX = (w - boardPx) / 2;
-                    int boardY = (h - boardPx) / 2;
-                    int x = e.getX();
-                    int y = e.getY();
-                    int col = (x - boardX) / cellSize;
-                    int row = (y - boardY) / cellSize;
-                    if (row >= 0 && row < boardSize && col >= 0 && col < boardSize && !gameOver) {
+                    if (infiniteMode) {
+                        int row = (int) Math.floor(viewRow + (e.getY() - getHeight() / 2.0) / zoom);
+                        int col = (int) Math.floor(viewCol + (e.getX() - getWidth() / 2.0) / zoom);
+                        if (!gameOver && !isComputerTurn()) makeMove(row, col);
+                        return;
+                    }
+                    BoardGeometry geo = geometry();
+                    int col = geo.colAt(e.getX());
+                    int row = geo.rowAt(e.getY());
+                    // makeMove repaints only what changed
+                    if (row >= 0 && col >= 0 && !gameOver && !isComputerTurn()) {
                         makeMove(row, col);
-                        repaint();
                     }
                 }
-            });
+                
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    dragStart = e.getPoint();
+                    dragRow = viewRow;
+                    dragCol = viewCol;
+                }
+                
+                // Drag to pan the infinite board
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (!infiniteMode || dragStart == null) return;
+                    viewRow = dragRow - (e.getY() - dragStart.y) / (double) zoom;
+                    viewCol = dragCol - (e.getX() - dragStart.x) / (double) zoom;
+                    repaint();
+                }
+                
+                // Wheel to zoom, keeping the point under the cursor in place
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    if (!infiniteMode) return;
+                    double dy = e.getY() - getHeight() / 2.0;
+                    double dx = e.getX() - getWidth() / 2.0;
+                    double row = viewRow + dy / zoom;
+                    double col = viewCol + dx / zoom;
+                    double factor = e.getWheelRotation() < 0 ? 1.2 : 1 / 1.2;
+                    zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, (int) Math.round(zoom * factor)));
+                    viewRow = row - dy / zoom;
+                    viewCol = col - dx / zoom;
+                    repaint();
+                }
+            };
+            addMouseListener(mouseHandler);
+            addMouseMotionListener(mouseHandler);
+            addMouseWheelListener(mouseHandler);
+        }
+        
+        void resetViewport() {
+            viewRow = 0.5;
+            viewCol = 0.5;
+            repaint();
+        }
+        
+        // The layout for the current size; a new one drops every cache built for the old one
+        private BoardGeometry geometry() {
+            int w = getWidth();
+            int h = getHeight();
+            if (geometry == null || !geometry.matches(w, h, boardSize)) {
+                geometry = new BoardGeometry(w, h, boardSize);
+                staticLayer = null;
+                glyphSprites.clear();
+                int cellSize = geometry.cellSize;
+                analysisFont = new Font("Arial", Font.BOLD, Math.max(10, Math.min(cellSize / 4, 18)));
+                winStroke = new BasicStroke(Math.max(4, cellSize / 12), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+            }
+            return geometry;
         }
+        
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
             Graphics2D g2 = (Graphics2D) g.create();
             g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            // Fill the entire panel background first
-            g2.setColor(new Color(248, 250, 252));
-            g2.fillRect(0, 0, getWidth(), getHeight());
-            int w = getWidth();
-            int h = getHeight();
-            int margin = Math.max(16, Math.min(32, Math.max(w, h) / 24));
-            int boardPx = Math.min(w, h) - 2 * margin;
-            int cellSize = boardPx / boardSize;
-            int boardX = (w - boardPx) / 2;
-            int boardY = (h - boardPx) / 2;
+            if (infiniteMode) {
+                g2.setColor(panelColor);
+                g2.fillRect(0, 0, getWidth(), getHeight());
+                paintViewport(g2);
+                g2.dispose();
+                return;
+            }
+            BoardGeometry geo = geometry();
+            if (getWidth() <= 0 || getHeight() <= 0) {
+                g2.dispose();
+                return;
+            }
+            if (staticLayer == null) staticLayer = createStaticLayer(geo);
+            g2.drawImage(staticLayer, 0, 0, null);
+            int cellSize = geo.cellSize;
+            // Symbols; after a move only the dirty cell is inside the clip
+            Rectangle clip = g2.getClipBounds();
+            if (board != null && board.size == boardSize) {
+                for (int i = 0; i < boardSize; i++) {
+                    for (int j = 0; j < boardSize; j++) {
+                        int cx = geo.cellX(j);
+                        int cy = geo.cellY(i);
+                        if (clip != null && !clip.intersects(cx, cy, cellSize, cellSize)) continue;
+                        String val = symbolAt(i, j);
+                        if (val.isEmpty()) continue;
+                        Color color = val.equals(player1Symbol) ? player1Color : player2Color;
+                        g2.drawImage(glyphSprite(val, color, cellSize), cx, cy, null);
+                    }
+                }
+            }
+            if (analysisMode) paintAnalysis(g2, geo);
+            int winningLine = board != null ? board.winningLine() : -1;
+            if (winningLine >= 0) {
+                // Semi-transparent green outline (rounded rectangle)
+                g2.setColor(winColor);
+                g2.setStroke(winStroke);
+                for (int cell : board.lineCells(winningLine)) {
+                    int cx = geo.cellX(board.colOf(cell));
+                    int cy = geo.cellY(board.rowOf(cell));
+                    g2.drawRoundRect(cx + 4, cy + 4, cellSize - 8, cellSize - 8, 24, 24);
+                }
+            }
+            g2.dispose();
+        }
+        
+        // Everything that does not change between moves: panel and board background,
+        // grid lines and the empty cells
+        private BufferedImage createStaticLayer(BoardGeometry geo) {
+            BufferedImage image = new BufferedImage(geo.width, geo.height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g2 = image.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(panelColor);
+            g2.fillRect(0, 0, geo.width, geo.height);
+            int boardX = geo.boardX;
+            int boardY = geo.boardY;
+            int boardPx = geo.boardPx;
+            int cellSize = geo.cellSize;
             // Board background
-            g2.setColor(new Color(245, 247, 252));
+            g2.setColor(boardColor);
             g2.fillRoundRect(boardX-12, boardY-12, boardPx+24, boardPx+24, 48, 48);
             // Perfect, soothing grid0 lines (single, thin, very light gray)
             g2.setStroke(new BasicStroke(Math.max(1.5f, cellSize/32f), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-            g2.setColor(new Color(225, 228, 235, 110));
-            for (int i = 1; i < boardSize; i++) {
+            g2.setColor(gridColor);
+            for (int i = 1; i < geo.size; i++) {
                 int xy = i * cellSize;
                 g2.drawLine(boardX + xy, boardY, boardX + xy, boardY + boardPx);
                 g2.drawLine(boardX, boardY + xy, boardX + boardPx, boardY + xy);
             }
-            // Cells
-            for (int i = 0; i < boardSize; i++) {
-                for (int j = 0; j < boardSize; j++) {
-                    int cx = boardX + j * cellSize;
-                    int cy = boardY + i * cellSize;
+            int arc = Math.min(24, cellSize / 3);
+            BasicStroke borderStroke = new BasicStroke(Math.max(1, cellSize/40f));
+            for (int i = 0; i < geo.size; i++) {
+                for (int j = 0; j < geo.size; j++) {
+                    int cx = geo.cellX(j);
+                    int cy = geo.cellY(i);
                     // Cell shadow
-                    g2.setColor(new Color(0,0,0,10));
-                    g2.fillRoundRect(cx+4, cy+4, cellSize-8, cellSize-8, 24, 24);
+                    g2.setColor(shadowColor);
+                    g2.fillRoundRect(cx+4, cy+4, cellSize-8, cellSize-8, arc, arc);
                     // Cell border
-                    g2.setColor(new Color(230, 233, 240, 60));
-                    g2.setStroke(new BasicStroke(Math.max(1, cellSize/40f)));
-                    g2.drawRoundRect(cx, cy, cellSize-8, cellSize-8, 24, 24);
+                    g2.setColor(cellBorderColor);
+                    g2.setStroke(borderStroke);
+                    g2.drawRoundRect(cx, cy, cellSize-8, cellSize-8, arc, arc);
                     // Cell fill
                     g2.setColor(Color.WHITE);
-                    g2.fillRoundRect(cx, cy, cellSize-8, cellSize-8, 24, 24);
-                    // Draw X/O
-                    String val = board != null && board.length > i && board[i].length > j ? board[i][j] : "";
-                    if (!val.isEmpty()) {
-                        g2.setStroke(new BasicStroke(Math.max(6, cellSize/8), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                        if (val.equals(player1Symbol)) {
-                            g2.setColor(new Color(239, 68, 68)); // Red for player 1
-                        } else {
-                            g2.setColor(new Color(16, 185, 129)); // Green for player 2
-                        }
-                        // Draw the actual symbol text with maximum size to fill the cell
-                        int fontSize = Math.max(32, Math.min(cellSize-16, 72)); // Much larger font size
-                        g2.setFont(new Font("Arial", Font.BOLD, fontSize));
-                        FontMetrics fm = g2.getFontMetrics();
-                        
-                        // Calculate text position to center it perfectly in the cell
-                        int textWidth = fm.stringWidth(val);
-                        int textHeight = fm.getAscent();
-                        int textX = cx + (cellSize - textWidth) / 2;
-                        int textY = cy + (cellSize + textHeight) / 2 - fm.getDescent()/2;
-                        
-                        // Add a subtle background highlight for better visibility
-                        g2.setColor(new Color(255, 255, 255, 200));
-                        g2.fillRoundRect(textX-6, textY-textHeight-4, textWidth+12, textHeight+8, 12, 12);
-                        
-                        // Draw the symbol with enhanced styling
-                        if (val.equals(player1Symbol)) {
-                            g2.setColor(new Color(239, 68, 68));
-                        } else {
-                            g2.setColor(new Color(16, 185, 129));
-                        }
-                        g2.drawString(val, textX, textY);
-                    }
+                    g2.fillRoundRect(cx, cy, cellSize-8, cellSize-8, arc, arc);
                 }
             }
-            if (winningLineExists) {
-                for (int[] coord : winningCoords) {
-                    int r = coord[0];
-                    int c = coord[1];
-                    int cx = boardX + c * cellSize;
-                    int cy = boardY + r * cellSize;
-
-                    // Semi-transparent green fill (rounded rectangle)
-                    g2.setColor(new Color(0, 255, 0, 80));
-                    g2.setStroke(new BasicStroke(Math.max(4, cellSize / 12), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-                    g2.drawRoundRect(cx + 4, cy + 4, cellSize - 8, cellSize - 8, 24, 24);
+            g2.dispose();
+            return image;
+        }
+        
+        // One cell-sized image per symbol and colour: the highlight behind the symbol plus the symbol
+        private BufferedImage glyphSprite(String val, Color color, int cellSize) {
+            String key = val + ':' + color.getRGB() + ':' + cellSize;
+            BufferedImage sprite = glyphSprites.get(key);
+            if (sprite != null) return sprite;
+            sprite = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2 = sprite.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            // Much larger font size, but never bigger than the cell on 11×11 and up
+            int fontSize = Math.min(Math.max(32, Math.min(cellSize-16, 72)), cellSize - 8);
+            g2.setFont(new Font("Arial", Font.BOLD, fontSize));
+            FontMetrics fm = g2.getFontMetrics();
+            // Calculate text position to center it perfectly in the cell
+            int textWidth = fm.stringWidth(val);
+            int textHeight = fm.getAscent();
+            int textX = (cellSize - textWidth) / 2;
+            int textY = (cellSize + textHeight) / 2 - fm.getDescent()/2;
+            // Add a subtle background highlight for better visibility
+            g2.setColor(glyphBackColor);
+            g2.fillRoundRect(textX-6, textY-textHeight-4, textWidth+12, textHeight+8, 12, 12);
+            g2.setColor(color);
+            g2.drawString(val, textX, textY);
+            g2.dispose();
+            glyphSprites.put(key, sprite);
+            return sprite;
+        }
+        
+        // Infinite mode: grid lines for the visible rows and columns only, and stones
+        // from the sparse map, so the cost follows the stone count rather than any area
+        private void paintViewport(Graphics2D g2) {
+            int w = getWidth();
+            int h = getHeight();
+            int firstRow = (int) Math.floor(viewRow - h / 2.0 / zoom);
+            int lastRow = (int) Math.floor(viewRow + h / 2.0 / zoom);
+            int firstCol = (int) Math.floor(viewCol - w / 2.0 / zoom);
+            int lastCol = (int) Math.floor(viewCol + w / 2.0 / zoom);
+            g2.setColor(viewportGridColor);
+            g2.setStroke(thinStroke);
+            for (int r = firstRow; r <= lastRow + 1; r++) {
+                int y = screenY(r);
+                g2.drawLine(0, y, w, y);
+            }
+            for (int c = firstCol; c <= lastCol + 1; c++) {
+                int x = screenX(c);
+                g2.drawLine(x, 0, x, h);
+            }
+            if (sparseBoard == null) return;
+            if (viewportFont == null || viewportFontZoom != zoom) {
+                viewportFont = new Font("Arial", Font.BOLD, Math.max(9, zoom * 2 / 3));
+                viewportFontZoom = zoom;
+            }
+            g2.setFont(viewportFont);
+            FontMetrics fm = g2.getFontMetrics();
+            for (int slot = 0; slot < sparseBoard.capacity(); slot++) {
+                int owner = sparseBoard.ownerAt(slot);
+                if (owner == TicTacToeSparseBoard.EMPTY) continue;
+                long key = sparseBoard.keyAt(slot);
+                int r = TicTacToeSparseBoard.rowOf(key);
+                int c = TicTacToeSparseBoard.colOf(key);
+                if (r < firstRow || r > lastRow || c < firstCol || c > lastCol) continue;
+                String val = owner == TicTacToeSparseBoard.PLAYER1 ? player1Symbol : player2Symbol;
+                g2.setColor(owner == TicTacToeSparseBoard.PLAYER1 ? player1Color : player2Color);
+                g2.drawString(val, screenX(c) + (zoom - fm.stringWidth(val)) / 2, screenY(r) + (zoom + fm.getAscent()) / 2 - fm.getDescent() / 2);
+            }
+            g2.setColor(winColor);
+            g2.setStroke(new BasicStroke(Math.max(2, zoom / 12), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (int[] cell : sparseBoard.winningCells()) {
+                g2.drawRoundRect(screenX(cell[1]) + 2, screenY(cell[0]) + 2, zoom - 4, zoom - 4, zoom / 3, zoom / 3);
+            }
+        }
+        
+        private int screenX(int col) {
+            return (int) Math.floor(getWidth() / 2.0 + (col - viewCol) * zoom);
+        }
+        
+        private int screenY(int row) {
+            return (int) Math.floor(getHeight() / 2.0 + (row - viewRow) * zoom);
+        }
+        
+        // Repaints just one cell; on 19×19 that is 1/361 of the board
+        void repaintCell(int row, int col) {
+            if (infiniteMode) {
+                repaint(screenX(col), screenY(row), zoom + 1, zoom + 1);
+                return;
+            }
+            BoardGeometry geo = geometry();
+            repaint(geo.cellX(col), geo.cellY(row), geo.cellSize, geo.cellSize);
+        }
+        
+        // Green for a forced win, amber for a draw, red for a forced loss; estimates blend red to green
+        private void paintAnalysis(Graphics2D g2, BoardGeometry geo) {
+            if (board == null || cellKinds.length != board.cells) return;
+            int cellSize = geo.cellSize;
+            g2.setFont(analysisFont);
+            FontMetrics fm = g2.getFontMetrics();
+            for (int cell = 0; cell < board.cells; cell++) {
+                int kind = cellKinds[cell];
+                if (kind == 0 || !board.isEmpty(cell)) continue;
+                Color fill;
+                Color textColor;
+                String text;
+                if (kind == TicTacToeAnalysis.ESTIMATE) {
+                    int percent = Math.round(cellWinRates[cell] * 100);
+                    fill = rateFills[percent];
+                    textColor = rateTexts[percent];
+                    text = percent + "%";
+                } else {
+                    fill = kindFills[kind];
+                    textColor = kindTexts[kind];
+                    text = kind == TicTacToeAnalysis.WIN ? "WIN" : kind == TicTacToeAnalysis.DRAW ? "DRAW" : "LOSS";
+                }
+                int cx = geo.cellX(board.colOf(cell));
+                int cy = geo.cellY(board.rowOf(cell));
+                g2.setColor(fill);
+                g2.fillRoundRect(cx, cy, cellSize - 8, cellSize - 8, 24, 24);
+                if (fm.stringWidth(text) < cellSize - 12) {
+                    g2.setColor(textColor);
+                    g2.drawString(text, cx + (cellSize - 8 - fm.stringWidth(text)) / 2, cy + (cellSize - 8 + fm.getAscent()) / 2 - 2);
                 }
             }
-            g2.dispose();
+        }
+        
+        private void createAnalysisColors() {
+            kindColors[TicTacToeAnalysis.WIN] = player2Color;
+            kindColors[TicTacToeAnalysis.DRAW] = drawColor;
+            kindColors[TicTacToeAnalysis.LOSS] = player1Color;
+            for (int kind = 1; kind < kindColors.length; kind++) {
+                Color color = kindColors[kind];
+                if (color == null) continue;
+                kindFills[kind] = new Color(color.getRed(), color.getGreen(), color.getBlue(), 90);
+                kindTexts[kind] = color.darker();
+            }
+            for (int percent = 0; percent <= 100; percent++) {
+                float rate = percent / 100f;
+                Color color = new Color((int) (239 + (16 - 239) * rate), (int) (68 + (185 - 68) * rate), (int) (68 + (129 - 68) * rate));
+                rateFills[percent] = new Color(color.getRed(), color.getGreen(), color.getBlue(), 90);
+                rateTexts[percent] = color.darker();
+            }
+        }
+        
+        boolean isAnalysisMode() {
+            return analysisMode;
+        }
+        
+        void setAnalysisMode(boolean on) {
+            analysisMode = on;
+            refreshAnalysis();
+        }
+        
+        // Drops the results for the old position and, in analysis mode, starts on the current one.
+        // Never blocks the EDT: tasks run in the pool and results arrive through invokeLater.
+        void refreshAnalysis() {
+            boolean hadOverlay = cellKinds.length > 0;
+            cancelAnalysis();
+            if (analysisMode && board != null && boardSize >= 3 && !gameOver && !isComputerTurn()) {
+                cellKinds = new int[board.cells];
+                cellWinRates = new float[board.cells];
+                final int[] kinds = cellKinds;
+                final float[] winRates = cellWinRates;
+                final TicTacToeAnalysis.Job[] job = new TicTacToeAnalysis.Job[1];
+                job[0] = TicTacToeAnalysis.start(board, playerIndex(currentPlayer), (cell, kind, winRate) ->
+                    SwingUtilities.invokeLater(() -> {
+                        if (analysisJob != job[0]) return; // position changed meanwhile
+                        kinds[cell] = kind;
+                        winRates[cell] = winRate;
+                        repaintCell(board.rowOf(cell), board.colOf(cell));
+                    }));
+                analysisJob = job[0];
+            }
+            if (analysisMode || hadOverlay) repaint();
+        }
+        
+        void cancelAnalysis() {
+            if (analysisJob != null) {
+                analysisJob.cancel();
+                analysisJob = null;
+            }
+            cellKinds = new int[0];
         }
     }
     
     private void makeMove(int row, int col) {
-        if (gameOver || !board[row][col].isEmpty()) return;
+        if (gameOver || !(infiniteMode ? sparseBoard.isEmpty(row, col) : board.isEmpty(row, col))) return;
+        cancelSolve();
         if (boardSize == 2) {
             if (!tossReadyForMove) return; // Only allow move after toss
-            String previousValue = board[row][col];
-            board[row][col] = currentPlayer;
-            moveHistory.push(new Move(row, col, currentPlayer, previousValue));
+            board.place(playerIndex(currentPlayer), board.cell(row, col));
+            moveHistory.push(new Move(row, col, currentPlayer));
             redoStack.clear();
             parent.playSound("move");
-            if (checkWinner(row, col)) {
+            if (checkWinner()) {
                 gameOver = true;
                 if (currentPlayer.equals(player1Symbol)) {
                     player1Score++;
@@ -1381,13 +1811,16 @@ class TicTacToeGame extends JPanel {
             if (gamePanel != null) gamePanel.repaint();
             return;
         }
-        String previousValue = board[row][col];
-        board[row][col] = currentPlayer;
+        if (infiniteMode) {
+            sparseBoard.place(playerIndex(currentPlayer), row, col);
+        } else {
+            board.place(playerIndex(currentPlayer), board.cell(row, col));
+        }
         // Record move for undo/redo
-        moveHistory.push(new Move(row, col, currentPlayer, previousValue));
+        moveHistory.push(new Move(row, col, currentPlayer));
         redoStack.clear(); // Clear redo stack when new move is made
         parent.playSound("move");
-        if (checkWinner(row, col)) {
+        if (checkWinner()) {
             gameOver = true;
             if (currentPlayer.equals(player1Symbol)) {
                 player1Score++;
@@ -1409,77 +1842,173 @@ class TicTacToeGame extends JPanel {
             String nextPlayerName = currentPlayer.equals(player1Symbol) ? player1Name : player2Name;
             statusLabel.setText(nextPlayerName + " (" + currentPlayer + ")'s Turn");
         }
-        if (gamePanel != null) gamePanel.repaint();
+        updateOutcomeLabel();
+        if (boardPanel != null) boardPanel.refreshAnalysis();
+        if (boardPanel != null) {
+            // A win also paints the line; otherwise only the new stone changed
+            if (gameOver) boardPanel.repaint();
+            else boardPanel.repaintCell(row, col);
+        }
+        startComputerMoveIfNeeded();
     }
     
-    private boolean checkWinner(int row, int col) {
-        String symbol = board[row][col];
-        
-        // Check row
-        int count = 1;
-        for (int i = col - 1; i >= 0 && board[row][i].equals(symbol); i--) count++;
-        for (int i = col + 1; i < boardSize && board[row][i].equals(symbol); i++) count++;
-        if (count >= boardSize) {
-            winningCoords.clear();
-            for (int i = 0; i < boardSize; i++) {
-                winningCoords.add(new int[]{row, i});
-            }
-            winningLineExists = true;
-            return true;
+    // "Who wins from here" with a single probe of the memory-mapped perfect-play table
+    private void updateOutcomeLabel() {
+        if (outcomeLabel == null) return;
+        TicTacToeTablebase tablebase = board != null ? TicTacToeTablebase.open(board) : null;
+        if (tablebase == null || gameOver) {
+            // Without a table, show what the computer's last search did
+            outcomeLabel.setText(computerEngine != null && !gameOver ? lastSearchSummary : " ");
+            return;
         }
-        
-        // Check column
-        count = 1;
-        for (int i = row - 1; i >= 0 && board[i][col].equals(symbol); i--) count++;
-        for (int i = row + 1; i < boardSize && board[i][col].equals(symbol); i++) count++;
-        if (count >= boardSize) {
-            winningCoords.clear();
-            for (int i = 0; i < boardSize; i++) {
-                winningCoords.add(new int[]{i, col});
-            }
-            winningLineExists = true;
-            return true;
+        int value = tablebase.probe(board);
+        // Player 1 always starts on 3×3 and 4×4, so parity gives the side to move
+        boolean player1ToMove = board.moveCount() % 2 == 0;
+        if (value == TicTacToeTablebase.DRAW) {
+            outcomeLabel.setText("Perfect play: Draw");
+        } else if (value == TicTacToeTablebase.WIN || value == TicTacToeTablebase.LOSS) {
+            boolean player1Wins = (value == TicTacToeTablebase.WIN) == player1ToMove;
+            outcomeLabel.setText("Perfect play: " + (player1Wins ? player1Name : player2Name) + " wins");
+        } else {
+            outcomeLabel.setText(" ");
         }
-        
-        // Check main diagonal
-        count = 1;
-        for (int i = 1; row - i >= 0 && col - i >= 0 && board[row - i][col - i].equals(symbol); i++) count++;
-        for (int i = 1; row + i < boardSize && col + i < boardSize && board[row + i][col + i].equals(symbol); i++) count++;
-        if (count >= boardSize) {
-            winningCoords.clear();
-            for (int i = 0; i < boardSize; i++) {
-                winningCoords.add(new int[]{i, i});
+    }
+    
+    private boolean isComputerTurn() {
+        return computerEngine != null && !gameOver && currentPlayer.equals(player2Symbol);
+    }
+    
+    // Runs the search off the EDT on a snapshot and plays the result through makeMove
+    private void startComputerMoveIfNeeded() {
+        if (!isComputerTurn() || computerWorker != null) return;
+        final TicTacToeBitboard snapshot = new TicTacToeBitboard(boardSize, winLength);
+        snapshot.copyFrom(board);
+        final TicTacToeEngine engine = computerEngine;
+        // Taken here so a cancelComputerMove before the worker starts still stops it
+        final int stopToken = engine.stopToken();
+        statusLabel.setText(player2Name + " (" + player2Symbol + ") is thinking...");
+        computerWorker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return engine.chooseMove(snapshot, TicTacToeBitboard.PLAYER2, stopToken);
+            }
+            
+            @Override
+            protected void done() {
+                if (computerWorker != this) return; // cancelled by undo/reset
+                computerWorker = null;
+                try {
+                    int cell = get();
+                    if (cell >= 0 && isComputerTurn() && board.isEmpty(cell)) {
+                        lastSearchSummary = engine.describeLastSearch();
+                        makeMove(board.rowOf(cell), board.colOf(cell));
+                    }
+                } catch (Exception ex) {
+                    // Search was interrupted; the position is left to the human
+                }
             }
-            winningLineExists = true;
-            return true;
+        };
+        computerWorker.execute();
+    }
+    
+    private void cancelComputerMove() {
+        if (computerWorker != null) {
+            computerEngine.stop();
+            computerWorker.cancel(false);
+            computerWorker = null;
         }
-        
-        // Check anti-diagonal
-        count = 1;
-        for (int i = 1; row - i >= 0 && col + i < boardSize && board[row - i][col + i].equals(symbol); i++) count++;
-        for (int i = 1; row + i < boardSize && col - i >= 0 && board[row + i][col - i].equals(symbol); i++) count++;
-        if (count >= boardSize) {
-            winningCoords.clear();
-            for (int i = 0; i < boardSize; i++) {
-                winningCoords.add(new int[]{i, boardSize - 1 - i});
+    }
+    
+    // Proves the current position on a worker thread, streaming progress into the outcome label
+    private void solvePosition() {
+        if (board == null || gameOver || boardSize < 3) {
+            parent.playSound("error");
+            return;
+        }
+        cancelSolve();
+        parent.playSound("click");
+        final TicTacToeBitboard snapshot = new TicTacToeBitboard(boardSize, winLength);
+        snapshot.copyFrom(board);
+        final int toMove = playerIndex(currentPlayer);
+        final String moverName = toMove == TicTacToeBitboard.PLAYER1 ? player1Name : player2Name;
+        final String otherName = toMove == TicTacToeBitboard.PLAYER1 ? player2Name : player1Name;
+        // Taken here so a cancelSolve before the worker starts still stops it
+        final int cancelToken = proofSolver.cancelToken();
+        outcomeLabel.setText("Solving...");
+        solverWorker = new SwingWorker<Integer, String>() {
+            @Override
+            protected Integer doInBackground() {
+                return proofSolver.solve(snapshot, toMove, cancelToken, (nodes, nodesPerSecond, pn, dn, phase) ->
+                    publish("Solving (" + phase + "): " + nodes + " nodes, " + nodesPerSecond
+                        + " nodes/s, pn " + pn + " / dn " + dn));
             }
-            winningLineExists = true;
-            return true;
+            
+            @Override
+            protected void process(java.util.List<String> chunks) {
+                if (solverWorker == this) outcomeLabel.setText(chunks.get(chunks.size() - 1));
+            }
+            
+            @Override
+            protected void done() {
+                if (solverWorker != this) return; // position changed while solving
+                solverWorker = null;
+                try {
+                    int value = get();
+                    String nodes = " (" + proofSolver.getNodes() + " nodes)";
+                    if (value == TicTacToeProofSolver.WIN) {
+                        outcomeLabel.setText("Solved: " + moverName + " wins" + nodes);
+                    } else if (value == TicTacToeProofSolver.LOSS) {
+                        outcomeLabel.setText("Solved: " + otherName + " wins" + nodes);
+                    } else if (value == TicTacToeProofSolver.DRAW) {
+                        outcomeLabel.setText("Solved: Draw" + nodes);
+                    }
+                } catch (Exception ex) {
+                    updateOutcomeLabel();
+                }
+            }
+        };
+        solverWorker.execute();
+    }
+    
+    private void cancelSolve() {
+        if (solverWorker != null) {
+            proofSolver.cancel();
+            solverWorker.cancel(false);
+            solverWorker = null;
         }
-        
-        return false;
     }
     
+    // O(1): the bitboard keeps per-line counters up to date on every place/clear,
+    // and the sparse board checks the runs through each new stone as it is placed
+    private boolean checkWinner() {
+        return winnerIndex() != TicTacToeBitboard.EMPTY;
+    }
+    
+    private int winnerIndex() {
+        return infiniteMode ? sparseBoard.winner() : board.winner();
+    }
+    
+    // An infinite board never fills up
     private boolean isBoardFull() {
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                if (board[i][j].isEmpty()) return false;
-            }
+        return !infiniteMode && board.isFull();
+    }
+    
+    // Bitboard player slot for a symbol
+    private int playerIndex(String symbol) {
+        return symbol.equals(player1Symbol) ? TicTacToeBitboard.PLAYER1 : TicTacToeBitboard.PLAYER2;
+    }
+    
+    private String symbolAt(int row, int col) {
+        switch (infiniteMode ? sparseBoard.get(row, col) : board.get(row, col)) {
+            case TicTacToeBitboard.PLAYER1: return player1Symbol;
+            case TicTacToeBitboard.PLAYER2: return player2Symbol;
+            default: return "";
         }
-        return true;
     }
     
     private void resetGame() {
+        cancelComputerMove();
+        cancelSolve();
         gameOver = false;
         // --- For 2x2, randomize initial state to avoid previous pattern ---
         if (boardSize == 2) {
@@ -1496,19 +2025,20 @@ class TicTacToeGame extends JPanel {
         statusLabel.setText(player1Name + " (" + player1Symbol + ")'s Turn");
         }
         // Clear the board
-        for (int i = 0; i < boardSize; i++) {
-            for (int j = 0; j < boardSize; j++) {
-                board[i][j] = "";
-            }
+        if (infiniteMode) {
+            sparseBoard.reset();
+            if (boardPanel != null) boardPanel.resetViewport();
+        } else {
+            board.reset();
         }
         
         // Clear undo/redo stacks - this is crucial for proper functionality
         moveHistory.clear();
         redoStack.clear();
-        winningCoords.clear();
-        winningLineExists = false;
         
         updatePlayerCards();
+        updateOutcomeLabel();
+        if (boardPanel != null) boardPanel.refreshAnalysis();
         // Repaint the custom board panel directly
         if (this.boardPanel != null) this.boardPanel.repaint();
         if (boardSize == 2) {
@@ -1563,10 +2093,17 @@ class TicTacToeGame extends JPanel {
 
 class OthelloGame extends JPanel {
     private GamePlatform parent;
-    private String[][] board;
+    // Any of OthelloWideBoard.SIZES; on 8×8 its squares are OthelloBitboard's, which the
+    // computer, hints, book, database and game record need, so those are 8×8 only
+    private OthelloWideBoard board;
     private String currentPlayer = "B"; // Black starts
+    // Legal squares for currentPlayer, computed once per turn and read by painting and input
+    private long[] legalMoveMask;
+    // The subset of legalMoveMask found in the opening book, marked on the board
+    private long bookMoveMask;
+    private final OthelloOpeningBook openingBook = OthelloOpeningBook.open();
     private boolean gameOver = false;
-    private final int SIZE = 8;
+    private JComboBox<String> sizeCombo;
     private JLabel statusLabel;
     private JLabel player1ScoreLabel, player2ScoreLabel;
     private JPanel player1Label, player2Label;
@@ -1590,23 +2127,87 @@ class OthelloGame extends JPanel {
     private boolean timerRunning = false;
     private long timerBaseMillis = 0;
     private OthelloBoardPanel boardPanel;
-    private static final int[][] DIRECTIONS = {
-        {-1, -1}, {-1, 0}, {-1, 1},
-        {0, -1},          {0, 1},
-        {1, -1},  {1, 0}, {1, 1}
-    };
+    // Computer opponent: plays White when chosen, searching off the EDT
+    private static final long MCTS_MOVE_MILLIS = 2000;
+    private JComboBox<String> opponentCombo;
+    private OthelloEngine computerEngine;
+    // Created on first use and kept, so its node pool and threads serve every game
+    // even when another opponent is picked in between
+    private OthelloMcts mctsEngine;
+    private SwingWorker<Integer, Void> computerWorker;
+    private JLabel searchLabel;
+    // Exact endgame: once few enough squares are empty every move is solved in the
+    // background, shown under the scores and used to grade the move actually played
+    private static final int ENDGAME_SOLVE_EMPTIES = 18;
+    private OthelloEndgameSolver endgameSolver;
+    private SwingWorker<int[], String> endgameWorker;
+    private int[] perfectScores; // for currentPlayer in the current position, or null
+    private boolean perfectKnown; // the labels hold the exact result of the current position
+    private int pendingComputerMove = -1; // held until the running solve can grade it
+    private JLabel player1PerfectLabel, player2PerfectLabel;
+    private int[] discsLost = new int[3]; // indexed by OthelloBitboard.BLACK / WHITE
+    // Discs the move at each index of the board's history gave away, so undo and redo
+    // can take them off the mover's total and put them back
+    private int[] moveLosses = new int[OthelloBitboard.SQUARES];
+    // Hint: the best move for the side to move, analysed in the background while they think,
+    // on the computer opponent's engine when it has one so the pondering carries over
+    private static final long HINT_BUDGET_MILLIS = 60000;
+    private final OthelloHintService hintService = new OthelloHintService(this::showHint);
+    private OthelloAI hintEngine; // for hints when the opponent is not an OthelloAI
+    private boolean hintsOn;
+    private OthelloHintService.Hint hint; // for the current position, or null
+    // Results and continuations of the database games that reached the current position
+    private final OthelloPositionIndex positionIndex = OthelloPositionIndex.open();
+    private JLabel databaseLabel;
+    // Every game played here is appended to games/recorded.ogr one ply at a time, and the
+    // Replay button scrubs through all the games recorded there
+    private static final java.io.File RECORD_FILE =
+        new java.io.File(OthelloPositionIndex.DEFAULT_DIR, "recorded" + OthelloGameRecord.EXTENSION);
+    private OthelloGameRecord.Writer recorder;
+    private boolean recordingFailed; // the record could not be opened or written; stop trying
 
     // Inner class for the Othello board panel
     class OthelloBoardPanel extends JPanel {
-        private String[][] board;
+        private static final int MARGIN = 20;
+        private OthelloWideBoard board;
         private int size;
+        // The game being played, with its move marks and hint; false for the replay viewer
+        private final boolean live;
+        private int lastMove = -1; // marked in the replay viewer
+        
+        public OthelloBoardPanel(OthelloWideBoard board) {
+            this(board, true);
+        }
         
-        public OthelloBoardPanel(String[][] board, int size) {
+        OthelloBoardPanel(OthelloWideBoard board, boolean live) {
             this.board = board;
-            this.size = size;
+            this.size = board.size;
+            this.live = live;
             setBackground(new Color(34, 139, 34)); // Dark green background
         }
         
+        // A new game on a board of another size
+        void setBoard(OthelloWideBoard board) {
+            this.board = board;
+            this.size = board.size;
+            repaint();
+        }
+        
+        // Whole cells only, so every board size fills the same area without a ragged edge
+        private int cellSize() {
+            return (Math.min(getWidth(), getHeight()) - 2 * MARGIN) / size;
+        }
+        
+        // Square under a mouse position, or -1 off the board
+        int squareAt(int x, int y) {
+            int cellSize = cellSize();
+            int boardPx = cellSize * size;
+            int dx = x - (getWidth() - boardPx) / 2;
+            int dy = y - (getHeight() - boardPx) / 2;
+            if (cellSize <= 0 || dx < 0 || dy < 0 || dx >= boardPx || dy >= boardPx) return -1;
+            return board.square(dy / cellSize, dx / cellSize);
+        }
+        
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
@@ -1615,9 +2216,8 @@ class OthelloGame extends JPanel {
             
             int w = getWidth();
             int h = getHeight();
-            int margin = 20;
-            int boardPx = Math.min(w, h) - 2 * margin;
-            int cellSize = boardPx / size;
+            int cellSize = cellSize();
+            int boardPx = cellSize * size;
             int boardX = (w - boardPx) / 2;
             int boardY = (h - boardPx) / 2;
 
@@ -1664,124 +2264,107 @@ class OthelloGame extends JPanel {
             }
             
             // Draw pieces and valid moves
+            long[] legal = live ? legalMoveMask : null;
+            long book = live ? bookMoveMask : 0; // only ever set on 8×8
             for (int i = 0; i < size; i++) {
                 for (int j = 0; j < size; j++) {
                     int x = boardX + j * cellSize;
                     int y = boardY + i * cellSize;
+                    int square = board.square(i, j);
+                    int piece = board.get(square);
                     
                     // Draw valid move indicators
-                    if (board[i][j].isEmpty() && isValidMove(i, j)) {
+                    if (legal != null && OthelloWideBoard.contains(legal, square)) {
                         g2d.setColor(new Color(0, 255, 0, 80)); // Semi-transparent green
                         g2d.fillOval(x + 4, y + 4, cellSize - 8, cellSize - 8);
                         g2d.setColor(new Color(0, 255, 0));
                         g2d.setStroke(new BasicStroke(2));
                         g2d.drawOval(x + 4, y + 4, cellSize - 8, cellSize - 8);
+                        // Book moves get a blue ring inside the green one
+                        if (book != 0 && (book & (1L << square)) != 0) {
+                            g2d.setColor(new Color(59, 130, 246));
+                            g2d.setStroke(new BasicStroke(3));
+                            g2d.drawOval(x + 12, y + 12, cellSize - 24, cellSize - 24);
+                        }
                     }
                     
                     // Draw pieces
-                    if (!board[i][j].isEmpty()) {
-                        if (board[i][j].equals("B")) {
+                    if (piece != OthelloBitboard.EMPTY) {
+                        if (piece == OthelloBitboard.BLACK) {
                             g2d.setColor(Color.BLACK);
                         } else {
                             g2d.setColor(Color.WHITE);
                         }
                         g2d.fillOval(x + 4, y + 4, cellSize - 8, cellSize - 8);
                     }
+                    if (square == lastMove) {
+                        g2d.setColor(new Color(239, 68, 68));
+                        g2d.fillOval(x + cellSize / 2 - 4, y + cellSize / 2 - 4, 8, 8);
+                    }
                 }
             }
-        }
-    }
-
-    private boolean isValidMove(int row, int col) {
-        // If cell is not empty, move is invalid
-        if (board[row][col] != null && !board[row][col].isEmpty()) return false;
-        
-        String opponent = currentPlayer.equals("B") ? "W" : "B";
-        
-        // Check all 8 directions
-        for (int[] dir : DIRECTIONS) {
-            int r = row + dir[0], c = col + dir[1];
             
-            // Skip if first step is invalid or not opponent
-            if (r < 0 || r >= SIZE || c < 0 || c >= SIZE || 
-                board[r][c] == null || !board[r][c].equals(opponent)) {
-                continue;
-            }
-            
-            // Continue in this direction
-            r += dir[0];
-            c += dir[1];
-            while (r >= 0 && r < SIZE && c >= 0 && c < SIZE) {
-                // Empty cell, invalid in this direction
-                if (board[r][c] == null || board[r][c].isEmpty()) {
-                    break;
-                }
-                // Found our own piece after opponent piece(s)
-                if (board[r][c].equals(currentPlayer)) {
-                    return true;
-                }
-                // Keep going if we find more opponent pieces
-                if (board[r][c].equals(opponent)) {
-                    r += dir[0];
-                    c += dir[1];
-                } else {
-                    break;
-                }
+            // Hinted move: a gold ring with the evaluation for the side to move and its depth
+            OthelloHintService.Hint shown = live ? hint : null;
+            if (shown != null) {
+                int x = boardX + OthelloBitboard.colOf(shown.move) * cellSize;
+                int y = boardY + OthelloBitboard.rowOf(shown.move) * cellSize;
+                g2d.setColor(new Color(250, 204, 21));
+                g2d.setStroke(new BasicStroke(4));
+                g2d.drawOval(x + 3, y + 3, cellSize - 6, cellSize - 6);
+                g2d.setFont(new Font("Arial", Font.BOLD, Math.max(9, cellSize / 5)));
+                FontMetrics fm = g2d.getFontMetrics();
+                String depth = "d" + shown.depth;
+                g2d.drawString(shown.score, x + (cellSize - fm.stringWidth(shown.score)) / 2, y + cellSize / 2);
+                g2d.drawString(depth, x + (cellSize - fm.stringWidth(depth)) / 2, y + cellSize / 2 + fm.getAscent());
             }
         }
-        return false;
     }
 
-    private void flipPieces(int row, int col) {
-        String opponent = currentPlayer.equals("B") ? "W" : "B";
-        
-        // Check all 8 directions
-        for (int[] dir : DIRECTIONS) {
-            int r = row + dir[0], c = col + dir[1];
-            
-            // Skip if first step is invalid or not opponent
-            if (r < 0 || r >= SIZE || c < 0 || c >= SIZE || 
-                board[r][c] == null || !board[r][c].equals(opponent)) {
-                continue;
-            }
-            
-            // Store pieces to flip
-            java.util.ArrayList<int[]> toFlip = new java.util.ArrayList<>();
-            toFlip.add(new int[]{r, c});
-            
-            // Continue in this direction
-            r += dir[0];
-            c += dir[1];
-            while (r >= 0 && r < SIZE && c >= 0 && c < SIZE) {
-                // Empty cell, invalid in this direction
-                if (board[r][c] == null || board[r][c].isEmpty()) {
-                    break;
-                }
-                // Found our own piece, flip all pieces in between
-                if (board[r][c].equals(currentPlayer)) {
-                    for (int[] pos : toFlip) {
-                        board[pos[0]][pos[1]] = currentPlayer;
-                    }
-                    break;
-                }
-                // Keep going if we find more opponent pieces
-                if (board[r][c].equals(opponent)) {
-                    toFlip.add(new int[]{r, c});
-                    r += dir[0];
-                    c += dir[1];
-                } else {
-                    break;
-                }
-            }
-        }
+    private static int colorOf(String player) {
+        return "B".equals(player) ? OthelloBitboard.BLACK : OthelloBitboard.WHITE;
+    }
+
+    private boolean isValidMove(int row, int col) {
+        return OthelloWideBoard.contains(legalMoveMask, board.square(row, col));
+    }
+    
+    // The engines, opening book, database and game record only know the 8×8 board
+    private boolean isStandardBoard() {
+        return board.size == OthelloBitboard.SIZE;
+    }
+    
+    // The position for the 8×8 engines, whose squares are the wide board's on 8×8
+    private OthelloBitboard standardPosition() {
+        OthelloBitboard position = new OthelloBitboard();
+        position.set(board.narrowDiscs(OthelloBitboard.BLACK), board.narrowDiscs(OthelloBitboard.WHITE));
+        return position;
+    }
+    
+    // Called whenever currentPlayer or the position changes; nothing else runs move generation
+    private void refreshLegalMoves() {
+        int player = colorOf(currentPlayer);
+        board.legalMoves(player, legalMoveMask);
+        // A few binary searches in the mapped book, so the marks are there from the first move
+        bookMoveMask = openingBook == null || !isStandardBoard() ? 0
+            : openingBook.bookMoves(board.narrowDiscs(player), board.narrowDiscs(OthelloBitboard.opponent(player)));
     }
     
     public OthelloGame(GamePlatform parent) {
         this.parent = parent;
         setLayout(new BorderLayout());
         setBackground(new Color(248, 250, 252));
-        this.board = new String[SIZE][SIZE]; // Initialize the board array
+        this.board = new OthelloWideBoard(OthelloBitboard.SIZE);
+        legalMoveMask = board.newMask();
         initializeComponents();
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) {
+                startEndgameSolveIfNeeded();
+                startComputerMoveIfNeeded();
+                refreshHint();
+            }
+        });
     }
     
     private void initializeComponents() {
@@ -1791,7 +2374,14 @@ class OthelloGame extends JPanel {
         headerPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
         JButton backButton = createStyledButton("← Back to Games", new Color(100, 116, 139));
-        backButton.addActionListener(e -> parent.showHub());
+        backButton.addActionListener(e -> {
+            // Nothing keeps searching the shared pools while the game is out of sight;
+            // componentShown picks the work up again on the way back
+            cancelComputerMove();
+            cancelEndgameSolve();
+            cancelHint();
+            parent.showHub();
+        });
         backButton.setForeground(Color.WHITE);
         
         JLabel titleLabel = new JLabel("OTHELLO ARENA");
@@ -1811,6 +2401,14 @@ class OthelloGame extends JPanel {
         stopTimerBtn.setFont(new Font("Arial", Font.PLAIN, 14));
         JButton resetTimerBtn = new JButton("Reset Timer");
         resetTimerBtn.setFont(new Font("Arial", Font.PLAIN, 14));
+        JButton undoBtn = new JButton("Undo");
+        undoBtn.setFont(new Font("Arial", Font.PLAIN, 14));
+        JButton redoBtn = new JButton("Redo");
+        redoBtn.setFont(new Font("Arial", Font.PLAIN, 14));
+        JButton hintBtn = new JButton("Hint");
+        hintBtn.setFont(new Font("Arial", Font.PLAIN, 14));
+        JButton replayBtn = new JButton("Replay");
+        replayBtn.setFont(new Font("Arial", Font.PLAIN, 14));
         JButton newGameBtn = new JButton("New Game");
         newGameBtn.setFont(new Font("Arial", Font.BOLD, 14));
         newGameBtn.setForeground(Color.WHITE);
@@ -1822,6 +2420,10 @@ class OthelloGame extends JPanel {
         timerPanel.add(startTimerBtn);
         timerPanel.add(stopTimerBtn);
         timerPanel.add(resetTimerBtn);
+        timerPanel.add(undoBtn);
+        timerPanel.add(redoBtn);
+        timerPanel.add(hintBtn);
+        timerPanel.add(replayBtn);
         timerPanel.add(newGameBtn);
         
         headerPanel.add(backButton, BorderLayout.WEST);
@@ -1867,6 +2469,44 @@ class OthelloGame extends JPanel {
         setupPanel.add(name2Field, gbc);
         gbc.gridx = 0;
         gbc.gridy++;
+        JLabel opponentLabel = new JLabel("White Played By:");
+        opponentLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        setupPanel.add(opponentLabel, gbc);
+        gbc.gridx = 1;
+        String[] opponents = new String[OthelloAI.STRENGTH_NAMES.length + 2];
+        opponents[0] = "Human";
+        for (int i = 0; i < OthelloAI.STRENGTH_NAMES.length; i++) {
+            opponents[i + 1] = "Computer (" + OthelloAI.STRENGTH_NAMES[i] + ")";
+        }
+        opponents[opponents.length - 1] = "Computer (MCTS)";
+        opponentCombo = new JComboBox<>(opponents);
+        opponentCombo.setFont(new Font("Arial", Font.PLAIN, 18));
+        opponentCombo.setPreferredSize(inputSize);
+        setupPanel.add(opponentCombo, gbc);
+        gbc.gridx = 0;
+        gbc.gridy++;
+        JLabel sizeLabel = new JLabel("Board Size:");
+        sizeLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        setupPanel.add(sizeLabel, gbc);
+        gbc.gridx = 1;
+        String[] sizes = new String[OthelloWideBoard.SIZES.length];
+        for (int i = 0; i < sizes.length; i++) {
+            int n = OthelloWideBoard.SIZES[i];
+            sizes[i] = n + "×" + n + (n == OthelloBitboard.SIZE ? " (standard)" : "");
+        }
+        sizeCombo = new JComboBox<>(sizes);
+        sizeCombo.setFont(new Font("Arial", Font.PLAIN, 18));
+        sizeCombo.setPreferredSize(inputSize);
+        sizeCombo.setSelectedIndex(Arrays.binarySearch(OthelloWideBoard.SIZES, OthelloBitboard.SIZE));
+        // The computer opponents only play the standard board
+        sizeCombo.addActionListener(e -> {
+            boolean standard = OthelloWideBoard.SIZES[sizeCombo.getSelectedIndex()] == OthelloBitboard.SIZE;
+            if (!standard) opponentCombo.setSelectedIndex(0);
+            opponentCombo.setEnabled(standard);
+        });
+        setupPanel.add(sizeCombo, gbc);
+        gbc.gridx = 0;
+        gbc.gridy++;
         gbc.gridwidth = 2;
         JButton startButton = createStyledButton("Start Game", new Color(16, 185, 129));
         startButton.setFont(new Font("Arial", Font.BOLD, 18));
@@ -1874,6 +2514,25 @@ class OthelloGame extends JPanel {
         startButton.addActionListener(e -> {
             player1Name = name1Field.getText().trim().isEmpty() ? "Player 1" : name1Field.getText().trim();
             player2Name = name2Field.getText().trim().isEmpty() ? "Player 2" : name2Field.getText().trim();
+            int opponent = opponentCombo.getSelectedIndex();
+            cancelComputerMove();
+            int size = OthelloWideBoard.SIZES[sizeCombo.getSelectedIndex()];
+            if (size != board.size) {
+                board = new OthelloWideBoard(size);
+                legalMoveMask = board.newMask();
+                boardPanel.setBoard(board);
+            }
+            if (opponent <= 0 || !isStandardBoard()) {
+                computerEngine = null;
+            } else if (opponent == OthelloAI.STRENGTH_NAMES.length + 1) {
+                if (mctsEngine == null) mctsEngine = new OthelloMcts(MCTS_MOVE_MILLIS);
+                computerEngine = mctsEngine;
+            } else {
+                computerEngine = OthelloAI.forStrength(opponent - 1);
+            }
+            if (computerEngine != null && player2Name.equals("Player 2")) {
+                player2Name = "Computer";
+            }
             cardLayout.show(contentPanel, "GAME");
             updatePlayerPanels(); // <-- update side panels with new names
             initializeBoard();
@@ -1891,6 +2550,16 @@ class OthelloGame extends JPanel {
         statusLabel.setForeground(new Color(30, 41, 59));
         statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
         statusLabel.setBorder(BorderFactory.createEmptyBorder(20, 0, 20, 0));
+        // Depth and speed of the computer's last search
+        searchLabel = new JLabel(" ");
+        searchLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        searchLabel.setForeground(new Color(100, 116, 139));
+        searchLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        searchLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.setOpaque(false);
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(searchLabel, BorderLayout.SOUTH);
         
         // Game Layout with Players on sides
         JPanel mainGamePanel = new JPanel(new BorderLayout());
@@ -1906,8 +2575,16 @@ class OthelloGame extends JPanel {
         mainGamePanel.add(boardPanel, BorderLayout.CENTER);
         mainGamePanel.add(player2Panel, BorderLayout.EAST); // <-- use field
         
-        gamePanel.add(statusLabel, BorderLayout.NORTH);
+        // Game database statistics for the position on the board, when an index has been built
+        databaseLabel = new JLabel(" ");
+        databaseLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        databaseLabel.setForeground(new Color(100, 116, 139));
+        databaseLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        databaseLabel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
+        
+        gamePanel.add(statusPanel, BorderLayout.NORTH);
         gamePanel.add(mainGamePanel, BorderLayout.CENTER);
+        gamePanel.add(databaseLabel, BorderLayout.SOUTH);
         
         // Use CardLayout to switch between setup and game
         cardLayout = new CardLayout();
@@ -1946,6 +2623,33 @@ class OthelloGame extends JPanel {
             updateTimerLabels(0);
             timerRunning = false;
         });
+        undoBtn.addActionListener(e -> {
+            undoMove();
+            // Against the computer, take back its replies as well so the human is to move
+            while (isComputerTurn() && board.canUndo()) undoMove();
+            startComputerMoveIfNeeded();
+            startEndgameSolveIfNeeded();
+            refreshHint();
+            showDatabaseStats();
+        });
+        redoBtn.addActionListener(e -> {
+            redoMove();
+            while (isComputerTurn() && board.canRedo()) redoMove();
+            startComputerMoveIfNeeded();
+            startEndgameSolveIfNeeded();
+            refreshHint();
+            showDatabaseStats();
+        });
+        hintBtn.addActionListener(e -> {
+            parent.playSound("click");
+            hintsOn = !hintsOn;
+            hintBtn.setText(hintsOn ? "Hide Hint" : "Hint");
+            refreshHint();
+        });
+        replayBtn.addActionListener(e -> {
+            parent.playSound("click");
+            showReplay();
+        });
         newGameBtn.addActionListener(e -> {
             stopGameTimer();
             timerBaseMillis = System.currentTimeMillis();
@@ -1974,6 +2678,7 @@ class OthelloGame extends JPanel {
         statusLabel.setText(winner);
         
         javax.swing.Timer timer = new javax.swing.Timer(1500, e -> {
+            if (!gameOver) return; // the final move was taken back
             int choice = JOptionPane.showConfirmDialog(
                 this,
                 winner + " Would you like to play again?",
@@ -2162,38 +2867,44 @@ class OthelloGame extends JPanel {
         }
         scoreLabel.setHorizontalAlignment(SwingConstants.CENTER);
         
+        // Perfect-play result from the endgame solver, under the score
+        JLabel perfectLabel = new JLabel(" ");
+        perfectLabel.setFont(new Font("Arial", Font.PLAIN, 13));
+        perfectLabel.setForeground(new Color(100, 116, 139));
+        perfectLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        
         if (isLeft) {
             player1ScoreLabel = scoreLabel;
+            player1PerfectLabel = perfectLabel;
         } else {
             player2ScoreLabel = scoreLabel;
+            player2PerfectLabel = perfectLabel;
         }
         
         panel.add(nameLabel, BorderLayout.NORTH);
         panel.add(colorLabel, BorderLayout.CENTER);
-        panel.add(scoreLabel, BorderLayout.SOUTH);
+        panel.add(createScoreBox(scoreLabel, perfectLabel), BorderLayout.SOUTH);
         
         return panel;
     }
     
+    private JPanel createScoreBox(JLabel scoreLabel, JLabel perfectLabel) {
+        JPanel box = new JPanel(new BorderLayout());
+        box.setOpaque(false);
+        box.add(scoreLabel, BorderLayout.CENTER);
+        box.add(perfectLabel, BorderLayout.SOUTH);
+        return box;
+    }
+    
     private JPanel createGameBoard() {
-        boardPanel = new OthelloBoardPanel(board, SIZE);
+        boardPanel = new OthelloBoardPanel(board);
         boardPanel.setPreferredSize(new Dimension(480, 480));
         boardPanel.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                int w = boardPanel.getWidth();
-                int h = boardPanel.getHeight();
-                int margin = 20;
-                int boardPx = Math.min(w, h) - 2 * margin;
-                int cellSize = boardPx / SIZE;
-                int boardX = (w - boardPx) / 2;
-                int boardY = (h - boardPx) / 2;
-                int x = e.getX();
-                int y = e.getY();
-                int col = (x - boardX) / cellSize;
-                int row = (y - boardY) / cellSize;
-                if (row >= 0 && row < SIZE && col >= 0 && col < SIZE) {
-                    makeMove(row, col);
+                int square = boardPanel.squareAt(e.getX(), e.getY());
+                if (square >= 0 && !isComputerTurn()) {
+                    makeMove(board.rowOf(square), board.colOf(square));
                     boardPanel.repaint();
                 }
             }
@@ -2205,21 +2916,19 @@ class OthelloGame extends JPanel {
     }
     
     private void initializeBoard() {
-        // Clear board
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                board[i][j] = "";
-            }
-        }
-        
-        // Set initial pieces
-        board[3][3] = "W";
-        board[3][4] = "B";
-        board[4][3] = "B";
-        board[4][4] = "W";
+        cancelComputerMove();
+        cancelEndgameSolve();
+        discsLost = new int[3];
+        moveLosses = new int[board.squares];
+        clearPerfectPlay();
+        if (searchLabel != null) searchLabel.setText(" ");
+        // Clear the board and set the four initial pieces
+        board.reset();
         
         currentPlayer = "B";
+        refreshLegalMoves();
         gameOver = false;
+        record(OthelloGameRecord.GAME);
         statusLabel.setText(player1Name + "'s Turn (Black)");
         updateScores();
         updatePieceCounters();
@@ -2229,10 +2938,12 @@ class OthelloGame extends JPanel {
         updateTimerLabels(0);
         timerRunning = false;
         highlightCurrentPlayer();
+        refreshHint();
+        showDatabaseStats();
     }
     
     private void makeMove(int row, int col) {
-        if (gameOver || !board[row][col].isEmpty()) {
+        if (gameOver || board.get(row, col) != OthelloBitboard.EMPTY) {
             parent.playSound("error");
             return;
         }
@@ -2241,79 +2952,443 @@ class OthelloGame extends JPanel {
             // Play soothing piece placement sound
             parent.playSound("othello_move");
             
-            board[row][col] = currentPlayer;
+            int square = board.square(row, col);
+            moveLosses[board.moveCount()] = 0;
+            gradeMove(square);
+            cancelEndgameSolve();
+            cancelHint();
+            // Places the disc and flips every bracketed run in one step, recording it for undo
+            board.makeMove(colorOf(currentPlayer), square);
+            record(square);
             
             // Play gentle flip sound for piece flipping
             parent.playSound("othello_flip");
             
-            flipPieces(row, col);
             updateScores();
             updatePieceCounters();
-            // Switch players
-            currentPlayer = currentPlayer.equals("B") ? "W" : "B";
+            advanceTurn();
+            startComputerMoveIfNeeded();
+            startEndgameSolveIfNeeded();
+            refreshHint();
+            showDatabaseStats();
+        } else {
+            parent.playSound("error");
             highlightCurrentPlayer();
-            
-            // If the next player has no valid moves, skip their turn
+        }
+    }
+    
+    // Hands the turn to the other player after a move, skipping them if they cannot move
+    private void advanceTurn() {
+        // Switch players
+        currentPlayer = currentPlayer.equals("B") ? "W" : "B";
+        refreshLegalMoves();
+        
+        // If the next player has no valid moves, skip their turn
+        if (!hasValidMoves()) {
+            // Switch back to the other player
+            currentPlayer = currentPlayer.equals("B") ? "W" : "B";
+            refreshLegalMoves();
+            // If neither player has valid moves, end the game
             if (!hasValidMoves()) {
-                // Switch back to the other player
-                currentPlayer = currentPlayer.equals("B") ? "W" : "B";
-                // If neither player has valid moves, end the game
-                if (!hasValidMovesForPlayer("B") && !hasValidMovesForPlayer("W")) {
                 endGame();
-                    return;
-                } else {
-                    // Inform that the other player was skipped
-                    statusLabel.setText((currentPlayer.equals("B") ? player1Name : player2Name) +
-                        " (" + (currentPlayer.equals("B") ? "Black" : "White") + ")'s Turn (Opponent skipped)");
-                    return;
-                }
             } else {
+                record(OthelloGameRecord.PASS);
+                highlightCurrentPlayer();
+                // Inform that the other player was skipped
                 statusLabel.setText((currentPlayer.equals("B") ? player1Name : player2Name) +
-                    " (" + (currentPlayer.equals("B") ? "Black" : "White") + ")'s Turn");
+                    " (" + (currentPlayer.equals("B") ? "Black" : "White") + ")'s Turn (Opponent skipped)");
             }
         } else {
-            parent.playSound("error");
             highlightCurrentPlayer();
+            statusLabel.setText((currentPlayer.equals("B") ? player1Name : player2Name) +
+                " (" + (currentPlayer.equals("B") ? "Black" : "White") + ")'s Turn");
         }
     }
     
-    private boolean checkWinner(int row, int col) {
-        String symbol = board[row][col];
-        
-        // Check row
-        int count = 1;
-        for (int i = col - 1; i >= 0 && board[row][i].equals(symbol); i--) count++;
-        for (int i = col + 1; i < SIZE && board[row][i].equals(symbol); i++) count++;
-        if (count >= SIZE) return true;
-        
-        // Check column
-        count = 1;
-        for (int i = row - 1; i >= 0 && board[i][col].equals(symbol); i--) count++;
-        for (int i = row + 1; i < SIZE && board[i][col].equals(symbol); i++) count++;
-        if (count >= SIZE) return true;
-        
-        // Check main diagonal
-        count = 1;
-        for (int i = 1; row - i >= 0 && col - i >= 0 && board[row - i][col - i].equals(symbol); i++) count++;
-        for (int i = 1; row + i < SIZE && col + i < SIZE && board[row + i][col + i].equals(symbol); i++) count++;
-        if (count >= SIZE) return true;
-        
-        // Check anti-diagonal
-        count = 1;
-        for (int i = 1; row - i >= 0 && col + i < SIZE && board[row - i][col + i].equals(symbol); i++) count++;
-        for (int i = 1; row + i < SIZE && col - i >= 0 && board[row + i][col - i].equals(symbol); i++) count++;
-        if (count >= SIZE) return true;
-        
-        return false;
+    // Takes back the last move from the board's flip-mask history; its player is to move again
+    private void undoMove() {
+        cancelComputerMove();
+        cancelEndgameSolve();
+        cancelHint();
+        if (!board.canUndo()) {
+            parent.playSound("error");
+            return;
+        }
+        parent.playSound("click");
+        board.undoMove();
+        record(OthelloGameRecord.TAKEBACK);
+        currentPlayer = board.moverAt(board.moveCount()) == OthelloBitboard.BLACK ? "B" : "W";
+        discsLost[colorOf(currentPlayer)] -= moveLosses[board.moveCount()];
+        refreshLegalMoves();
+        gameOver = false;
+        clearPerfectPlay();
+        updateScores();
+        highlightCurrentPlayer();
+        statusLabel.setText((currentPlayer.equals("B") ? player1Name : player2Name) +
+            " (" + (currentPlayer.equals("B") ? "Black" : "White") + ")'s Turn");
+        if (boardPanel != null) boardPanel.repaint();
+    }
+    
+    private void redoMove() {
+        cancelComputerMove();
+        cancelEndgameSolve();
+        cancelHint();
+        if (!board.canRedo()) {
+            parent.playSound("error");
+            return;
+        }
+        parent.playSound("click");
+        board.redoMove();
+        record(board.squareAt(board.moveCount() - 1));
+        currentPlayer = board.moverAt(board.moveCount() - 1) == OthelloBitboard.BLACK ? "B" : "W";
+        discsLost[colorOf(currentPlayer)] += moveLosses[board.moveCount() - 1];
+        clearPerfectPlay();
+        updateScores();
+        advanceTurn();
+        if (boardPanel != null) boardPanel.repaint();
     }
     
     private boolean isBoardFull() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (board[i][j] == null || board[i][j].isEmpty()) return false;
+        return board.isFull();
+    }
+    
+    private boolean isComputerTurn() {
+        return computerEngine != null && !gameOver && "W".equals(currentPlayer);
+    }
+    
+    // Searches a snapshot off the EDT under the engine's own deadline and plays the result through makeMove
+    private void startComputerMoveIfNeeded() {
+        if (!isComputerTurn() || computerWorker != null) return;
+        final OthelloBitboard snapshot = standardPosition();
+        final OthelloEngine engine = computerEngine;
+        // Taken here so a cancelComputerMove before the worker starts still stops it
+        final int stopToken = engine.stopToken();
+        statusLabel.setText(player2Name + " (White) is thinking...");
+        computerWorker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return engine.chooseMove(snapshot, OthelloBitboard.WHITE, stopToken);
+            }
+            
+            @Override
+            protected void done() {
+                if (computerWorker != this) return; // cancelled by a new game
+                computerWorker = null;
+                try {
+                    int square = get();
+                    if (square >= 0 && isComputerTurn()) {
+                        searchLabel.setText(engine.describeLastSearch());
+                        if (endgameWorker != null) {
+                            pendingComputerMove = square;
+                        } else {
+                            playComputerMove(square);
+                        }
+                    }
+                } catch (Exception ex) {
+                    // Search was interrupted; the position is left as it is
+                }
+            }
+        };
+        computerWorker.execute();
+    }
+    
+    private void playComputerMove(int square) {
+        makeMove(OthelloBitboard.rowOf(square), OthelloBitboard.colOf(square));
+        if (boardPanel != null) boardPanel.repaint();
+    }
+    
+    private void cancelComputerMove() {
+        pendingComputerMove = -1;
+        if (computerWorker != null) {
+            computerEngine.stop();
+            computerWorker.cancel(false);
+            computerWorker = null;
+        }
+    }
+    
+    // Solves every move of the side to play once the board is nearly full; progress and the
+    // solver's speed go to the search line, the perfect-play result under each score
+    private void startEndgameSolveIfNeeded() {
+        if (gameOver || endgameWorker != null || !isStandardBoard() || board.emptyCount() > ENDGAME_SOLVE_EMPTIES) return;
+        if (endgameSolver == null) endgameSolver = new OthelloEndgameSolver(20);
+        final OthelloEndgameSolver solver = endgameSolver;
+        final int cancelToken = solver.cancelToken();
+        final OthelloBitboard snapshot = standardPosition();
+        final int player = colorOf(currentPlayer);
+        final int empties = board.emptyCount();
+        if (!perfectKnown) {
+            setPerfectText(player == OthelloBitboard.BLACK ? player1PerfectLabel : player2PerfectLabel, "Perfect play: solving...");
+        }
+        endgameWorker = new SwingWorker<int[], String>() {
+            @Override
+            protected int[] doInBackground() {
+                return solver.solve(snapshot, player, cancelToken, (nodes, nodesPerSecond, solvedMoves, totalMoves) ->
+                    publish(String.format("Solving endgame: %d/%d moves, %,d nodes (%,dk nodes/s)",
+                        solvedMoves, totalMoves, nodes, nodesPerSecond / 1000)));
+            }
+            
+            @Override
+            protected void process(java.util.List<String> chunks) {
+                if (endgameWorker == this) searchLabel.setText(chunks.get(chunks.size() - 1));
+            }
+            
+            @Override
+            protected void done() {
+                if (endgameWorker != this) return; // cancelled by a move or a new game
+                endgameWorker = null;
+                try {
+                    int[] scores = get();
+                    if (scores != null) showPerfectPlay(scores);
+                } catch (Exception ex) {
+                    // Solve was interrupted; the labels are left as they are
+                }
+                if (pendingComputerMove >= 0 && isComputerTurn()) {
+                    int square = pendingComputerMove;
+                    pendingComputerMove = -1;
+                    playComputerMove(square);
+                }
+            }
+            
+            private void showPerfectPlay(int[] scores) {
+                perfectScores = scores;
+                perfectKnown = true;
+                int best = scores[OthelloEndgameSolver.bestSquare(scores)];
+                int black = player == OthelloBitboard.BLACK ? best : -best;
+                setPerfectText(player1PerfectLabel, String.format("Perfect play: %+d", black));
+                setPerfectText(player2PerfectLabel, String.format("Perfect play: %+d", -black));
+                searchLabel.setText(String.format("Endgame solved: %d empties, %,d nodes (%,dk nodes/s)",
+                    empties, solver.getNodes(), solver.getNodesPerSecond() / 1000));
+            }
+        };
+        endgameWorker.execute();
+    }
+    
+    // Analyses the position now on the board for the player to move while hints are on;
+    // the computer's own turns are left to its search
+    private void refreshHint() {
+        cancelHint();
+        if (hintsOn && !gameOver && isStandardBoard() && !isComputerTurn() && hasValidMoves()) {
+            OthelloAI engine;
+            if (computerEngine instanceof OthelloAI) {
+                engine = (OthelloAI) computerEngine;
+            } else {
+                if (hintEngine == null) hintEngine = OthelloAI.forStrength(OthelloAI.STRENGTH_NAMES.length - 1);
+                engine = hintEngine;
+            }
+            hintService.analyse(standardPosition(), colorOf(currentPlayer), engine, HINT_BUDGET_MILLIS);
+        }
+        if (boardPanel != null) boardPanel.repaint();
+    }
+    
+    // One lookup in the memory-mapped index: how the games through this position ended and
+    // the three most played continuations, in Black's and White's terms
+    private void showDatabaseStats() {
+        if (positionIndex == null || databaseLabel == null) return;
+        if (!isStandardBoard()) {
+            databaseLabel.setText(" ");
+            return;
+        }
+        int player = colorOf(currentPlayer);
+        OthelloPositionIndex.Stats stats = positionIndex.stats(board.narrowDiscs(player),
+            board.narrowDiscs(OthelloBitboard.opponent(player)));
+        if (stats.games == 0) {
+            databaseLabel.setText("Database: no games reached this position");
+            return;
+        }
+        int blackWins = stats.results[player == OthelloBitboard.BLACK ? OthelloPositionIndex.WIN : OthelloPositionIndex.LOSS];
+        int whiteWins = stats.games - blackWins - stats.results[OthelloPositionIndex.DRAW];
+        StringBuilder text = new StringBuilder(String.format("Database: %,d games, Black %d%% / draw %d%% / White %d%%",
+            stats.games, 100L * blackWins / stats.games, 100L * stats.results[OthelloPositionIndex.DRAW] / stats.games,
+            100L * whiteWins / stats.games));
+        int[] continuations = stats.continuations();
+        for (int i = 0; i < Math.min(3, continuations.length); i++) {
+            int move = continuations[i];
+            text.append(i == 0 ? "  |  Played next: " : ", ").append(OthelloBitboard.squareName(move))
+                .append(String.format(" %d%%", 100L * stats.moveGames[move] / stats.games));
+        }
+        databaseLabel.setText(text.toString());
+    }
+    
+    // Appends a ply, PASS, TAKEBACK or the start of a GAME to the record, opening it on first
+    // use; the game goes on unrecorded if the file cannot be written
+    private void record(int code) {
+        if (recordingFailed || !isStandardBoard()) return;
+        try {
+            if (recorder == null) {
+                java.io.File dir = RECORD_FILE.getParentFile();
+                if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+                recorder = new OthelloGameRecord.Writer(RECORD_FILE);
+            }
+            if (code == OthelloGameRecord.GAME) {
+                recorder.newGame(board.narrowDiscs(OthelloBitboard.BLACK), board.narrowDiscs(OthelloBitboard.WHITE),
+                    colorOf(currentPlayer));
+            } else if (code == OthelloGameRecord.TAKEBACK) {
+                recorder.takeBack();
+            } else {
+                recorder.play(code);
+            }
+        } catch (IOException | RuntimeException e) {
+            recordingFailed = true;
+            if (recorder != null) {
+                try {
+                    recorder.close();
+                } catch (IOException ignored) {
+                    // already given up on the file
+                }
+                recorder = null;
             }
         }
-        return true;
+    }
+    
+    // Modal viewer over every recorded game: one slider picks the game and one the ply, and
+    // each step is a snapshot lookup plus a few replayed moves, so dragging either is instant.
+    // The computer and the hint wait while it is open.
+    private void showReplay() {
+        OthelloGameRecord games = null;
+        try {
+            if (RECORD_FILE.isFile()) games = OthelloGameRecord.read(RECORD_FILE);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Cannot read " + RECORD_FILE + ": " + e.getMessage(),
+                "Replay", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (games == null || games.gameCount() == 0) {
+            JOptionPane.showMessageDialog(this, "No games have been recorded yet.", "Replay",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        final OthelloGameRecord record = games;
+        cancelComputerMove();
+        cancelHint();
+        
+        OthelloBitboard replayPosition = new OthelloBitboard();
+        OthelloWideBoard replayBoard = new OthelloWideBoard(OthelloBitboard.SIZE);
+        OthelloBoardPanel view = new OthelloBoardPanel(replayBoard, false);
+        view.setPreferredSize(new Dimension(480, 480));
+        int last = record.gameCount() - 1;
+        JSlider gameSlider = new JSlider(1, record.gameCount(), last + 1);
+        JSlider plySlider = new JSlider(0, record.plyCount(last), record.plyCount(last));
+        JLabel infoLabel = new JLabel(" ");
+        infoLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        infoLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        Runnable showPosition = () -> {
+            int game = gameSlider.getValue() - 1;
+            int ply = plySlider.getValue();
+            int toMove = record.position(game, ply, replayPosition);
+            replayBoard.set(replayPosition.discs(OthelloBitboard.BLACK), replayPosition.discs(OthelloBitboard.WHITE));
+            int played = ply > 0 ? record.plyAt(game, ply - 1) : -1;
+            view.lastMove = played == OthelloGameRecord.PASS ? -1 : played;
+            String move = played < 0 ? "start" : played == OthelloGameRecord.PASS ? "pass"
+                : OthelloBitboard.squareName(played);
+            String state = ply == record.plyCount(game) && replayPosition.isGameOver() ? "game over"
+                : (toMove == OthelloBitboard.BLACK ? "Black" : "White") + " to move";
+            infoLabel.setText(String.format("Game %,d of %,d  |  Ply %d of %d (%s)  |  Black %d, White %d  |  %s",
+                game + 1, record.gameCount(), ply, record.plyCount(game), move,
+                replayPosition.count(OthelloBitboard.BLACK), replayPosition.count(OthelloBitboard.WHITE), state));
+            view.repaint();
+        };
+        // Switching games keeps the ply where the other game allows, to compare them move by move
+        gameSlider.addChangeListener(e -> {
+            plySlider.setMaximum(record.plyCount(gameSlider.getValue() - 1));
+            showPosition.run();
+        });
+        plySlider.addChangeListener(e -> showPosition.run());
+        showPosition.run();
+        
+        JPanel controls = new JPanel(new GridBagLayout());
+        controls.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
+        GridBagConstraints c = new GridBagConstraints();
+        c.insets = new Insets(4, 4, 4, 4);
+        c.fill = GridBagConstraints.HORIZONTAL;
+        c.gridx = 0;
+        c.gridy = 0;
+        c.gridwidth = 2;
+        controls.add(infoLabel, c);
+        c.gridwidth = 1;
+        c.gridy = 1;
+        controls.add(new JLabel("Game"), c);
+        c.gridx = 1;
+        c.weightx = 1;
+        controls.add(gameSlider, c);
+        c.gridx = 0;
+        c.gridy = 2;
+        c.weightx = 0;
+        controls.add(new JLabel("Move"), c);
+        c.gridx = 1;
+        c.weightx = 1;
+        controls.add(plySlider, c);
+        
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Replay: " + RECORD_FILE,
+            Dialog.ModalityType.APPLICATION_MODAL);
+        JButton closeBtn = new JButton("Close");
+        closeBtn.addActionListener(e -> dialog.dispose());
+        c.gridx = 1;
+        c.gridy = 3;
+        c.fill = GridBagConstraints.NONE;
+        c.anchor = GridBagConstraints.EAST;
+        controls.add(closeBtn, c);
+        dialog.getContentPane().add(view, BorderLayout.CENTER);
+        dialog.getContentPane().add(controls, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true); // returns once the viewer is closed
+        
+        startComputerMoveIfNeeded();
+        refreshHint();
+    }
+    
+    private void cancelHint() {
+        hintService.cancel();
+        hint = null;
+    }
+    
+    private void showHint(OthelloHintService.Hint update) {
+        hint = update;
+        if (boardPanel != null) boardPanel.repaint();
+    }
+    
+    private void clearPerfectPlay() {
+        perfectKnown = false;
+        setPerfectText(player1PerfectLabel, null);
+        setPerfectText(player2PerfectLabel, null);
+    }
+    
+    private void cancelEndgameSolve() {
+        perfectScores = null;
+        if (endgameWorker != null) {
+            endgameSolver.cancel();
+            endgameWorker.cancel(false);
+            endgameWorker = null;
+            clearPerfectPlay();
+        }
+    }
+    
+    // Charges the side to move with the discs its move gives away against perfect play
+    private void gradeMove(int square) {
+        if (perfectScores == null || perfectScores[square] == OthelloEndgameSolver.NO_SCORE) return;
+        int player = colorOf(currentPlayer);
+        int lost = perfectScores[OthelloEndgameSolver.bestSquare(perfectScores)] - perfectScores[square];
+        discsLost[player] += lost;
+        moveLosses[board.moveCount()] = lost;
+        // The played move's exact score is the new perfect-play result
+        int black = player == OthelloBitboard.BLACK ? perfectScores[square] : -perfectScores[square];
+        setPerfectText(player1PerfectLabel, String.format("Perfect play: %+d", black));
+        setPerfectText(player2PerfectLabel, String.format("Perfect play: %+d", -black));
+        perfectKnown = true;
+        String name = player == OthelloBitboard.BLACK ? player1Name : player2Name;
+        searchLabel.setText(lost == 0 ? name + " played a perfect move"
+            : String.format("%s gave away %d disc%s against perfect play", name, lost, lost == 1 ? "" : "s"));
+    }
+    
+    private void setPerfectText(JLabel label, String text) {
+        if (label == null) return;
+        if (text == null) {
+            label.setText(" ");
+            return;
+        }
+        int player = label == player1PerfectLabel ? OthelloBitboard.BLACK : OthelloBitboard.WHITE;
+        label.setText(discsLost[player] == 0 ? text
+            : "<html><center>" + text + "<br/>Discs lost: " + discsLost[player] + "</center></html>");
     }
     
     private void showWinDialog() {
@@ -2366,22 +3441,12 @@ class OthelloGame extends JPanel {
 
     // --- OTHELLO LOGIC IMPLEMENTATION ---
     private boolean hasValidMoves() {
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if (isValidMove(i, j)) return true;
-            }
-        }
-        return false;
+        return !OthelloWideBoard.isEmpty(legalMoveMask);
     }
 
     private void updateScores() {
-        int black = 0, white = 0;
-        for (int i = 0; i < SIZE; i++) {
-            for (int j = 0; j < SIZE; j++) {
-                if ("B".equals(board[i][j])) black++;
-                else if ("W".equals(board[i][j])) white++;
-            }
-        }
+        int black = board.count(OthelloBitboard.BLACK);
+        int white = board.count(OthelloBitboard.WHITE);
         if (player1ScoreLabel != null) player1ScoreLabel.setText(String.valueOf(black));
         if (player2ScoreLabel != null) player2ScoreLabel.setText(String.valueOf(white));
     }
@@ -2430,15 +3495,6 @@ class OthelloGame extends JPanel {
     }
     // --- END TIMER IMPLEMENTATION ---
 
-    // Helper to check valid moves for any player (robustness)
-    private boolean hasValidMovesForPlayer(String player) {
-        String originalPlayer = currentPlayer;
-        currentPlayer = player;
-        boolean result = hasValidMoves();
-        currentPlayer = originalPlayer;
-        return result;
-    }
-
     // Add this method to update player panels
     private void updatePlayerPanels() {
         if (player1Panel != null) {
@@ -2451,7 +3507,7 @@ class OthelloGame extends JPanel {
             colorLabel.setForeground(new Color(100, 116, 139));
             player1Panel.add(nameLabel, BorderLayout.NORTH);
             player1Panel.add(colorLabel, BorderLayout.CENTER);
-            player1Panel.add(player1ScoreLabel, BorderLayout.SOUTH);
+            player1Panel.add(createScoreBox(player1ScoreLabel, player1PerfectLabel), BorderLayout.SOUTH);
             player1Panel.revalidate();
             player1Panel.repaint();
         }
@@ -2465,7 +3521,7 @@ class OthelloGame extends JPanel {
             colorLabel.setForeground(new Color(100, 116, 139));
             player2Panel.add(nameLabel, BorderLayout.NORTH);
             player2Panel.add(colorLabel, BorderLayout.CENTER);
-            player2Panel.add(player2ScoreLabel, BorderLayout.SOUTH);
+            player2Panel.add(createScoreBox(player2ScoreLabel, player2PerfectLabel), BorderLayout.SOUTH);
             player2Panel.revalidate();
             player2Panel.repaint();
         }
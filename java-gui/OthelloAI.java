@@ -0,0 +1,477 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Computer opponent for Othello.
+// Iterative-deepening principal variation search (negamax with alpha-beta and null-window
+// re-searches) over the two disc masks of an OthelloBitboard, passed by value so a
+// move is a few ANDs and ORs and needs no undo. Positions are cached in a Zobrist-hashed
+// transposition table that also remembers the best move; moves are tried TT move first,
+// then the two killer moves of the ply, then by history score. Leaves are scored by an
+// OthelloEvaluator: the trained pattern tables when tables/othello-patterns.bin exists,
+// otherwise the hand-written HEURISTIC, which weighs mobility, corners, edge stability and
+// frontier discs. An OthelloNeuralEval is fed each move through its accumulator instead.
+// Finished games score the final disc differential. Every search honours a hard deadline
+// and always returns a legal move. The strength presets play straight from the opening
+// book (tables/othello-book.bin) while the position is still in it.
+class OthelloAI implements OthelloEngine {
+    // Strength presets: {max depth, time budget in ms}
+    static final String[] STRENGTH_NAMES = {"Easy", "Medium", "Hard", "Expert"};
+    static final int[][] STRENGTH_PRESETS = {{2, 250}, {4, 750}, {8, 2000}, {60, 4000}};
+
+    static final int WIN_SCORE = 1000000;
+    static final OthelloEvaluator HEURISTIC = OthelloAI::evaluate;
+
+    // Told about every completed iteration of analyse(), on the searching thread
+    interface SearchListener {
+        // Returning false ends the search after this iteration
+        boolean iterationDone(int depth, int move, int score, long nodes);
+    }
+
+    private static final int INFINITY = WIN_SCORE + 100;
+    private static final int MAX_PLY = 64;
+    private static final int TT_BITS = 20;
+    private static final int FLAG_EXACT = 0, FLAG_LOWER = 1, FLAG_UPPER = 2;
+    private static final int NO_MOVE = 0xFF;
+
+    private static final long CORNERS = 0x8100000000000081L;
+    // Diagonal neighbours of each corner, dangerous while that corner is empty
+    private static final long[] X_SQUARES = {1L << 9, 1L << 14, 1L << 49, 1L << 54};
+    private static final int[] CORNER_OF_X = {0, 7, 56, 63};
+    private static final long EDGE_FILES = 0x8181818181818181L;
+    private static final long EDGE_RANKS = 0xFF000000000000FFL;
+    // Every row, column and diagonal, for the full-line stability test
+    private static final long[][] AXIS_LINES = buildAxisLines();
+
+    private final int maxDepth;
+    private final long timeBudgetMillis;
+    private final OthelloEvaluator evaluator;
+    // First-layer sums kept up to date move by move when the evaluator is a network
+    private final OthelloNeuralEval.Accumulator accumulator;
+    private OthelloOpeningBook book;
+
+    // Zobrist keys: squares per colour, and the side to move
+    private final long[][] zobrist = new long[3][OthelloBitboard.SQUARES];
+    private final long[] flipKeys = new long[OthelloBitboard.SQUARES];
+    private final long sideKey;
+
+    // Transposition table: parallel arrays, always-replace on deeper or equal depth
+    private final long[] ttKeys = new long[1 << TT_BITS];
+    private final long[] ttData = new long[1 << TT_BITS];
+
+    // Move ordering state and per-ply move lists, reused between searches
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[3][OthelloBitboard.SQUARES];
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][OthelloBitboard.SQUARES];
+    private final int[][] scoreBuffers = new int[MAX_PLY + 1][OthelloBitboard.SQUARES];
+
+    private long deadlineNanos;
+    private final AtomicInteger stops = new AtomicInteger();
+    private int stopToken;
+    private boolean aborted;
+    private long nodes;
+    private long elapsedNanos;
+    private int depthReached;
+    private int lastScore;
+    private int lastBookRecord = -1; // book record behind the last move, or -1 if it was searched
+
+    OthelloAI(int maxDepth, long timeBudgetMillis) {
+        this(maxDepth, timeBudgetMillis, defaultEvaluator());
+    }
+
+    OthelloAI(int maxDepth, long timeBudgetMillis, OthelloEvaluator evaluator) {
+        this.maxDepth = Math.max(1, Math.min(MAX_PLY - 4, maxDepth));
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+        this.evaluator = evaluator;
+        this.accumulator = evaluator instanceof OthelloNeuralEval
+            ? ((OthelloNeuralEval) evaluator).newAccumulator() : null;
+        Random random = new Random(0x0711E110L);
+        for (int p = 1; p <= 2; p++) {
+            for (int sq = 0; sq < OthelloBitboard.SQUARES; sq++) zobrist[p][sq] = random.nextLong();
+        }
+        for (int sq = 0; sq < OthelloBitboard.SQUARES; sq++) {
+            flipKeys[sq] = zobrist[OthelloBitboard.BLACK][sq] ^ zobrist[OthelloBitboard.WHITE][sq];
+        }
+        sideKey = random.nextLong();
+    }
+
+    // Trained pattern tables when they have been generated, else the hand-written evaluation
+    static OthelloEvaluator defaultEvaluator() {
+        OthelloPatternEval patterns = OthelloPatternEval.open();
+        return patterns != null ? patterns : HEURISTIC;
+    }
+
+    static OthelloAI forStrength(int level) {
+        int[] preset = STRENGTH_PRESETS[Math.max(0, Math.min(STRENGTH_PRESETS.length - 1, level))];
+        OthelloAI ai = new OthelloAI(preset[0], preset[1]);
+        ai.book = OthelloOpeningBook.open();
+        return ai;
+    }
+
+    // Can be called from any thread to make a running search return early, or one whose
+    // token was taken before this call return at once
+    @Override
+    public void stop() {
+        stops.incrementAndGet();
+    }
+
+    @Override
+    public int stopToken() {
+        return stops.get();
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    int getDepthReached() {
+        return depthReached;
+    }
+
+    int getLastScore() {
+        return lastScore;
+    }
+
+    long getNodesPerSecond() {
+        return elapsedNanos > 0 ? nodes * 1000000000L / elapsedNanos : 0;
+    }
+
+    @Override
+    public String describeLastSearch() {
+        if (lastBookRecord >= 0) {
+            return String.format("Book move: %d games, %+.1f average", book.visitsAt(lastBookRecord),
+                -book.scoreAt(lastBookRecord));
+        }
+        return "PVS: depth " + depthReached + ", " + nodes + " nodes (" + getNodesPerSecond() / 1000 + "k nodes/s)";
+    }
+
+    @Override
+    public synchronized int chooseMove(OthelloBitboard position, int player, int stopToken) {
+        this.stopToken = stopToken;
+        long start = System.nanoTime();
+        lastBookRecord = -1;
+        if (book != null) {
+            long own = position.discs(player);
+            long opp = position.discs(OthelloBitboard.opponent(player));
+            int move = book.bestMove(own, opp);
+            if (move >= 0) {
+                lastBookRecord = book.childRecord(own, opp, move);
+                return move;
+            }
+        }
+        try {
+            return search(position.discs(player), position.discs(OthelloBitboard.opponent(player)), player,
+                start, maxDepth, timeBudgetMillis, null);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    // Open-ended search for hints: as deep as the game goes, until `budgetMillis` runs out,
+    // stop() is called after `stopToken` was taken or the listener declines another
+    // iteration. It shares the transposition table with chooseMove, so analysing on the
+    // opponent's time leaves the lines after the predicted move ready for the engine's own
+    // next search.
+    synchronized int analyse(OthelloBitboard position, int player, long budgetMillis, int stopToken,
+                             SearchListener listener) {
+        this.stopToken = stopToken;
+        long start = System.nanoTime();
+        lastBookRecord = -1;
+        try {
+            return search(position.discs(player), position.discs(OthelloBitboard.opponent(player)), player,
+                start, MAX_PLY - 4, Math.max(1, budgetMillis), listener);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    // A score from the side to move's point of view as text: the exact result once the game
+    // is solved, else predicted discs for the trained evaluators or heuristic points
+    String describeScore(int score) {
+        if (score >= WIN_SCORE) return "win +" + (score - WIN_SCORE);
+        if (score <= -WIN_SCORE) return "loss " + (score + WIN_SCORE);
+        if (evaluator instanceof OthelloPatternEval || evaluator instanceof OthelloNeuralEval) {
+            return String.format("%+.1f", (double) score / OthelloPatternEval.SCALE);
+        }
+        return String.format("%+d", score);
+    }
+
+    private int search(long own, long opp, int player, long start, int depthLimit, long budgetMillis,
+                       SearchListener listener) {
+        deadlineNanos = start + budgetMillis * 1000000L;
+        aborted = false;
+        nodes = 0;
+        depthReached = 0;
+        lastScore = 0;
+        long legal = OthelloBitboard.legalMoves(own, opp);
+        if (legal == 0) return -1;
+
+        // Older history fades so each search mostly orders by what it has seen itself
+        for (int[] row : history) {
+            for (int sq = 0; sq < row.length; sq++) row[sq] >>= 3;
+        }
+        for (int[] pair : killers) {
+            pair[0] = NO_MOVE;
+            pair[1] = NO_MOVE;
+        }
+        int[] rootMoves = new int[Long.bitCount(legal)];
+        int rootCount = 0;
+        for (long m = legal; m != 0; m &= m - 1) rootMoves[rootCount++] = Long.numberOfTrailingZeros(m);
+        int bestMove = rootMoves[0];
+        long key = hash(own, opp, player);
+        int empties = Long.bitCount(~(own | opp));
+        if (accumulator != null) {
+            accumulator.reset(player == OthelloBitboard.BLACK ? own : opp, player == OthelloBitboard.BLACK ? opp : own);
+        }
+
+        for (int depth = 1; depth <= depthLimit; depth++) {
+            int alpha = -INFINITY;
+            int iterationBest = -1;
+            for (int i = 0; i < rootCount; i++) {
+                int move = rootMoves[i];
+                long flips = OthelloBitboard.flips(own, opp, move);
+                long bit = 1L << move;
+                long childKey = key ^ zobrist[player][move] ^ flipHash(flips) ^ sideKey;
+                int score;
+                if (accumulator != null) accumulator.push(player, move, flips);
+                if (i == 0) {
+                    score = -negamax(opp & ~flips, own | flips | bit, OthelloBitboard.opponent(player), depth - 1, 1, -INFINITY, -alpha, childKey, false);
+                } else {
+                    score = -negamax(opp & ~flips, own | flips | bit, OthelloBitboard.opponent(player), depth - 1, 1, -alpha - 1, -alpha, childKey, false);
+                    if (score > alpha && !aborted) {
+                        score = -negamax(opp & ~flips, own | flips | bit, OthelloBitboard.opponent(player), depth - 1, 1, -INFINITY, -alpha, childKey, false);
+                    }
+                }
+                if (accumulator != null) accumulator.pop();
+                if (aborted) break;
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+            if (aborted) break;
+            bestMove = iterationBest;
+            lastScore = alpha;
+            depthReached = depth;
+            // Search the previous best move first next iteration
+            for (int i = 0; i < rootCount; i++) {
+                if (rootMoves[i] == bestMove) {
+                    System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                    rootMoves[0] = bestMove;
+                    break;
+                }
+            }
+            if (listener != null && !listener.iterationDone(depth, bestMove, alpha, nodes)) break;
+            // Deep enough to see every game to the end, or the result is already certain
+            if (depth >= empties || Math.abs(alpha) >= WIN_SCORE) break;
+        }
+        return bestMove;
+    }
+
+    private int negamax(long own, long opp, int player, int depth, int ply, int alpha, int beta, long key, boolean passed) {
+        if ((++nodes & 1023) == 0 && (stops.get() != stopToken || System.nanoTime() > deadlineNanos)) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+        long legal = OthelloBitboard.legalMoves(own, opp);
+        if (legal == 0) {
+            // Both sides stuck: the game is over
+            if (passed || OthelloBitboard.legalMoves(opp, own) == 0) return finalScore(own, opp);
+            return -negamax(opp, own, OthelloBitboard.opponent(player), depth, ply, -beta, -alpha, key ^ sideKey, true);
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return accumulator != null ? accumulator.evaluate(player) : evaluator.evaluate(own, opp, legal);
+        }
+
+        int slot = (int) (key & ((1 << TT_BITS) - 1));
+        int ttMove = NO_MOVE;
+        if (ttKeys[slot] == key) {
+            long data = ttData[slot];
+            int ttDepth = (int) (data >>> 48) & 0xFF;
+            int flag = (int) (data >>> 56) & 0x3;
+            int ttScore = (int) data;
+            ttMove = (int) (data >>> 32) & 0xFF;
+            if (ttDepth >= depth) {
+                if (flag == FLAG_EXACT) return ttScore;
+                if (flag == FLAG_LOWER && ttScore >= beta) return ttScore;
+                if (flag == FLAG_UPPER && ttScore <= alpha) return ttScore;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        int count = orderMoves(legal, player, ply, ttMove, moves, scores);
+        int best = -INFINITY;
+        int bestMove = NO_MOVE;
+        for (int i = 0; i < count; i++) {
+            pickNext(moves, scores, i, count);
+            int move = moves[i];
+            long flips = OthelloBitboard.flips(own, opp, move);
+            long nextOwn = opp & ~flips;
+            long nextOpp = own | flips | (1L << move);
+            long childKey = key ^ zobrist[player][move] ^ flipHash(flips) ^ sideKey;
+            int opponent = OthelloBitboard.opponent(player);
+            int score;
+            if (accumulator != null) accumulator.push(player, move, flips);
+            if (i == 0) {
+                score = -negamax(nextOwn, nextOpp, opponent, depth - 1, ply + 1, -beta, -alpha, childKey, false);
+            } else {
+                // Null window first; only a move that beats alpha is searched again in full
+                score = -negamax(nextOwn, nextOpp, opponent, depth - 1, ply + 1, -alpha - 1, -alpha, childKey, false);
+                if (score > alpha && score < beta && !aborted) {
+                    score = -negamax(nextOwn, nextOpp, opponent, depth - 1, ply + 1, -beta, -alpha, childKey, false);
+                }
+            }
+            if (accumulator != null) accumulator.pop();
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) {
+                if (killers[ply][0] != move) {
+                    killers[ply][1] = killers[ply][0];
+                    killers[ply][0] = move;
+                }
+                history[player][move] = Math.min(1 << 26, history[player][move] + depth * depth);
+                break;
+            }
+        }
+
+        int flag = best <= originalAlpha ? FLAG_UPPER : (best >= beta ? FLAG_LOWER : FLAG_EXACT);
+        int storedDepth = (int) (ttData[slot] >>> 48) & 0xFF;
+        if (ttKeys[slot] != key || depth >= storedDepth) {
+            ttKeys[slot] = key;
+            ttData[slot] = ((long) flag << 56) | ((long) depth << 48)
+                | ((long) bestMove << 32) | (best & 0xFFFFFFFFL);
+        }
+        return best;
+    }
+
+    // Fills moves/scores from the legal mask: TT move, killers, corners, then history
+    private int orderMoves(long legal, int player, int ply, int ttMove, int[] moves, int[] scores) {
+        int count = 0;
+        for (long m = legal; m != 0; m &= m - 1) {
+            int sq = Long.numberOfTrailingZeros(m);
+            int score = history[player][sq];
+            if (sq == ttMove) score = 1 << 30;
+            else if (sq == killers[ply][0]) score = 1 << 29;
+            else if (sq == killers[ply][1]) score = 1 << 28;
+            else if ((CORNERS >>> sq & 1) != 0) score += 1 << 27;
+            moves[count] = sq;
+            scores[count++] = score;
+        }
+        return count;
+    }
+
+    // Selection sort step: moves the best remaining move to index i
+    private static void pickNext(int[] moves, int[] scores, int i, int count) {
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        if (best != i) {
+            int move = moves[i];
+            moves[i] = moves[best];
+            moves[best] = move;
+            int score = scores[i];
+            scores[i] = scores[best];
+            scores[best] = score;
+        }
+    }
+
+    // Finished game: a win outranks every heuristic score, and bigger margins rank higher
+    private static int finalScore(long own, long opp) {
+        int diff = Long.bitCount(own) - Long.bitCount(opp);
+        return diff > 0 ? WIN_SCORE + diff : diff < 0 ? -WIN_SCORE + diff : 0;
+    }
+
+    // Heuristic value for the side to move (owning `own`, with legal moves `legal`)
+    static int evaluate(long own, long opp, long legal) {
+        long empty = ~(own | opp);
+        int empties = Long.bitCount(empty);
+        int ownMobility = Long.bitCount(legal);
+        int oppMobility = Long.bitCount(OthelloBitboard.legalMoves(opp, own));
+        int score = 80 * (ownMobility - oppMobility);
+        score += 800 * (Long.bitCount(own & CORNERS) - Long.bitCount(opp & CORNERS));
+        for (int i = 0; i < 4; i++) {
+            if ((empty >>> CORNER_OF_X[i] & 1) == 0) continue;
+            if ((own & X_SQUARES[i]) != 0) score -= 250;
+            if ((opp & X_SQUARES[i]) != 0) score += 250;
+        }
+        score += 120 * (Long.bitCount(stableDiscs(own, opp)) - Long.bitCount(stableDiscs(opp, own)));
+        // Frontier discs border empty squares and hand the opponent moves
+        long nearEmpty = 0;
+        for (int d = 0; d < 8; d++) nearEmpty |= OthelloBitboard.shift(empty, d);
+        score -= 25 * (Long.bitCount(own & nearEmpty) - Long.bitCount(opp & nearEmpty));
+        // Disc count only starts to matter near the end
+        if (empties < 16) score += (16 - empties) * 4 * (Long.bitCount(own) - Long.bitCount(opp));
+        return Math.max(-WIN_SCORE / 2, Math.min(WIN_SCORE / 2, score));
+    }
+
+    // A conservative set of `own` discs that can never be flipped: grown from the corners,
+    // a disc is stable when along each of the four axes it touches the edge, a stable
+    // disc of its colour, or lies on a completely filled line.
+    static long stableDiscs(long own, long opp) {
+        long occupied = own | opp;
+        long fullRows = fullLines(occupied, AXIS_LINES[0]);
+        long fullCols = fullLines(occupied, AXIS_LINES[1]);
+        long fullDiagonals = fullLines(occupied, AXIS_LINES[2]);
+        long fullAntiDiagonals = fullLines(occupied, AXIS_LINES[3]);
+        long edges = EDGE_FILES | EDGE_RANKS;
+        long stable = own & CORNERS;
+        while (true) {
+            // Directions 0/1 are horizontal, 2/3 vertical, 4/7 and 5/6 the two diagonals
+            long next = stable | own
+                & (fullRows | EDGE_FILES | OthelloBitboard.shift(stable, 0) | OthelloBitboard.shift(stable, 1))
+                & (fullCols | EDGE_RANKS | OthelloBitboard.shift(stable, 2) | OthelloBitboard.shift(stable, 3))
+                & (fullDiagonals | edges | OthelloBitboard.shift(stable, 4) | OthelloBitboard.shift(stable, 7))
+                & (fullAntiDiagonals | edges | OthelloBitboard.shift(stable, 5) | OthelloBitboard.shift(stable, 6));
+            if (next == stable) return stable;
+            stable = next;
+        }
+    }
+
+    private static long fullLines(long occupied, long[] lines) {
+        long full = 0;
+        for (long line : lines) {
+            if ((occupied & line) == line) full |= line;
+        }
+        return full;
+    }
+
+    private long flipHash(long flips) {
+        long k = 0;
+        for (long f = flips; f != 0; f &= f - 1) k ^= flipKeys[Long.numberOfTrailingZeros(f)];
+        return k;
+    }
+
+    private long hash(long own, long opp, int player) {
+        long key = player == OthelloBitboard.WHITE ? sideKey : 0;
+        for (long b = own; b != 0; b &= b - 1) key ^= zobrist[player][Long.numberOfTrailingZeros(b)];
+        int opponent = OthelloBitboard.opponent(player);
+        for (long b = opp; b != 0; b &= b - 1) key ^= zobrist[opponent][Long.numberOfTrailingZeros(b)];
+        return key;
+    }
+
+    // Rows, columns, diagonals and anti-diagonals as masks, grouped by axis
+    private static long[][] buildAxisLines() {
+        int n = OthelloBitboard.SIZE;
+        long[][] lines = new long[4][];
+        lines[0] = new long[n];
+        lines[1] = new long[n];
+        lines[2] = new long[2 * n - 1];
+        lines[3] = new long[2 * n - 1];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                long bit = 1L << OthelloBitboard.square(r, c);
+                lines[0][r] |= bit;
+                lines[1][c] |= bit;
+                lines[2][r - c + n - 1] |= bit;
+                lines[3][r + c] |= bit;
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,180 @@
+// Primitive bitboard position for 8×8 Othello.
+// Square (row, col) is bit row * 8 + col, and each colour owns one long.
+// Legal moves and flips are found with Kogge-Stone occluded fills: for each of the
+// eight directions, three shift-and-mask steps propagate every disc through runs of
+// opponent discs at once, instead of walking squares one by one. Nothing here
+// allocates, so the same code serves the engines, the tools and the file formats; the
+// game itself plays on an OthelloWideBoard, which also keeps the undo/redo history.
+class OthelloBitboard {
+    static final int SIZE = 8;
+    static final int SQUARES = 64;
+    static final int EMPTY = 0;
+    static final int BLACK = 1;
+    static final int WHITE = 2;
+
+    // Files A (col 0) and H (col 7) removed, to stop shifts wrapping between rows
+    static final long NOT_A_FILE = 0xFEFEFEFEFEFEFEFEL;
+    static final long NOT_H_FILE = 0x7F7F7F7F7F7F7F7FL;
+    // The four central discs of the standard start
+    static final long START_BLACK = (1L << 28) | (1L << 35);
+    static final long START_WHITE = (1L << 27) | (1L << 36);
+
+    // Direction d moves by SHIFTS[d] bits (negative = towards bit 0); MASKS[d] drops wrapped bits
+    private static final int[] SHIFTS = {1, -1, 8, -8, 9, 7, -7, -9};
+    private static final long[] MASKS = {
+        NOT_A_FILE, NOT_H_FILE, -1L, -1L, NOT_A_FILE, NOT_H_FILE, NOT_A_FILE, NOT_H_FILE
+    };
+
+    // Every move fills a square, so a game never has more moves than the starting empties
+    static final int MAX_MOVES = SQUARES - 4;
+
+    private long black;
+    private long white;
+
+    OthelloBitboard() {
+        reset();
+    }
+
+    static int square(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    static int colOf(int square) {
+        return square & 7;
+    }
+
+    // Standard notation: column letter then row number, "a1" to "h8"
+    static String squareName(int square) {
+        return "" + (char) ('a' + colOf(square)) + (rowOf(square) + 1);
+    }
+
+    static int opponent(int player) {
+        return 3 - player;
+    }
+
+    void reset() {
+        set(START_BLACK, START_WHITE);
+    }
+
+    void copyFrom(OthelloBitboard other) {
+        set(other.black, other.white);
+    }
+
+    void set(long blackDiscs, long whiteDiscs) {
+        black = blackDiscs;
+        white = whiteDiscs;
+    }
+
+    long discs(int player) {
+        return player == BLACK ? black : white;
+    }
+
+    long empties() {
+        return ~(black | white);
+    }
+
+    int get(int square) {
+        long bit = 1L << square;
+        return (black & bit) != 0 ? BLACK : (white & bit) != 0 ? WHITE : EMPTY;
+    }
+
+    int get(int row, int col) {
+        return get(square(row, col));
+    }
+
+    int count(int player) {
+        return Long.bitCount(discs(player));
+    }
+
+    int emptyCount() {
+        return Long.bitCount(empties());
+    }
+
+    boolean isFull() {
+        return (black | white) == -1L;
+    }
+
+    long legalMoves(int player) {
+        return player == BLACK ? legalMoves(black, white) : legalMoves(white, black);
+    }
+
+    boolean hasLegalMove(int player) {
+        return legalMoves(player) != 0;
+    }
+
+    // Game over when neither side can move
+    boolean isGameOver() {
+        return legalMoves(black, white) == 0 && legalMoves(white, black) == 0;
+    }
+
+    // Places a disc for `player` and flips; returns the flipped discs, or 0 (and changes
+    // nothing) if the move is illegal
+    long play(int player, int square) {
+        long own = discs(player);
+        long opp = discs(opponent(player));
+        long bit = 1L << square;
+        if (((own | opp) & bit) != 0) return 0;
+        long flipped = flips(own, opp, square);
+        if (flipped == 0) return 0;
+        if (player == BLACK) {
+            black |= flipped | bit;
+            white &= ~flipped;
+        } else {
+            white |= flipped | bit;
+            black &= ~flipped;
+        }
+        return flipped;
+    }
+
+    // Every empty square that brackets at least one opponent disc, all directions at once
+    static long legalMoves(long own, long opp) {
+        long empty = ~(own | opp);
+        long moves = 0;
+        for (int d = 0; d < 8; d++) {
+            moves |= shift(fill(own, opp, d) & opp, d);
+        }
+        return moves & empty;
+    }
+
+    // Discs flipped when the side owning `own` plays on `square` (0 if illegal)
+    static long flips(long own, long opp, int square) {
+        long bit = 1L << square;
+        long flipped = 0;
+        for (int d = 0; d < 8; d++) {
+            long run = fill(bit, opp, d);
+            if ((shift(run, d) & own) != 0) flipped |= run & opp;
+        }
+        return flipped;
+    }
+
+    // Kogge-Stone occluded fill: `gen` plus every square reachable from it in direction d
+    // through a contiguous run of `pro` squares (three doubling steps cover up to 7)
+    static long fill(long gen, long pro, int d) {
+        int s = SHIFTS[d];
+        pro &= MASKS[d];
+        if (s > 0) {
+            gen |= pro & (gen << s);
+            pro &= pro << s;
+            gen |= pro & (gen << 2 * s);
+            pro &= pro << 2 * s;
+            gen |= pro & (gen << 4 * s);
+        } else {
+            s = -s;
+            gen |= pro & (gen >>> s);
+            pro &= pro >>> s;
+            gen |= pro & (gen >>> 2 * s);
+            pro &= pro >>> 2 * s;
+            gen |= pro & (gen >>> 4 * s);
+        }
+        return gen;
+    }
+
+    static long shift(long b, int d) {
+        int s = SHIFTS[d];
+        return (s > 0 ? b << s : b >>> -s) & MASKS[d];
+    }
+}
@@ -0,0 +1,445 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Exact Othello endgame solver: the final disc differential (empties go to the winner)
+// of every legal move, meant for the last 20 or so empty squares.
+// Each root move is pinned down by MTD(f) null-window probes over a fail-soft principal
+// variation search that runs straight to the end of the game. Moves are ordered fastest-first
+// (fewest replies for the opponent) while many squares are empty, and by region parity
+// (odd-sized quadrants first) near the end, where computing mobility costs more than it saves.
+// Bounds are kept in a dedicated two-way transposition table that is safe to share between
+// threads: each entry stores key ^ data, so a torn write just reads as a miss.
+// Every root move is its own fork-join task, and deeper nodes split Young Brothers Wait
+// style: the eldest move is searched alone and the younger ones in parallel only if it
+// did not cut off; a cutoff in any of them abandons the rest. The search is cancellable
+// from any thread and reports progress while it runs.
+class OthelloEndgameSolver {
+    static final int NO_SCORE = Integer.MIN_VALUE;
+    static final int MAX_SCORE = 64;
+
+    private static final int SPLIT_MIN_EMPTIES = 12;
+    private static final int TT_MIN_EMPTIES = 7;
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+    private static final int NO_MOVE = 0xFF;
+    private static final long CORNERS = 0x8100000000000081L;
+    private static final long[] QUADRANTS = {
+        0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+    private static final long PROGRESS_INTERVAL_NANOS = 250000000L;
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+
+    interface ProgressListener {
+        void progress(long nodes, long nodesPerSecond, int solvedMoves, int totalMoves);
+    }
+
+    private final int ttMask;
+    private final long[] ttChecks;
+    private final long[] ttData;
+
+    // Counted like the engines' stops, so a cancel() before solve() starts is not lost
+    private final AtomicInteger cancels = new AtomicInteger();
+    private int cancelToken;
+    private final AtomicLong nodes = new AtomicLong();
+    private long elapsedNanos;
+
+    OthelloEndgameSolver() {
+        this(22);
+    }
+
+    OthelloEndgameSolver(int ttBits) {
+        ttMask = (1 << ttBits) - 1;
+        ttChecks = new long[1 << ttBits];
+        ttData = new long[1 << ttBits];
+    }
+
+    void cancel() {
+        cancels.incrementAndGet();
+    }
+
+    // Taken before handing solve() to another thread; a later cancel() stops that solve
+    int cancelToken() {
+        return cancels.get();
+    }
+
+    long getNodes() {
+        return nodes.get();
+    }
+
+    long getNodesPerSecond() {
+        return elapsedNanos > 0 ? nodes.get() * 1000000000L / elapsedNanos : 0;
+    }
+
+    private boolean cancelled() {
+        return cancels.get() != cancelToken;
+    }
+
+    // The best square in a result of solve(), or -1 if there is none
+    static int bestSquare(int[] scores) {
+        int best = -1;
+        for (int sq = 0; sq < scores.length; sq++) {
+            if (scores[sq] != NO_SCORE && (best < 0 || scores[sq] > scores[best])) best = sq;
+        }
+        return best;
+    }
+
+    // Exact final disc differential for `player` after each legal move (NO_SCORE elsewhere),
+    // or null if cancelled or `player` has no legal move
+    int[] solve(OthelloBitboard position, int player, ProgressListener listener) {
+        return solve(position, player, cancelToken(), listener);
+    }
+
+    // As above, but cancelled by any cancel() after `cancelToken` was taken
+    synchronized int[] solve(OthelloBitboard position, int player, int cancelToken, ProgressListener listener) {
+        this.cancelToken = cancelToken;
+        nodes.set(0);
+        long start = System.nanoTime();
+        try {
+            long own = position.discs(player);
+            long opp = position.discs(OthelloBitboard.opponent(player));
+            long legal = OthelloBitboard.legalMoves(own, opp);
+            if (legal == 0) return null;
+            int empties = Long.bitCount(~(own | opp));
+            AtomicInteger solved = new AtomicInteger();
+            List<SearchTask> tasks = new ArrayList<>();
+            int[] squares = new int[Long.bitCount(legal)];
+            for (long m = legal; m != 0; m &= m - 1) {
+                int sq = Long.numberOfTrailingZeros(m);
+                long flips = OthelloBitboard.flips(own, opp, sq);
+                squares[tasks.size()] = sq;
+                tasks.add(new SearchTask(null, opp & ~flips, own | flips | (1L << sq), empties - 1, -MAX_SCORE - 1, MAX_SCORE + 1, solved));
+            }
+            ForkJoinTask<?> root = POOL.submit(() -> ForkJoinTask.invokeAll(tasks));
+            // Wait in slices so progress can be reported from this thread
+            while (true) {
+                try {
+                    root.get(PROGRESS_INTERVAL_NANOS, TimeUnit.NANOSECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    if (listener != null) {
+                        long elapsed = Math.max(1, System.nanoTime() - start);
+                        listener.progress(nodes.get(), nodes.get() * 1000000000L / elapsed, solved.get(), tasks.size());
+                    }
+                } catch (InterruptedException e) {
+                    cancel();
+                    Thread.currentThread().interrupt();
+                    return null;
+                } catch (ExecutionException e) {
+                    // A failing search is a bug, not "no result"
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new IllegalStateException(cause);
+                }
+            }
+            if (cancelled()) return null;
+            int[] scores = new int[OthelloBitboard.SQUARES];
+            java.util.Arrays.fill(scores, NO_SCORE);
+            for (int i = 0; i < tasks.size(); i++) scores[squares[i]] = -tasks.get(i).join();
+            return scores;
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    // A YBW split node; a cutoff there makes every search below it give up
+    private static final class Split {
+        final Split parent;
+        volatile boolean cutoff;
+
+        Split(Split parent) {
+            this.parent = parent;
+        }
+    }
+
+    // Searches one position to the end of the game; the root moves and every younger
+    // brother at a split node run as one of these
+    private class SearchTask extends RecursiveTask<Integer> {
+        private final Split split;
+        private final long own;
+        private final long opp;
+        private final int empties;
+        private final int alpha;
+        private final int beta;
+        private final AtomicInteger solved;   // root tasks only
+        // Per-task move lists, indexed by the number of empties at the node
+        private final int[][] moves;
+        private final int[][] keys;
+        private long localNodes;
+        boolean aborted;
+
+        SearchTask(Split split, long own, long opp, int empties, int alpha, int beta, AtomicInteger solved) {
+            this.split = split;
+            this.own = own;
+            this.opp = opp;
+            this.empties = empties;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.solved = solved;
+            this.moves = new int[empties + 1][];
+            this.keys = new int[empties + 1][];
+        }
+
+        @Override
+        protected Integer compute() {
+            int score = solved != null ? solveExact() : search(own, opp, empties, alpha, beta, false);
+            nodes.addAndGet(localNodes);
+            if (solved != null && !aborted) solved.incrementAndGet();
+            return score;
+        }
+
+        // Pins down the exact score with null-window searches that converge on it (MTD(f));
+        // each probe is cheap and the table carries the bounds from one probe to the next
+        private int solveExact() {
+            int lower = -MAX_SCORE;
+            int upper = MAX_SCORE;
+            int guess = 0;
+            while (lower < upper && !aborted) {
+                int bound = Math.max(guess, lower + 1);
+                guess = search(own, opp, empties, bound - 1, bound, false);
+                if (guess < bound) {
+                    upper = guess;
+                } else {
+                    lower = guess;
+                }
+            }
+            return lower;
+        }
+
+        private boolean stopped() {
+            if (cancelled()) return true;
+            for (Split s = split; s != null; s = s.parent) {
+                if (s.cutoff) return true;
+            }
+            return false;
+        }
+
+        private int search(long own, long opp, int empties, int alpha, int beta, boolean passed) {
+            if ((++localNodes & 4095) == 0) {
+                nodes.addAndGet(localNodes);
+                localNodes = 0;
+                if (stopped()) aborted = true;
+            }
+            if (aborted) return 0;
+            if (empties == 0) return Long.bitCount(own) - Long.bitCount(opp);
+            if (empties == 1) return lastMove(own, opp);
+
+            long legal = OthelloBitboard.legalMoves(own, opp);
+            if (legal == 0) {
+                if (passed || OthelloBitboard.legalMoves(opp, own) == 0) return finalScore(own, opp, empties);
+                return -search(opp, own, empties, -beta, -alpha, true);
+            }
+
+            long hash = 0;
+            int slot = -1;
+            int ttMove = NO_MOVE;
+            if (empties >= TT_MIN_EMPTIES) {
+                hash = hash(own, opp);
+                slot = find(hash);
+                if (slot >= 0) {
+                    long data = ttData[slot];
+                    int lower = (int) (data & 0xFF) - MAX_SCORE;
+                    int upper = (int) (data >>> 8 & 0xFF) - MAX_SCORE;
+                    if (lower >= beta) return lower;
+                    if (upper <= alpha || lower == upper) return upper;
+                    alpha = Math.max(alpha, lower);
+                    beta = Math.min(beta, upper);
+                    ttMove = (int) (data >>> 16 & 0xFF);
+                }
+            }
+
+            int originalAlpha = alpha;
+            int best = -MAX_SCORE - 1;
+            int bestMove = NO_MOVE;
+            if (empties < FASTEST_FIRST_EMPTIES) {
+                // Parity: moves in quadrants with an odd number of empties first
+                long empty = ~(own | opp);
+                long odd = 0;
+                for (long quadrant : QUADRANTS) {
+                    if ((Long.bitCount(empty & quadrant) & 1) != 0) odd |= quadrant;
+                }
+                for (int pass = 0; pass < 2 && best < beta; pass++) {
+                    for (long m = legal & (pass == 0 ? odd : ~odd); m != 0; m &= m - 1) {
+                        int sq = Long.numberOfTrailingZeros(m);
+                        long flips = OthelloBitboard.flips(own, opp, sq);
+                        int score = -search(opp & ~flips, own | flips | (1L << sq), empties - 1, -beta, -Math.max(alpha, best), false);
+                        if (aborted) return 0;
+                        if (score > best) {
+                            best = score;
+                            bestMove = sq;
+                            if (best >= beta) break;
+                        }
+                    }
+                }
+            } else {
+                int count = orderMoves(own, opp, legal, empties, ttMove);
+                int[] list = moves[empties];
+                for (int i = 0; i < count; i++) {
+                    int sq = list[i];
+                    long flips = OthelloBitboard.flips(own, opp, sq);
+                    long nextOwn = opp & ~flips;
+                    long nextOpp = own | flips | (1L << sq);
+                    if (i == 1 && empties >= SPLIT_MIN_EMPTIES && count > 2) {
+                        // Young brothers: the eldest did not cut off, so search the rest in parallel
+                        int score = splitRemaining(own, opp, empties, list, 1, count, Math.max(alpha, best), beta);
+                        if (aborted) return 0;
+                        if (score > best) {
+                            best = score;
+                            bestMove = NO_MOVE;
+                        }
+                        break;
+                    }
+                    int bound = Math.max(alpha, best);
+                    int score;
+                    if (i == 0) {
+                        score = -search(nextOwn, nextOpp, empties - 1, -beta, -bound, false);
+                    } else {
+                        // Principal variation search: prove the move is no better with a null window
+                        score = -search(nextOwn, nextOpp, empties - 1, -bound - 1, -bound, false);
+                        if (!aborted && score > bound && score < beta) {
+                            score = -search(nextOwn, nextOpp, empties - 1, -beta, -score, false);
+                        }
+                    }
+                    if (aborted) return 0;
+                    if (score > best) {
+                        best = score;
+                        bestMove = sq;
+                        if (best >= beta) break;
+                    }
+                }
+            }
+
+            if (empties >= TT_MIN_EMPTIES) {
+                int lower = best > originalAlpha ? best : -MAX_SCORE;
+                int upper = best < beta ? best : MAX_SCORE;
+                store(hash, lower, upper, bestMove, empties);
+            }
+            return best;
+        }
+
+        // Searches moves[from..count) as parallel subtasks; returns the best score among them
+        private int splitRemaining(long own, long opp, int empties, int[] list, int from, int count, int alpha, int beta) {
+            Split point = new Split(split);
+            List<SearchTask> brothers = new ArrayList<>(count - from);
+            for (int i = from; i < count; i++) {
+                int sq = list[i];
+                long flips = OthelloBitboard.flips(own, opp, sq);
+                brothers.add(new CutoffTask(point, opp & ~flips, own | flips | (1L << sq), empties - 1, -beta, -alpha));
+            }
+            ForkJoinTask.invokeAll(brothers);
+            if (stopped()) {
+                aborted = true;
+                return 0;
+            }
+            int best = -MAX_SCORE - 1;
+            for (SearchTask brother : brothers) {
+                int score = -brother.join();
+                if (!brother.aborted && score > best) best = score;
+            }
+            return best;
+        }
+
+        // One empty square left: play it (or let the opponent, or nobody) without generating moves
+        private int lastMove(long own, long opp) {
+            localNodes++;
+            int sq = Long.numberOfTrailingZeros(~(own | opp));
+            long flips = OthelloBitboard.flips(own, opp, sq);
+            if (flips != 0) return 2 * (Long.bitCount(own) + Long.bitCount(flips) + 1) - OthelloBitboard.SQUARES;
+            flips = OthelloBitboard.flips(opp, own, sq);
+            if (flips != 0) return OthelloBitboard.SQUARES - 2 * (Long.bitCount(opp) + Long.bitCount(flips) + 1);
+            return finalScore(own, opp, 1);
+        }
+
+        // Fastest-first: TT move, then the fewest replies for the opponent, corners breaking ties
+        private int orderMoves(long own, long opp, long legal, int empties, int ttMove) {
+            if (moves[empties] == null) {
+                moves[empties] = new int[OthelloBitboard.SQUARES];
+                keys[empties] = new int[OthelloBitboard.SQUARES];
+            }
+            int[] list = moves[empties];
+            int[] key = keys[empties];
+            int count = 0;
+            for (long m = legal; m != 0; m &= m - 1) {
+                int sq = Long.numberOfTrailingZeros(m);
+                int k;
+                if (sq == ttMove) {
+                    k = Integer.MIN_VALUE;
+                } else {
+                    long flips = OthelloBitboard.flips(own, opp, sq);
+                    long replies = OthelloBitboard.legalMoves(opp & ~flips, own | flips | (1L << sq));
+                    k = 4 * Long.bitCount(replies) + Long.bitCount(replies & CORNERS) * 8 - (int) (CORNERS >>> sq & 1) * 4;
+                }
+                // Insertion sort; a node has at most a few dozen moves
+                int i = count++;
+                while (i > 0 && key[i - 1] > k) {
+                    key[i] = key[i - 1];
+                    list[i] = list[i - 1];
+                    i--;
+                }
+                key[i] = k;
+                list[i] = sq;
+            }
+            return count;
+        }
+    }
+
+    // A younger brother at a split: beating the parent's beta cuts off its siblings
+    private final class CutoffTask extends SearchTask {
+        private final Split point;
+        private final int parentBeta;
+
+        CutoffTask(Split point, long own, long opp, int empties, int alpha, int beta) {
+            super(point, own, opp, empties, alpha, beta, null);
+            this.point = point;
+            this.parentBeta = -alpha;
+        }
+
+        @Override
+        protected Integer compute() {
+            int score = super.compute();
+            if (!aborted && -score >= parentBeta) point.cutoff = true;
+            return score;
+        }
+    }
+
+    // Game over with `empties` squares left: they go to the winner
+    private static int finalScore(long own, long opp, int empties) {
+        int diff = Long.bitCount(own) - Long.bitCount(opp);
+        return diff > 0 ? diff + empties : diff < 0 ? diff - empties : 0;
+    }
+
+    private static long hash(long own, long opp) {
+        long h = own * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opp * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private int find(long hash) {
+        int slot = (int) hash & ttMask & ~1;
+        if ((ttChecks[slot] ^ ttData[slot]) == hash) return slot;
+        if ((ttChecks[slot + 1] ^ ttData[slot + 1]) == hash) return slot + 1;
+        return -1;
+    }
+
+    // Bounds are stored offset by MAX_SCORE in a byte each; the entry with fewer empties is evicted
+    private void store(long hash, int lower, int upper, int bestMove, int empties) {
+        int slot = find(hash);
+        if (slot < 0) {
+            slot = (int) hash & ttMask & ~1;
+            if ((ttData[slot + 1] >>> 24 & 0xFF) < (ttData[slot] >>> 24 & 0xFF)) slot++;
+        }
+        long data = (long) (lower + MAX_SCORE) | (long) (upper + MAX_SCORE) << 8
+            | (long) bestMove << 16 | (long) empties << 24;
+        ttData[slot] = data;
+        ttChecks[slot] = hash ^ data;
+    }
+}
@@ -0,0 +1,20 @@
+// A computer player for OthelloGame. Implementations search a private copy of the
+// position, may be stopped from another thread, and summarise their last search for
+// the status line. Stops are counted as in TicTacToeEngine: a caller that hands the
+// search to another thread takes stopToken() first, so a stop() in between is not lost.
+interface OthelloEngine {
+    // Returns the chosen square, or -1 if `player` has no legal move
+    default int chooseMove(OthelloBitboard position, int player) {
+        return chooseMove(position, player, stopToken());
+    }
+
+    // As above, but already stopped if stop() was called after `stopToken` was taken
+    int chooseMove(OthelloBitboard position, int player, int stopToken);
+
+    // The current stop count, for a later chooseMove to compare against
+    int stopToken();
+
+    void stop();
+
+    String describeLastSearch();
+}
@@ -0,0 +1,166 @@
+import java.util.Random;
+
+// Speed and strength comparison of the Othello evaluators.
+//     java OthelloEvalBench [games] [ms per move]
+// The speed part times each evaluator on the same few thousand positions from random
+// games, after warm-up rounds so the JIT has compiled them, and reports nanoseconds per
+// evaluation: the hand-written heuristic, the pattern tables and the network both from
+// scratch and through its accumulator (one push, an evaluation and a pop per position,
+// which is what the search pays at a leaf). The strength part plays OthelloAI with the
+// network against OthelloAI with each of the other evaluators at the given time per move
+// (default 100 ms), `games` games each (default 20), every random opening played once
+// with each colour. Evaluators whose weights have not been trained are skipped.
+class OthelloEvalBench {
+    private static final int POSITIONS = 4096;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 20;
+    private static final int OPENING_PLIES = 6;
+
+    private static volatile int sink;
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 100;
+        OthelloPatternEval patterns = OthelloPatternEval.open();
+        OthelloNeuralEval network = OthelloNeuralEval.open();
+        if (network == null) {
+            System.out.println("No " + OthelloNeuralEval.FILE_NAME + "; run OthelloNeuralTrainer first");
+        }
+
+        Random random = new Random(0xBE7C4L);
+        long[] own = new long[POSITIONS];
+        long[] opp = new long[POSITIONS];
+        int[] player = new int[POSITIONS];
+        int[] square = new int[POSITIONS];
+        samplePositions(random, own, opp, player, square);
+
+        System.out.println("ns per evaluation over " + POSITIONS + " positions:");
+        report("heuristic", time(OthelloAI.HEURISTIC, own, opp));
+        if (patterns != null) report("patterns", time(patterns, own, opp));
+        if (network != null) {
+            report("network, from scratch", time(network, own, opp));
+            report("network, incremental", timeIncremental(network, own, opp, player, square));
+        }
+
+        if (network == null) return;
+        System.out.println("Matches at " + millis + " ms per move:");
+        match("network", network, "heuristic", OthelloAI.HEURISTIC, games, millis, random);
+        if (patterns != null) match("network", network, "patterns", patterns, games, millis, random);
+    }
+
+    // Positions after a random number of random moves, each stored together with a legal
+    // move from it (own/opp from the mover's side)
+    private static void samplePositions(Random random, long[] own, long[] opp, int[] player, int[] square) {
+        int n = 0;
+        while (n < own.length) {
+            OthelloBitboard board = new OthelloBitboard();
+            int side = OthelloBitboard.BLACK;
+            int stop = 4 + random.nextInt(52);
+            for (int ply = 0; ply < stop && !board.isGameOver(); ply++) {
+                if (!board.hasLegalMove(side)) side = OthelloBitboard.opponent(side);
+                board.play(side, randomSquare(random, board.legalMoves(side)));
+                side = OthelloBitboard.opponent(side);
+            }
+            if (!board.hasLegalMove(side)) continue;
+            own[n] = board.discs(side);
+            opp[n] = board.discs(OthelloBitboard.opponent(side));
+            player[n] = side;
+            square[n++] = randomSquare(random, board.legalMoves(side));
+        }
+    }
+
+    private static int randomSquare(Random random, long legal) {
+        for (int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) legal &= legal - 1;
+        return Long.numberOfTrailingZeros(legal);
+    }
+
+    private static double time(OthelloEvaluator evaluator, long[] own, long[] opp) {
+        long[] legal = new long[own.length];
+        for (int i = 0; i < own.length; i++) legal[i] = OthelloBitboard.legalMoves(own[i], opp[i]);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long start = System.nanoTime();
+            int sum = 0;
+            for (int i = 0; i < own.length; i++) sum += evaluator.evaluate(own[i], opp[i], legal[i]);
+            long nanos = System.nanoTime() - start;
+            sink += sum;
+            if (round >= WARMUP_ROUNDS) best = Math.min(best, nanos);
+        }
+        return (double) best / own.length;
+    }
+
+    private static double timeIncremental(OthelloNeuralEval network, long[] own, long[] opp, int[] player, int[] square) {
+        OthelloNeuralEval.Accumulator accumulator = network.newAccumulator();
+        long[] flips = new long[own.length];
+        for (int i = 0; i < own.length; i++) flips[i] = OthelloBitboard.flips(own[i], opp[i], square[i]);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long total = 0;
+            int sum = 0;
+            for (int i = 0; i < own.length; i++) {
+                // The reset stands for the search reaching this node and is not timed
+                boolean black = player[i] == OthelloBitboard.BLACK;
+                accumulator.reset(black ? own[i] : opp[i], black ? opp[i] : own[i]);
+                long start = System.nanoTime();
+                accumulator.push(player[i], square[i], flips[i]);
+                sum += accumulator.evaluate(OthelloBitboard.opponent(player[i]));
+                accumulator.pop();
+                total += System.nanoTime() - start;
+            }
+            sink += sum;
+            if (round >= WARMUP_ROUNDS) best = Math.min(best, total);
+        }
+        return (double) best / own.length;
+    }
+
+    private static void report(String name, double nanos) {
+        System.out.println(String.format("  %-22s %8.1f", name, nanos));
+    }
+
+    // `games` games between the two evaluators, alternating colours over shared random openings
+    private static void match(String name, OthelloEvaluator evaluator, String otherName, OthelloEvaluator other,
+                              int games, long millis, Random random) {
+        OthelloAI first = new OthelloAI(60, millis, evaluator);
+        OthelloAI second = new OthelloAI(60, millis, other);
+        int wins = 0, losses = 0, draws = 0;
+        long discs = 0;
+        OthelloBitboard opening = null;
+        for (int game = 0; game < games; game++) {
+            if (game % 2 == 0) opening = randomOpening(random);
+            // The first engine takes Black in even games and White in odd ones
+            int firstColor = game % 2 == 0 ? OthelloBitboard.BLACK : OthelloBitboard.WHITE;
+            OthelloBitboard board = new OthelloBitboard();
+            board.copyFrom(opening);
+            int side = OthelloBitboard.BLACK;
+            while (!board.isGameOver()) {
+                if (!board.hasLegalMove(side)) {
+                    side = OthelloBitboard.opponent(side);
+                    continue;
+                }
+                OthelloAI engine = side == firstColor ? first : second;
+                board.play(side, engine.chooseMove(board, side));
+                side = OthelloBitboard.opponent(side);
+            }
+            int margin = board.count(firstColor) - board.count(OthelloBitboard.opponent(firstColor));
+            discs += margin;
+            if (margin > 0) wins++;
+            else if (margin < 0) losses++;
+            else draws++;
+        }
+        System.out.println(String.format("  %s vs %s: %d-%d-%d, average margin %+.1f discs",
+            name, otherName, wins, losses, draws, (double) discs / Math.max(1, games)));
+    }
+
+    // A few random moves from the start with Black to move afterwards
+    private static OthelloBitboard randomOpening(Random random) {
+        while (true) {
+            OthelloBitboard board = new OthelloBitboard();
+            int side = OthelloBitboard.BLACK;
+            for (int ply = 0; ply < OPENING_PLIES && board.hasLegalMove(side); ply++) {
+                board.play(side, randomSquare(random, board.legalMoves(side)));
+                side = OthelloBitboard.opponent(side);
+            }
+            if (side == OthelloBitboard.BLACK && board.hasLegalMove(side)) return board;
+        }
+    }
+}
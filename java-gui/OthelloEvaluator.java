@@ -0,0 +1,7 @@
+// Static evaluation for OthelloAI: the value of a position for the side to move, which
+// owns `own` and has the (non-empty) legal moves `legal`. Scores must stay well inside
+// ±OthelloAI.WIN_SCORE / 2 so finished games always outrank them. Implementations are
+// shared between engines and must not keep per-call state.
+interface OthelloEvaluator {
+    int evaluate(long own, long opp, long legal);
+}
@@ -0,0 +1,154 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Compact game archive for Othello (.otg), written by OthelloWthorImporter.
+// After an 8-byte header (magic, number of games) every game is an 11-byte header —
+// tournament, Black and White player numbers and year as shorts, Black's final discs and
+// the theoretical score as bytes, then the move count — followed by its moves packed six
+// bits a square, low bits first: 56 bytes for a full game against WTHOR's 68.
+// Only games that replay legally are written, so readers need not check them again.
+// Both sides stream through a fixed buffer on a FileChannel, never holding the archive.
+class OthelloGameArchive {
+    static final String EXTENSION = ".otg";
+
+    private static final int MAGIC = 0x4F544741; // "OTGA"
+    private static final int HEADER_BYTES = 8;
+    private static final int GAME_HEADER_BYTES = 11;
+    static final int MAX_GAME_BYTES = GAME_HEADER_BYTES + (6 * OthelloBitboard.MAX_MOVES + 7) / 8;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    static final class Writer implements Closeable {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private int games;
+
+        Writer(File file) throws IOException {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(0);
+            channel = raf.getChannel();
+            buffer.putInt(MAGIC).putInt(0); // game count, filled in by close()
+        }
+
+        void write(int tournament, int blackPlayer, int whitePlayer, int year, int blackDiscs,
+                   int theoreticalScore, int[] squares, int moves) throws IOException {
+            if (buffer.remaining() < MAX_GAME_BYTES) flush();
+            buffer.putShort((short) tournament).putShort((short) blackPlayer).putShort((short) whitePlayer)
+                .putShort((short) year).put((byte) blackDiscs).put((byte) theoreticalScore).put((byte) moves);
+            int bits = 0;
+            int pending = 0;
+            for (int i = 0; i < moves; i++) {
+                pending |= squares[i] << bits;
+                bits += 6;
+                if (bits >= 8) {
+                    buffer.put((byte) pending);
+                    pending >>>= 8;
+                    bits -= 8;
+                }
+            }
+            if (bits > 0) buffer.put((byte) pending);
+            games++;
+        }
+
+        int games() {
+            return games;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+                ByteBuffer count = ByteBuffer.allocate(4).putInt(games);
+                count.flip();
+                channel.write(count, 4);
+            } finally {
+                raf.close();
+            }
+        }
+    }
+
+    // Games in file order; the fields describe the game last returned by next()
+    static final class Reader implements OthelloPatternTrainer.GameStream, Closeable {
+        private final RandomAccessFile raf;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final int games;
+        private int read;
+        int tournament;
+        int blackPlayer;
+        int whitePlayer;
+        int year;
+        int blackDiscs;
+        int theoreticalScore;
+
+        Reader(File file) throws IOException {
+            raf = new RandomAccessFile(file, "r");
+            channel = raf.getChannel();
+            buffer.limit(0);
+            fill();
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                raf.close();
+                throw new IOException(file + " is not an Othello game archive");
+            }
+            games = buffer.getInt();
+        }
+
+        int gameCount() {
+            return games;
+        }
+
+        @Override
+        public int next(int[] squares) throws IOException {
+            if (read == games) return -1;
+            if (buffer.remaining() < MAX_GAME_BYTES) fill();
+            if (buffer.remaining() < GAME_HEADER_BYTES) throw new IOException("Archive is truncated");
+            tournament = buffer.getShort() & 0xFFFF;
+            blackPlayer = buffer.getShort() & 0xFFFF;
+            whitePlayer = buffer.getShort() & 0xFFFF;
+            year = buffer.getShort() & 0xFFFF;
+            blackDiscs = buffer.get() & 0xFF;
+            theoreticalScore = buffer.get() & 0xFF;
+            int moves = buffer.get() & 0xFF;
+            if (moves > squares.length || buffer.remaining() < (6 * moves + 7) / 8) {
+                throw new IOException("Archive is corrupt");
+            }
+            int bits = 0;
+            int pending = 0;
+            for (int i = 0; i < moves; i++) {
+                if (bits < 6) {
+                    pending |= (buffer.get() & 0xFF) << bits;
+                    bits += 8;
+                }
+                squares[i] = pending & 63;
+                pending >>>= 6;
+                bits -= 6;
+            }
+            read++;
+            return moves;
+        }
+
+        // Keeps the unread bytes and tops the buffer up from the channel
+        private void fill() throws IOException {
+            buffer.compact();
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // a file channel may return fewer bytes than asked
+            }
+            buffer.flip();
+        }
+
+        @Override
+        public void close() throws IOException {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Append-only record of played Othello games (.ogr), for saving matches as they are played
+// and replaying them. After an 8-byte header (magic, snapshot interval K) the file is a
+// stream of one-byte codes: 0-63 a disc on that square, PASS when the side to move had
+// none, TAKEBACK to undo the last move (and any passes after it), and GAME or SNAPSHOT
+// followed by 17 bytes: Black's discs, White's discs and the side to move. GAME starts a
+// game from the position that follows it and goes out with the game's first ply; whenever
+// a game reaches a multiple of K plies the Writer appends a SNAPSHOT of that position with
+// the move, so every ply is a single write() on an appending channel and a running match
+// is on disk move by move.
+// Loading scans the codes once without generating moves, keeping each game's ply bytes and
+// snapshots in flat arrays; position() starts from snapshot ply / K and replays at most
+// K - 1 moves, so a slider can jump to any ply of thousands of games without replaying
+// any of them from the start.
+class OthelloGameRecord {
+    static final String EXTENSION = ".ogr";
+    static final int PASS = 64;
+    static final int TAKEBACK = 0xFD;
+    static final int SNAPSHOT = 0xFE;
+    static final int GAME = 0xFF;
+    static final int SNAPSHOT_INTERVAL = 8;
+    // Two passes in a row end the game, so a game has at most one pass per move and a final move
+    static final int MAX_PLIES = 2 * OthelloBitboard.MAX_MOVES;
+
+    private static final int MAGIC = 0x4F54474D; // "OTGM"
+    private static final int HEADER_BYTES = 8;
+    private static final int POSITION_BYTES = 17;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final int interval;
+    private final int games;
+    private final byte[] plies; // every game's plies, back to back
+    private final int[] gameStart; // first ply of game g in plies[], gameStart[games] = end
+    private final long[] snapshotBlack;
+    private final long[] snapshotWhite;
+    private final byte[] snapshotMover;
+    private final int[] snapshotStart; // snapshot of ply k * interval of game g is at snapshotStart[g] + k
+
+    private OthelloGameRecord(int interval, int games, byte[] plies, int[] gameStart,
+                              long[] snapshotBlack, long[] snapshotWhite, byte[] snapshotMover, int[] snapshotStart) {
+        this.interval = interval;
+        this.games = games;
+        this.plies = plies;
+        this.gameStart = gameStart;
+        this.snapshotBlack = snapshotBlack;
+        this.snapshotWhite = snapshotWhite;
+        this.snapshotMover = snapshotMover;
+        this.snapshotStart = snapshotStart;
+    }
+
+    int gameCount() {
+        return games;
+    }
+
+    int plyCount(int game) {
+        return gameStart[game + 1] - gameStart[game];
+    }
+
+    // Square played at `ply` of `game` (0 = first ply), or PASS
+    int plyAt(int game, int ply) {
+        return plies[gameStart[game] + ply];
+    }
+
+    // Sets `board` to the position before `ply` of `game` (ply == plyCount gives the final
+    // position) and returns the side to move there
+    int position(int game, int ply, OthelloBitboard board) {
+        int k = ply / interval;
+        int s = snapshotStart[game] + k;
+        long black = snapshotBlack[s];
+        long white = snapshotWhite[s];
+        int mover = snapshotMover[s];
+        for (int p = gameStart[game] + k * interval, end = gameStart[game] + ply; p < end; p++) {
+            int square = plies[p];
+            if (square != PASS) {
+                boolean blackMoves = mover == OthelloBitboard.BLACK;
+                long own = blackMoves ? black : white;
+                long opp = blackMoves ? white : black;
+                long flips = OthelloBitboard.flips(own, opp, square);
+                own |= flips | (1L << square);
+                opp &= ~flips;
+                black = blackMoves ? own : opp;
+                white = blackMoves ? opp : own;
+            }
+            mover = OthelloBitboard.opponent(mover);
+        }
+        board.set(black, white);
+        return mover;
+    }
+
+    // Reads the whole file; a game cut off by a crash ends at its last complete ply
+    static OthelloGameRecord read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            buffer.limit(0);
+            fill(channel, buffer);
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not an Othello game record");
+            }
+            int interval = buffer.getInt();
+            if (interval < 1 || interval > MAX_PLIES) throw new IOException(file + " is corrupt");
+
+            int games = 0;
+            byte[] plies = new byte[1024];
+            int[] gameStart = new int[64];
+            long[] black = new long[256];
+            long[] white = new long[256];
+            byte[] mover = new byte[256];
+            int[] snapshotStart = new int[64];
+            int plyEnd = 0;
+            int snapshots = 0;
+            while (true) {
+                if (buffer.remaining() < 1 + POSITION_BYTES) {
+                    fill(channel, buffer);
+                    if (!buffer.hasRemaining()) break;
+                }
+                int code = buffer.get() & 0xFF;
+                if (code == GAME || code == SNAPSHOT) {
+                    if (buffer.remaining() < POSITION_BYTES) break; // torn last write
+                    if (code == GAME) {
+                        if (games + 2 > gameStart.length) {
+                            gameStart = Arrays.copyOf(gameStart, 2 * gameStart.length);
+                            snapshotStart = Arrays.copyOf(snapshotStart, 2 * snapshotStart.length);
+                        }
+                        if (games > 0) plyEnd = replayableEnd(gameStart[games - 1], plyEnd, snapshots - snapshotStart[games - 1], interval);
+                        gameStart[games] = plyEnd;
+                        snapshotStart[games] = snapshots;
+                        games++;
+                    } else if (games == 0 || (plyEnd - gameStart[games - 1]) != interval * (snapshots - snapshotStart[games - 1])) {
+                        throw new IOException(file + " is corrupt");
+                    }
+                    if (snapshots == black.length) {
+                        black = Arrays.copyOf(black, 2 * snapshots);
+                        white = Arrays.copyOf(white, 2 * snapshots);
+                        mover = Arrays.copyOf(mover, 2 * snapshots);
+                    }
+                    black[snapshots] = buffer.getLong();
+                    white[snapshots] = buffer.getLong();
+                    mover[snapshots] = buffer.get();
+                    snapshots++;
+                } else if (games == 0) {
+                    throw new IOException(file + " is corrupt");
+                } else if (code == TAKEBACK) {
+                    int first = gameStart[games - 1];
+                    while (plyEnd > first && plies[plyEnd - 1] == PASS) plyEnd--;
+                    if (plyEnd > first) plyEnd--;
+                    // Snapshots past the new end belonged to the moves taken back
+                    snapshots = Math.min(snapshots, snapshotStart[games - 1] + (plyEnd - first) / interval + 1);
+                } else if (code <= PASS) {
+                    int played = plyEnd - gameStart[games - 1];
+                    if (played == MAX_PLIES || (snapshots - snapshotStart[games - 1]) * interval <= played) {
+                        throw new IOException(file + " is corrupt"); // a snapshot is missing
+                    }
+                    if (plyEnd == plies.length) plies = Arrays.copyOf(plies, 2 * plyEnd);
+                    plies[plyEnd++] = (byte) code;
+                } else {
+                    throw new IOException(file + " is corrupt");
+                }
+            }
+            if (games > 0) plyEnd = replayableEnd(gameStart[games - 1], plyEnd, snapshots - snapshotStart[games - 1], interval);
+            gameStart[games] = plyEnd;
+            return new OthelloGameRecord(interval, games, plies, gameStart, black, white, mover, snapshotStart);
+        }
+    }
+
+    // Drops a last ply whose snapshot was torn off, so every ply has a snapshot before it
+    private static int replayableEnd(int first, int plyEnd, int snapshots, int interval) {
+        return Math.min(plyEnd, first + snapshots * interval - 1);
+    }
+
+    // Length of the record up to the end of its last complete code, for a channel positioned
+    // just after the header
+    private static long completeLength(File file, FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        buffer.limit(0);
+        long end = HEADER_BYTES;
+        while (true) {
+            if (buffer.remaining() < 1 + POSITION_BYTES) {
+                fill(channel, buffer);
+                if (!buffer.hasRemaining()) return end;
+            }
+            int code = buffer.get() & 0xFF;
+            if (code == GAME || code == SNAPSHOT) {
+                if (buffer.remaining() < POSITION_BYTES) return end;
+                buffer.position(buffer.position() + POSITION_BYTES);
+                end += 1 + POSITION_BYTES;
+            } else if (code <= PASS || code == TAKEBACK) {
+                end++;
+            } else {
+                throw new IOException(file + " is corrupt");
+            }
+        }
+    }
+
+    // Keeps the unread bytes and tops the buffer up from the channel
+    private static void fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.compact();
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // a file channel may return fewer bytes than asked
+        }
+        buffer.flip();
+    }
+
+    // Appends games to a record, creating it if needed; each call below is one write()
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final int interval;
+        private final ByteBuffer out = ByteBuffer.allocate(3 + 2 * POSITION_BYTES);
+        // The game being written: who made each ply and the discs it flipped, so takebacks need no search
+        private final int[] squares = new int[MAX_PLIES];
+        private final int[] movers = new int[MAX_PLIES + 1];
+        private final long[] flipped = new long[MAX_PLIES];
+        private int ply = -1; // -1 until newGame()
+        private boolean started; // GAME is written with the first ply, so unplayed games leave no trace
+        private long black;
+        private long white;
+
+        // A record whose last write was torn by a crash is cut back to its last complete
+        // code first, so the next game does not start in the middle of a position
+        Writer(File file) throws IOException {
+            int existing = SNAPSHOT_INTERVAL;
+            boolean empty = !file.isFile() || file.length() == 0;
+            if (!empty) {
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                     FileChannel in = raf.getChannel()) {
+                    if (raf.length() < HEADER_BYTES || raf.readInt() != MAGIC) {
+                        throw new IOException(file + " is not an Othello game record");
+                    }
+                    existing = raf.readInt();
+                    long end = completeLength(file, in);
+                    if (end < raf.length()) raf.setLength(end);
+                }
+            }
+            interval = existing;
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (empty) {
+                out.clear();
+                out.putInt(MAGIC).putInt(interval);
+                flush();
+            }
+        }
+
+        // Starts a game from the given discs with `toMove` to play
+        void newGame(long blackDiscs, long whiteDiscs, int toMove) {
+            black = blackDiscs;
+            white = whiteDiscs;
+            ply = 0;
+            movers[0] = toMove;
+            started = false;
+        }
+
+        // Records `square` for the side to move, or PASS; the move must be legal
+        void play(int square) throws IOException {
+            if (ply < 0 || ply == MAX_PLIES) throw new IllegalStateException("No game to record into");
+            int mover = movers[ply];
+            long flips = 0;
+            if (square != PASS) {
+                boolean blackMoves = mover == OthelloBitboard.BLACK;
+                flips = OthelloBitboard.flips(blackMoves ? black : white, blackMoves ? white : black, square);
+                if (flips == 0) throw new IllegalArgumentException("Illegal move " + OthelloBitboard.squareName(square));
+            }
+            out.clear();
+            if (!started) putPosition(GAME);
+            started = true;
+            if (square != PASS) toggle(mover, square, flips);
+            squares[ply] = square;
+            flipped[ply] = flips;
+            movers[++ply] = OthelloBitboard.opponent(mover);
+            out.put((byte) square);
+            if (ply % interval == 0) putPosition(SNAPSHOT);
+            flush();
+        }
+
+        // Undoes the last move and any passes after it, like OthelloBitboard.undoMove;
+        // its player is to move again
+        void takeBack() throws IOException {
+            if (ply <= 0) return;
+            while (ply > 0 && squares[ply - 1] == PASS) ply--;
+            if (ply > 0) {
+                ply--;
+                toggle(movers[ply], squares[ply], flipped[ply]);
+            }
+            out.clear();
+            out.put((byte) TAKEBACK);
+            flush();
+        }
+
+        // Applying a move and taking it back are the same XOR
+        private void toggle(int mover, int square, long flips) {
+            if (mover == OthelloBitboard.BLACK) {
+                black ^= flips | (1L << square);
+                white ^= flips;
+            } else {
+                white ^= flips | (1L << square);
+                black ^= flips;
+            }
+        }
+
+        private void putPosition(int code) {
+            out.put((byte) code).putLong(black).putLong(white).put((byte) movers[ply]);
+        }
+
+        private void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
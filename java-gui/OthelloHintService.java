@@ -0,0 +1,129 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+// Best-move hints for OthelloGame, analysed on one background thread while the player
+// thinks. analyse() and cancel() are called on the EDT and never wait for the search:
+// each bumps a generation number, so results for an older position are dropped, and
+// stops the engine, which returns within about a thousand nodes. Every completed depth
+// is offered to the EDT through invokeLater; offers are coalesced so at most one update
+// is queued, and updates are spaced UPDATE_MILLIS apart except for the final one.
+// When the engine passed in is the computer opponent's own OthelloAI, the transposition
+// table filled while pondering the player's move is still there when the predicted move
+// is played and the computer searches its reply.
+class OthelloHintService {
+    static final long UPDATE_MILLIS = 150;
+
+    interface Listener {
+        // On the EDT, only for the position most recently passed to analyse()
+        void hintUpdated(Hint hint);
+    }
+
+    static final class Hint {
+        final int generation;
+        final int move;
+        final int depth;
+        final String score; // for the side to move, from OthelloAI.describeScore
+        final long nodes;
+        final boolean finished;
+
+        Hint(int generation, int move, int depth, String score, long nodes, boolean finished) {
+            this.generation = generation;
+            this.move = move;
+            this.depth = depth;
+            this.score = score;
+            this.nodes = nodes;
+            this.finished = finished;
+        }
+    }
+
+    private final Listener listener;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "othello-hint");
+        t.setDaemon(true);
+        return t;
+    });
+    // Latest result not yet handed to the listener; non-null while a delivery is queued
+    private final AtomicReference<Hint> pending = new AtomicReference<>();
+    private final Timer deliveryTimer;
+    private volatile int generation;
+    private OthelloAI running; // engine of the analysis in progress, guarded by this
+    private long lastDeliveryMillis;
+
+    OthelloHintService(Listener listener) {
+        this.listener = listener;
+        deliveryTimer = new Timer(0, e -> deliver());
+        deliveryTimer.setRepeats(false);
+    }
+
+    // Starts analysing a copy of `position` for `player` for at most `budgetMillis`,
+    // dropping any earlier analysis
+    void analyse(OthelloBitboard position, int player, OthelloAI engine, long budgetMillis) {
+        cancel();
+        final int gen = generation;
+        final OthelloBitboard snapshot = new OthelloBitboard();
+        snapshot.copyFrom(position);
+        executor.execute(() -> run(gen, snapshot, player, engine, budgetMillis));
+    }
+
+    void cancel() {
+        synchronized (this) {
+            generation++;
+            if (running != null) running.stop();
+        }
+        pending.set(null);
+        deliveryTimer.stop();
+    }
+
+    private void run(int gen, OthelloBitboard position, int player, OthelloAI engine, long budgetMillis) {
+        // Holding the engine's lock until `running` is cleared means cancel() can never
+        // stop a chooseMove that starts on the same engine once this analysis is over
+        synchronized (engine) {
+            int stopToken;
+            synchronized (this) {
+                if (gen != generation) return;
+                running = engine;
+                // From here on cancel() stops this analysis, even before analyse() is entered
+                stopToken = engine.stopToken();
+            }
+            try {
+                int move = engine.analyse(position, player, budgetMillis, stopToken, (depth, best, score, nodes) -> {
+                    if (gen != generation) return false;
+                    offer(new Hint(gen, best, depth, engine.describeScore(score), nodes, false));
+                    return true;
+                });
+                if (move >= 0 && gen == generation) {
+                    offer(new Hint(gen, move, engine.getDepthReached(), engine.describeScore(engine.getLastScore()),
+                        engine.getNodes(), true));
+                }
+            } finally {
+                synchronized (this) {
+                    running = null;
+                }
+            }
+        }
+    }
+
+    // Search thread: replaces the pending result and queues a delivery if none is queued
+    private void offer(Hint hint) {
+        if (pending.getAndSet(hint) == null) SwingUtilities.invokeLater(this::deliver);
+    }
+
+    // EDT: hands over the latest result, or waits out the rest of the update interval
+    private void deliver() {
+        Hint hint = pending.get();
+        if (hint == null) return;
+        long wait = lastDeliveryMillis + UPDATE_MILLIS - System.currentTimeMillis();
+        if (wait > 0 && !hint.finished) {
+            deliveryTimer.setInitialDelay((int) wait);
+            deliveryTimer.restart();
+            return;
+        }
+        hint = pending.getAndSet(null);
+        if (hint == null || hint.generation != generation) return;
+        lastDeliveryMillis = System.currentTimeMillis();
+        listener.hintUpdated(hint);
+    }
+}
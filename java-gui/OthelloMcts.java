@@ -0,0 +1,404 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Monte Carlo Tree Search opponent for Othello.
+// Plain UCT over one tree shared by all worker threads. A thread walking down the tree
+// adds VIRTUAL_LOSS lost visits to every node it passes, so the others spread out over
+// different lines instead of queueing behind it; backpropagation swaps the virtual visits
+// for real ones. Visits and wins of a node are packed into one long of an AtomicLongArray
+// (visits in the high half, half-points won in the low half) so either update is a single
+// atomic add, and a leaf is expanded by whichever thread wins a compare-and-set on its
+// child count. Each leaf reached is scored by PLAYOUT_BATCH random games played on two
+// disc masks with the static OthelloBitboard move generator, which allocates nothing.
+//
+// Nodes come from a pool of preallocated parallel arrays. When the pool is full the tree
+// stops growing and the search carries on from its leaves. Between moves the subtree of
+// the position actually reached is moved to the front of the pool and every other node
+// goes back to it, so the tree carries over from move to move within a fixed memory cap.
+class OthelloMcts implements OthelloEngine {
+    static final int DEFAULT_CAPACITY = 1 << 20;
+    private static final int PASS = OthelloBitboard.SQUARES;
+    private static final int EXPANDING = -1;
+    private static final int VIRTUAL_LOSS = 3;
+    private static final int PLAYOUT_BATCH = 4;
+    private static final int EXPAND_THRESHOLD = 2;
+    private static final double EXPLORATION = 0.7;
+    // move + firstChild + childCount + stats + remap
+    private static final int BYTES_PER_NODE = 1 + 4 + 4 + 8 + 4;
+    private static final int MAX_DEPTH = 2 * OthelloBitboard.MAX_MOVES + 2;
+
+    private final long timeBudgetMillis;
+    private final int threads;
+    private final int capacity;
+
+    private final byte[] move;
+    private final int[] firstChild;
+    // 0 for a leaf, EXPANDING while a thread adds its children, else the number of children
+    private final AtomicIntegerArray childCount;
+    private final AtomicLongArray stats;
+    private final int[] remap;
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final Worker[] workers;
+    private ExecutorService executor;
+    private final AtomicInteger stops = new AtomicInteger();
+    private int stopToken;
+    // Set when one worker fails so the others give up too; unlike stop() it ends only this search
+    private volatile boolean halted;
+
+    // The position at node 0, for reusing the tree on the next move
+    private long rootOwn;
+    private long rootOpp;
+    private int rootPlayer;
+
+    // Statistics of the last search
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+    private int lastTreeSize;
+    private int lastReusedNodes;
+
+    OthelloMcts(long timeBudgetMillis) {
+        this(timeBudgetMillis, Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY);
+    }
+
+    OthelloMcts(long timeBudgetMillis, int threads, int capacity) {
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+        this.threads = Math.max(1, threads);
+        this.capacity = Math.max(OthelloBitboard.SQUARES + 1, capacity);
+        move = new byte[this.capacity];
+        firstChild = new int[this.capacity];
+        childCount = new AtomicIntegerArray(this.capacity);
+        stats = new AtomicLongArray(this.capacity);
+        remap = new int[this.capacity];
+        workers = new Worker[this.threads];
+        for (int i = 0; i < workers.length; i++) workers[i] = new Worker(0x9E3779B97F4A7C15L * (i + 1));
+    }
+
+    @Override
+    public void stop() {
+        stops.incrementAndGet();
+    }
+
+    @Override
+    public int stopToken() {
+        return stops.get();
+    }
+
+    long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    long getPlayoutsPerSecond() {
+        return lastElapsedNanos > 0 ? lastPlayouts * 1000000000L / lastElapsedNanos : 0;
+    }
+
+    int getLastTreeSize() {
+        return lastTreeSize;
+    }
+
+    // Nodes carried over from the previous search
+    int getLastReusedNodes() {
+        return lastReusedNodes;
+    }
+
+    long getTreeBytes() {
+        return (long) lastTreeSize * BYTES_PER_NODE;
+    }
+
+    long getPoolBytes() {
+        return (long) capacity * BYTES_PER_NODE;
+    }
+
+    @Override
+    public String describeLastSearch() {
+        return "MCTS: " + lastPlayouts + " playouts (" + getPlayoutsPerSecond() + "/s), "
+            + lastTreeSize + " nodes (" + getTreeBytes() / (1024 * 1024) + " of "
+            + getPoolBytes() / (1024 * 1024) + " MB) on " + threads + " threads";
+    }
+
+    @Override
+    public synchronized int chooseMove(OthelloBitboard position, int player, int stopToken) {
+        long start = System.nanoTime();
+        this.stopToken = stopToken;
+        halted = false;
+        lastPlayouts = 0;
+        lastElapsedNanos = 0;
+        long own = position.discs(player);
+        long opp = position.discs(OthelloBitboard.opponent(player));
+        long legal = OthelloBitboard.legalMoves(own, opp);
+        if (legal == 0) return -1;
+
+        lastReusedNodes = reuseTree(own, opp, player);
+        rootOwn = own;
+        rootOpp = opp;
+        rootPlayer = player;
+        if ((legal & (legal - 1)) == 0) {
+            lastTreeSize = nodeCount.get();
+            return Long.numberOfTrailingZeros(legal);
+        }
+
+        long deadline = start + timeBudgetMillis * 1000000L;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                Thread t = new Thread(r, "othello-mcts");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Worker worker : workers) {
+            tasks.add(() -> {
+                worker.search(own, opp, deadline);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) future.get();
+        } catch (Exception e) {
+            halted = true;
+        }
+
+        for (Worker worker : workers) lastPlayouts += worker.playouts;
+        lastTreeSize = nodeCount.get();
+        lastElapsedNanos = System.nanoTime() - start;
+        // Out of time before the root was even expanded
+        if (childCount.get(0) <= 0) return Long.numberOfTrailingZeros(legal);
+        int first = firstChild[0];
+        int best = first;
+        for (int c = first; c < first + childCount.get(0); c++) {
+            if (visits(stats.get(c)) > visits(stats.get(best))) best = c;
+        }
+        return move[best];
+    }
+
+    // Keeps the subtree of the position now on the board, if the last search saw it within
+    // two plies, by compacting it to the front of the pool; returns how many nodes were kept
+    private int reuseTree(long own, long opp, int player) {
+        int root = nodeCount.get() > 0 && player == rootPlayer ? findDescendant(own, opp) : -1;
+        if (root < 0) {
+            nodeCount.set(1);
+            move[0] = (byte) PASS;
+            childCount.set(0, 0);
+            stats.set(0, 0);
+            return 0;
+        }
+        // Children are always allocated after their parent, so every kept node comes after
+        // the new root, and moving the kept nodes down in order never overwrites one still to move
+        int used = nodeCount.get();
+        for (int i = 0; i < used; i++) remap[i] = -1;
+        remap[root] = 0;
+        for (int i = root; i < used; i++) {
+            int count = childCount.get(i);
+            if (remap[i] < 0 || count <= 0) continue;
+            for (int c = firstChild[i]; c < firstChild[i] + count; c++) remap[c] = 0;
+        }
+        int kept = 0;
+        for (int i = root; i < used; i++) {
+            if (remap[i] < 0) continue;
+            int to = kept++;
+            remap[i] = to;
+            move[to] = move[i];
+            firstChild[to] = firstChild[i];
+            childCount.set(to, Math.max(0, childCount.get(i)));
+            stats.set(to, stats.get(i));
+        }
+        // Child blocks stay contiguous, so each parent's first child maps directly
+        for (int i = 0; i < kept; i++) {
+            if (childCount.get(i) > 0) firstChild[i] = remap[firstChild[i]];
+        }
+        nodeCount.set(kept);
+        return kept;
+    }
+
+    // The node for `player` to move with these discs among the root's children and
+    // grandchildren (our move and the reply, or a pass), or -1
+    private int findDescendant(long own, long opp) {
+        if (own == rootOwn && opp == rootOpp) return 0;
+        int first = firstChild[0];
+        for (int c = first; c < first + Math.max(0, childCount.get(0)); c++) {
+            long[] child = after(rootOwn, rootOpp, move[c]);
+            int grandFirst = firstChild[c];
+            for (int g = grandFirst; g < grandFirst + Math.max(0, childCount.get(c)); g++) {
+                long[] grandchild = after(child[0], child[1], move[g]);
+                if (grandchild[0] == own && grandchild[1] == opp) return g;
+            }
+        }
+        return -1;
+    }
+
+    // {own, opp} for the side to move after `square` (or a pass) is played
+    private static long[] after(long own, long opp, int square) {
+        if (square == PASS) return new long[] {opp, own};
+        long flips = OthelloBitboard.flips(own, opp, square);
+        return new long[] {opp & ~flips, own | flips | (1L << square)};
+    }
+
+    private static int visits(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int halfPoints(long packed) {
+        return (int) packed;
+    }
+
+    // One search thread; the tree is shared, the path and random state are its own
+    private final class Worker {
+        private final int[] path = new int[MAX_DEPTH + 1];
+        private long seed;
+        long playouts;
+
+        Worker(long seed) {
+            this.seed = seed;
+        }
+
+        void search(long startOwn, long startOpp, long deadline) {
+            playouts = 0;
+            while (!halted && stops.get() == stopToken && ((playouts & 63) != 0 || System.nanoTime() < deadline)) {
+                long own = startOwn;
+                long opp = startOpp;
+                int node = 0;
+                int depth = 0;
+                path[0] = 0;
+
+                // Selection, leaving a virtual loss on the way down
+                int count;
+                while ((count = childCount.get(node)) > 0) {
+                    node = select(node, count);
+                    stats.addAndGet(node, (long) VIRTUAL_LOSS << 32);
+                    path[++depth] = node;
+                    int square = move[node];
+                    if (square == PASS) {
+                        long t = own;
+                        own = opp;
+                        opp = t;
+                    } else {
+                        long flips = OthelloBitboard.flips(own, opp, square);
+                        long next = own | flips | (1L << square);
+                        own = opp & ~flips;
+                        opp = next;
+                    }
+                }
+                // Expansion: one level, then play out from the first new child
+                if ((node == 0 || visits(stats.get(node)) >= EXPAND_THRESHOLD) && expand(node, own, opp)) {
+                    node = firstChild[node];
+                    stats.addAndGet(node, (long) VIRTUAL_LOSS << 32);
+                    path[++depth] = node;
+                    int square = move[node];
+                    if (square == PASS) {
+                        long t = own;
+                        own = opp;
+                        opp = t;
+                    } else {
+                        long flips = OthelloBitboard.flips(own, opp, square);
+                        long next = own | flips | (1L << square);
+                        own = opp & ~flips;
+                        opp = next;
+                    }
+                }
+                // Simulation: half-points for the side to move at the leaf
+                int points = 0;
+                for (int i = 0; i < PLAYOUT_BATCH; i++) points += playout(own, opp);
+                // Backpropagation: node path[d] was entered by the side not to move there
+                for (int d = depth; d >= 0; d--) {
+                    int mover = (depth - d) % 2 == 0 ? 2 * PLAYOUT_BATCH - points : points;
+                    long visitDelta = d == 0 ? PLAYOUT_BATCH : PLAYOUT_BATCH - VIRTUAL_LOSS;
+                    stats.addAndGet(path[d], (visitDelta << 32) + mover);
+                }
+                playouts += PLAYOUT_BATCH;
+            }
+        }
+
+        // UCT; virtual losses count as visits with nothing won
+        private int select(int node, int count) {
+            int first = firstChild[node];
+            double logParent = Math.log(visits(stats.get(node)) + 1.0);
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int c = first; c < first + count; c++) {
+                long packed = stats.get(c);
+                int n = visits(packed);
+                if (n == 0) return c;
+                double value = halfPoints(packed) / (2.0 * n) + EXPLORATION * Math.sqrt(logParent / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        // Adds the children of a leaf, a single pass if the side to move is stuck; false if
+        // the game is over, another thread is expanding it or the pool is full
+        private boolean expand(int node, long own, long opp) {
+            long legal = OthelloBitboard.legalMoves(own, opp);
+            if (legal == 0 && OthelloBitboard.legalMoves(opp, own) == 0) return false;
+            if (!childCount.compareAndSet(node, 0, EXPANDING)) return false;
+            int count = legal == 0 ? 1 : Long.bitCount(legal);
+            int first = nodeCount.getAndAdd(count);
+            if (first + count > capacity) {
+                nodeCount.getAndAdd(-count);
+                childCount.set(node, 0);
+                return false;
+            }
+            if (legal == 0) {
+                initNode(first, PASS);
+            } else {
+                int c = first;
+                for (long m = legal; m != 0; m &= m - 1) initNode(c++, Long.numberOfTrailingZeros(m));
+            }
+            firstChild[node] = first;
+            // The volatile write publishes the children to the other threads
+            childCount.set(node, count);
+            return true;
+        }
+
+        private void initNode(int c, int square) {
+            move[c] = (byte) square;
+            firstChild[c] = 0;
+            childCount.set(c, 0);
+            stats.set(c, 0);
+        }
+
+        // Random game to the end; 2 if the side to move at the start wins, 1 for a draw, else 0
+        private int playout(long own, long opp) {
+            int sign = 1; // -1 while `own` belongs to the other side
+            boolean passed = false;
+            while (true) {
+                long legal = OthelloBitboard.legalMoves(own, opp);
+                if (legal == 0) {
+                    if (passed) break;
+                    passed = true;
+                    long t = own;
+                    own = opp;
+                    opp = t;
+                } else {
+                    passed = false;
+                    for (int skip = nextInt(Long.bitCount(legal)); skip > 0; skip--) legal &= legal - 1;
+                    int square = Long.numberOfTrailingZeros(legal);
+                    long flips = OthelloBitboard.flips(own, opp, square);
+                    long next = own | flips | (1L << square);
+                    own = opp & ~flips;
+                    opp = next;
+                }
+                sign = -sign;
+            }
+            int diff = sign * (Long.bitCount(own) - Long.bitCount(opp));
+            return diff > 0 ? 2 : diff == 0 ? 1 : 0;
+        }
+
+        // xorshift64*, allocation-free and private to the worker
+        private int nextInt(int bound) {
+            seed ^= seed >>> 12;
+            seed ^= seed << 25;
+            seed ^= seed >>> 27;
+            long r = (seed * 0x2545F4914F6CDD1DL) >>> 33;
+            return (int) ((r * bound) >>> 31);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Small quantized feed-forward network evaluation for Othello, NNUE style.
+// Inputs are 128 bits, the side to move's discs and then the opponent's; two clipped-ReLU
+// hidden layers of HIDDEN1 and HIDDEN2 units lead to one output, the predicted final disc
+// margin. Weights are integers: 16-bit for the input layer (activation 1.0 = 127), 8-bit
+// for the second layer (1.0 = 64) and 16-bit for the output (1.0 = 256), so the whole
+// forward pass is integer multiply-adds.
+//
+// The input layer is the expensive part, and a move only changes a few inputs: the placed
+// disc and the flipped ones. An Accumulator keeps the first-layer sums from both colours'
+// points of view on a stack, updated incrementally on make (push) and restored for free
+// on unmake (pop); OthelloAI drives one during its search. evaluate() without an
+// accumulator rebuilds the sums from scratch and is much slower.
+//
+// The inner loops are plain counted loops over int and short arrays, the shape the JIT
+// can auto-vectorise, so the code stays on Java 8 without incubator modules;
+// OthelloEvalBench times it against the other evaluators. Weights are trained by
+// OthelloNeuralTrainer into tables/othello-nnue.bin and read with a single bulk read.
+class OthelloNeuralEval implements OthelloEvaluator {
+    static final int INPUTS = 2 * OthelloBitboard.SQUARES;
+    static final int HIDDEN1 = 64;
+    static final int HIDDEN2 = 16;
+    static final String FILE_NAME = "othello-nnue.bin";
+
+    // Fixed-point scales of the three layers
+    static final int ACTIVATION_ONE = 127;
+    static final int W2_ONE = 64;
+    static final int W3_ONE = 256;
+    // The network predicts the margin in units of MARGIN_UNIT discs
+    static final int MARGIN_UNIT = 64;
+
+    private static final int MAGIC = 0x4F544E4E; // "OTNN"
+    private static final int HEADER_BYTES = 16;
+    private static final int WEIGHT_BYTES = 2 * INPUTS * HIDDEN1 + 2 * HIDDEN1
+        + HIDDEN2 * HIDDEN1 + 4 * HIDDEN2 + 2 * HIDDEN2 + 4;
+
+    final short[] w1; // [input][HIDDEN1]
+    final short[] b1;
+    final byte[] w2;  // [HIDDEN2][HIDDEN1]
+    final int[] b2;
+    final short[] w3;
+    final int b3;
+    // w2 transposed to [HIDDEN1][HIDDEN2] and widened for the inner loop
+    private final int[] w2t = new int[HIDDEN1 * HIDDEN2];
+    private final ThreadLocal<Accumulator> scratch = new ThreadLocal<Accumulator>() {
+        @Override
+        protected Accumulator initialValue() {
+            return newAccumulator();
+        }
+    };
+
+    private static OthelloNeuralEval loaded;
+    private static boolean triedLoading;
+
+    OthelloNeuralEval(short[] w1, short[] b1, byte[] w2, int[] b2, short[] w3, int b3) {
+        this.w1 = w1;
+        this.b1 = b1;
+        this.w2 = w2;
+        this.b2 = b2;
+        this.w3 = w3;
+        this.b3 = b3;
+        for (int j = 0; j < HIDDEN2; j++) {
+            for (int i = 0; i < HIDDEN1; i++) w2t[i * HIDDEN2 + j] = w2[j * HIDDEN1 + i];
+        }
+    }
+
+    static File weightsFile(File dir) {
+        return new File(dir, FILE_NAME);
+    }
+
+    // Loads tables/othello-nnue.bin once per process; returns null when it has not been trained
+    static synchronized OthelloNeuralEval open() {
+        if (!triedLoading) {
+            triedLoading = true;
+            try {
+                loaded = read(weightsFile(new File(TicTacToeTablebase.TABLE_DIR)));
+            } catch (IOException e) {
+                // Missing or unreadable weights just leave the network unavailable
+            }
+        }
+        return loaded;
+    }
+
+    static OthelloNeuralEval read(File file) throws IOException {
+        if (!file.isFile()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() != HEADER_BYTES + WEIGHT_BYTES) return null;
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + WEIGHT_BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // a file channel may return fewer bytes than asked
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != INPUTS
+                    || buffer.getInt() != HIDDEN1 || buffer.getInt() != HIDDEN2) {
+                return null;
+            }
+            short[] w1 = new short[INPUTS * HIDDEN1];
+            short[] b1 = new short[HIDDEN1];
+            byte[] w2 = new byte[HIDDEN2 * HIDDEN1];
+            int[] b2 = new int[HIDDEN2];
+            short[] w3 = new short[HIDDEN2];
+            for (int i = 0; i < w1.length; i++) w1[i] = buffer.getShort();
+            for (int i = 0; i < b1.length; i++) b1[i] = buffer.getShort();
+            buffer.get(w2);
+            for (int i = 0; i < b2.length; i++) b2[i] = buffer.getInt();
+            for (int i = 0; i < w3.length; i++) w3[i] = buffer.getShort();
+            return new OthelloNeuralEval(w1, b1, w2, b2, w3, buffer.getInt());
+        }
+    }
+
+    void write(File file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + WEIGHT_BYTES);
+        buffer.putInt(MAGIC).putInt(INPUTS).putInt(HIDDEN1).putInt(HIDDEN2);
+        for (short w : w1) buffer.putShort(w);
+        for (short b : b1) buffer.putShort(b);
+        buffer.put(w2);
+        for (int b : b2) buffer.putInt(b);
+        for (short w : w3) buffer.putShort(w);
+        buffer.putInt(b3);
+        buffer.flip();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    Accumulator newAccumulator() {
+        return new Accumulator();
+    }
+
+    // Stateless entry point: rebuilds the first layer for this one position
+    @Override
+    public int evaluate(long own, long opp, long legal) {
+        Accumulator accumulator = scratch.get();
+        accumulator.reset(own, opp);
+        return accumulator.evaluate(OthelloBitboard.BLACK);
+    }
+
+    // Output layers on top of first-layer sums, with `hidden` as scratch; scaled like
+    // OthelloPatternEval (SCALE per disc). The second layer runs input by input so units
+    // clipped to zero, usually most of them, cost nothing.
+    int forward(int[] sums, int[] hidden) {
+        System.arraycopy(b2, 0, hidden, 0, HIDDEN2);
+        for (int i = 0; i < HIDDEN1; i++) {
+            int a = Math.min(ACTIVATION_ONE, sums[i]);
+            if (a <= 0) continue;
+            int column = i * HIDDEN2;
+            for (int j = 0; j < HIDDEN2; j++) hidden[j] += a * w2t[column + j];
+        }
+        int out = b3;
+        for (int j = 0; j < HIDDEN2; j++) {
+            out += Math.max(0, Math.min(ACTIVATION_ONE, hidden[j] / W2_ONE)) * w3[j];
+        }
+        long score = (long) out * MARGIN_UNIT * OthelloPatternEval.SCALE / (ACTIVATION_ONE * W3_ONE);
+        return (int) Math.max(-OthelloAI.WIN_SCORE / 4, Math.min(OthelloAI.WIN_SCORE / 4, score));
+    }
+
+    // First-layer sums for both colours' points of view, one row per ply of the search.
+    // View v sees the discs of colour v + 1 as its own inputs.
+    final class Accumulator {
+        private final int[][][] sums = new int[2][OthelloBitboard.MAX_MOVES + 1][HIDDEN1];
+        private final int[] hidden = new int[HIDDEN2];
+        private int ply;
+
+        // Starts from a position given as the discs of Black and White
+        void reset(long black, long white) {
+            ply = 0;
+            for (int view = 0; view < 2; view++) {
+                int[] row = sums[view][0];
+                for (int i = 0; i < HIDDEN1; i++) row[i] = b1[i];
+                long own = view == 0 ? black : white;
+                long opp = view == 0 ? white : black;
+                for (long b = own; b != 0; b &= b - 1) add(row, Long.numberOfTrailingZeros(b));
+                for (long b = opp; b != 0; b &= b - 1) add(row, OthelloBitboard.SQUARES + Long.numberOfTrailingZeros(b));
+            }
+        }
+
+        // Make: `player` places on `square` and turns `flips`
+        void push(int player, int square, long flips) {
+            for (int view = 0; view < 2; view++) {
+                int[] from = sums[view][ply];
+                int[] to = sums[view][ply + 1];
+                System.arraycopy(from, 0, to, 0, HIDDEN1);
+                // The mover's discs are this view's own inputs when the colours match
+                int moverBase = player == view + 1 ? 0 : OthelloBitboard.SQUARES;
+                int otherBase = OthelloBitboard.SQUARES - moverBase;
+                add(to, moverBase + square);
+                for (long f = flips; f != 0; f &= f - 1) {
+                    int sq = Long.numberOfTrailingZeros(f);
+                    subtract(to, otherBase + sq);
+                    add(to, moverBase + sq);
+                }
+            }
+            ply++;
+        }
+
+        // Unmake: the previous row is still intact
+        void pop() {
+            ply--;
+        }
+
+        // Value for `player` to move in the current position
+        int evaluate(int player) {
+            return forward(sums[player - 1][ply], hidden);
+        }
+
+        private void add(int[] row, int input) {
+            int offset = input * HIDDEN1;
+            for (int i = 0; i < HIDDEN1; i++) row[i] += w1[offset + i];
+        }
+
+        private void subtract(int[] row, int input) {
+            int offset = input * HIDDEN1;
+            for (int i = 0; i < HIDDEN1; i++) row[i] -= w1[offset + i];
+        }
+    }
+}
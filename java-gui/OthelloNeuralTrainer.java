@@ -0,0 +1,178 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+// Offline trainer for OthelloNeuralEval.
+// Works like OthelloPatternTrainer and reads the same game sources: every position of every
+// game is a sample whose target is the final disc margin for the side to move, and the
+// network is fitted by stochastic gradient descent on the squared error as the games stream
+// by. Training runs in floating point; the clipped-ReLU activations are kept in [0, 1] so
+// the weights can be rounded to the fixed-point scales of OthelloNeuralEval at the end, and
+// the second layer is held inside the range an 8-bit weight can represent. Each sample is
+// shown in one of the eight symmetric orientations of the board, picked at random.
+//
+//     java OthelloNeuralTrainer [-selfplay games] [-games file] [-epochs n] [output]
+//
+// The weights are written to tables/othello-nnue.bin unless another output is given.
+class OthelloNeuralTrainer {
+    private static final int INPUTS = OthelloNeuralEval.INPUTS;
+    private static final int HIDDEN1 = OthelloNeuralEval.HIDDEN1;
+    private static final int HIDDEN2 = OthelloNeuralEval.HIDDEN2;
+    private static final double LEARNING_RATE = 0.01;
+    private static final float W2_LIMIT = 127f / OthelloNeuralEval.W2_ONE;
+
+    private final float[] w1 = new float[INPUTS * HIDDEN1];
+    private final float[] b1 = new float[HIDDEN1];
+    private final float[] w2 = new float[HIDDEN2 * HIDDEN1];
+    private final float[] b2 = new float[HIDDEN2];
+    private final float[] w3 = new float[HIDDEN2];
+    private float b3;
+
+    // Scratch for one sample
+    private final int[] inputs = new int[OthelloBitboard.SQUARES];
+    private final float[] z1 = new float[HIDDEN1];
+    private final float[] a1 = new float[HIDDEN1];
+    private final float[] z2 = new float[HIDDEN2];
+    private final float[] a2 = new float[HIDDEN2];
+    private final float[] d1 = new float[HIDDEN1];
+    private final float[] d2 = new float[HIDDEN2];
+
+    private final Random random = new Random(0x0E7A11L);
+    private double squaredError;
+    private long samples;
+
+    public static void main(String[] args) throws IOException {
+        OthelloPatternTrainer.Arguments arguments = OthelloPatternTrainer.Arguments.parse(args, "-epochs", 3,
+            OthelloNeuralEval.weightsFile(new File(TicTacToeTablebase.TABLE_DIR)));
+
+        OthelloNeuralTrainer trainer = new OthelloNeuralTrainer();
+        double rate = LEARNING_RATE;
+        for (int epoch = 1; epoch <= arguments.option; epoch++) {
+            long start = System.currentTimeMillis();
+            OthelloPatternTrainer.GameStream games = arguments.open(0x5E1F0000L + epoch);
+            int count = trainer.train(games, rate);
+            games.close();
+            System.out.println(String.format("epoch %d: %d games, %d positions, rms error %.2f discs (%d ms)",
+                epoch, count, trainer.samples, trainer.rmsError(), System.currentTimeMillis() - start));
+            rate /= 2;
+        }
+        trainer.quantize().write(arguments.output);
+        System.out.println("Wrote " + arguments.output + " (" + arguments.output.length() + " bytes)");
+    }
+
+    OthelloNeuralTrainer() {
+        // Small random first layers; the biases start the hidden units inside their linear range
+        for (int i = 0; i < w1.length; i++) w1[i] = (float) (random.nextGaussian() * 0.05);
+        for (int i = 0; i < HIDDEN1; i++) b1[i] = 0.5f;
+        for (int i = 0; i < w2.length; i++) w2[i] = (float) (random.nextGaussian() / Math.sqrt(HIDDEN1));
+        for (int j = 0; j < HIDDEN2; j++) {
+            b2[j] = 0.5f;
+            w3[j] = (float) (random.nextGaussian() / Math.sqrt(HIDDEN2));
+        }
+    }
+
+    // One pass over `games`; returns the number of games used
+    int train(OthelloPatternTrainer.GameStream games, double rate) throws IOException {
+        squaredError = 0;
+        samples = 0;
+        int[] squares = new int[OthelloBitboard.MAX_MOVES];
+        OthelloPatternTrainer.Replay replay = new OthelloPatternTrainer.Replay();
+        int count = 0;
+        int moves;
+        while ((moves = games.next(squares)) >= 0) {
+            if (!replay.play(squares, moves, moves)) continue;
+            for (int i = 0; i < replay.positions; i++) {
+                int symmetry = random.nextInt(8);
+                fit(transform(replay.own[i], symmetry), transform(replay.opp[i], symmetry), replay.target(i), rate);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // One of the eight symmetries of the board: up to three quarter turns, then maybe a mirror
+    private static long transform(long b, int symmetry) {
+        for (int r = 0; r < (symmetry & 3); r++) b = OthelloPatternEval.rotate(b);
+        return symmetry >= 4 ? OthelloPatternEval.mirror(b) : b;
+    }
+
+    // One gradient step on a single position towards `target` (final margin for the mover)
+    private void fit(long own, long opp, int target, double rate) {
+        int active = 0;
+        for (long b = own; b != 0; b &= b - 1) inputs[active++] = Long.numberOfTrailingZeros(b);
+        for (long b = opp; b != 0; b &= b - 1) inputs[active++] = OthelloBitboard.SQUARES + Long.numberOfTrailingZeros(b);
+
+        // Forward
+        System.arraycopy(b1, 0, z1, 0, HIDDEN1);
+        for (int k = 0; k < active; k++) {
+            int offset = inputs[k] * HIDDEN1;
+            for (int i = 0; i < HIDDEN1; i++) z1[i] += w1[offset + i];
+        }
+        for (int i = 0; i < HIDDEN1; i++) a1[i] = Math.max(0f, Math.min(1f, z1[i]));
+        float y = b3;
+        for (int j = 0; j < HIDDEN2; j++) {
+            float s = b2[j];
+            int row = j * HIDDEN1;
+            for (int i = 0; i < HIDDEN1; i++) s += a1[i] * w2[row + i];
+            z2[j] = s;
+            a2[j] = Math.max(0f, Math.min(1f, s));
+            y += a2[j] * w3[j];
+        }
+
+        double error = y - (double) target / OthelloNeuralEval.MARGIN_UNIT;
+        double discs = error * OthelloNeuralEval.MARGIN_UNIT;
+        squaredError += discs * discs;
+        samples++;
+
+        // Backward; a clipped unit only passes gradient inside (0, 1)
+        float g = (float) (rate * error);
+        for (int i = 0; i < HIDDEN1; i++) d1[i] = 0;
+        for (int j = 0; j < HIDDEN2; j++) {
+            d2[j] = z2[j] > 0 && z2[j] < 1 ? g * w3[j] : 0;
+            w3[j] -= g * a2[j];
+            if (d2[j] == 0) continue;
+            int row = j * HIDDEN1;
+            for (int i = 0; i < HIDDEN1; i++) {
+                d1[i] += d2[j] * w2[row + i];
+                w2[row + i] = Math.max(-W2_LIMIT, Math.min(W2_LIMIT, w2[row + i] - d2[j] * a1[i]));
+            }
+            b2[j] -= d2[j];
+        }
+        b3 -= g;
+        for (int i = 0; i < HIDDEN1; i++) {
+            if (z1[i] <= 0 || z1[i] >= 1) d1[i] = 0;
+            b1[i] -= d1[i];
+        }
+        for (int k = 0; k < active; k++) {
+            int offset = inputs[k] * HIDDEN1;
+            for (int i = 0; i < HIDDEN1; i++) w1[offset + i] -= d1[i];
+        }
+    }
+
+    double rmsError() {
+        return samples > 0 ? Math.sqrt(squaredError / samples) : 0;
+    }
+
+    // Rounds every layer to its fixed-point scale
+    OthelloNeuralEval quantize() {
+        int one = OthelloNeuralEval.ACTIVATION_ONE;
+        short[] qw1 = new short[w1.length];
+        for (int i = 0; i < w1.length; i++) qw1[i] = toShort(w1[i] * one);
+        short[] qb1 = new short[HIDDEN1];
+        for (int i = 0; i < HIDDEN1; i++) qb1[i] = toShort(b1[i] * one);
+        byte[] qw2 = new byte[w2.length];
+        for (int i = 0; i < w2.length; i++) {
+            qw2[i] = (byte) Math.max(-127, Math.min(127, Math.round(w2[i] * OthelloNeuralEval.W2_ONE)));
+        }
+        int[] qb2 = new int[HIDDEN2];
+        for (int j = 0; j < HIDDEN2; j++) qb2[j] = Math.round(b2[j] * one * OthelloNeuralEval.W2_ONE);
+        short[] qw3 = new short[HIDDEN2];
+        for (int j = 0; j < HIDDEN2; j++) qw3[j] = toShort(w3[j] * OthelloNeuralEval.W3_ONE);
+        int qb3 = Math.round(b3 * one * OthelloNeuralEval.W3_ONE);
+        return new OthelloNeuralEval(qw1, qb1, qw2, qb2, qw3, qb3);
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+    }
+}
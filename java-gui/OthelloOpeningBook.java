@@ -0,0 +1,331 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Opening book for Othello: how the games that reached a position went on.
+// A position is keyed from the side to move's point of view (own discs, opponent discs)
+// and reduced to the smallest of its 8 symmetric images, compared as one unsigned 128-bit
+// number, so transposed and mirrored openings share an entry. tables/othello-book.bin
+// holds fixed-size records sorted by that key: the two masks, the number of games that
+// reached the position and the sum of their final disc margins for the side to move.
+// The file is memory-mapped and probed by binary search straight on the mapped bytes,
+// so opening it costs nothing however big the book grows.
+//
+// Build or extend the book offline with
+//     java OthelloOpeningBook [-selfplay games] [-games file] [-plies n] [output]
+// using the same game sources as OthelloPatternTrainer. The first `plies` positions of
+// every game (default 24) are counted in memory, sorted, and merged in one sequential
+// pass with the records already in the book, so running it again adds to the book
+// instead of starting over.
+class OthelloOpeningBook {
+    static final String FILE_NAME = "othello-book.bin";
+    // A move is only suggested once this many games have reached the position after it
+    static final int MIN_VISITS = 4;
+
+    private static final int MAGIC = 0x4F54424B; // "OTBK"
+    private static final int HEADER_BYTES = 8;
+    private static final int RECORD_BYTES = 24;
+    private static final int DEFAULT_PLIES = 24;
+
+    private static OthelloOpeningBook loaded;
+    private static boolean triedLoading;
+
+    private final MappedByteBuffer records;
+    private final int count;
+
+    private OthelloOpeningBook(MappedByteBuffer records, int count) {
+        this.records = records;
+        this.count = count;
+    }
+
+    static File bookFile(File dir) {
+        return new File(dir, FILE_NAME);
+    }
+
+    // Maps tables/othello-book.bin once per process; returns null when it has not been built
+    static synchronized OthelloOpeningBook open() {
+        if (!triedLoading) {
+            triedLoading = true;
+            try {
+                loaded = read(bookFile(new File(TicTacToeTablebase.TABLE_DIR)));
+            } catch (IOException e) {
+                // Missing or unreadable book just leaves every move to the search
+            }
+        }
+        return loaded;
+    }
+
+    static OthelloOpeningBook read(File file) throws IOException {
+        if (!file.isFile()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || count < 0
+                    || channel.size() != HEADER_BYTES + (long) count * RECORD_BYTES) {
+                return null;
+            }
+            return new OthelloOpeningBook(buffer, count);
+        }
+    }
+
+    int size() {
+        return count;
+    }
+
+    // Record of the position with `own` to move, or -1 when no game in the book reached it
+    int find(long own, long opp) {
+        long[] key = canonical(own, opp);
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int offset = HEADER_BYTES + mid * RECORD_BYTES;
+            int c = compare(records.getLong(offset), records.getLong(offset + 8), key[0], key[1]);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    int visitsAt(int record) {
+        return records.getInt(HEADER_BYTES + record * RECORD_BYTES + 16);
+    }
+
+    // Average final disc margin for the side to move over the games through this record
+    double scoreAt(int record) {
+        return (double) records.getInt(HEADER_BYTES + record * RECORD_BYTES + 20) / visitsAt(record);
+    }
+
+    // Legal moves of the side owning `own` that lead to a position played at least MIN_VISITS times
+    long bookMoves(long own, long opp) {
+        long result = 0;
+        for (long m = OthelloBitboard.legalMoves(own, opp); m != 0; m &= m - 1) {
+            int move = Long.numberOfTrailingZeros(m);
+            if (childRecord(own, opp, move) >= 0) result |= 1L << move;
+        }
+        return result;
+    }
+
+    // The book move with the best average result for the mover, or -1 when out of book
+    int bestMove(long own, long opp) {
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (long m = OthelloBitboard.legalMoves(own, opp); m != 0; m &= m - 1) {
+            int move = Long.numberOfTrailingZeros(m);
+            int record = childRecord(own, opp, move);
+            // The child is scored for the opponent
+            if (record >= 0 && -scoreAt(record) > bestScore) {
+                bestScore = -scoreAt(record);
+                best = move;
+            }
+        }
+        return best;
+    }
+
+    // Record of the position after `move`, if enough games reached it
+    int childRecord(long own, long opp, int move) {
+        long flips = OthelloBitboard.flips(own, opp, move);
+        int record = find(opp & ~flips, own | flips | (1L << move));
+        return record >= 0 && visitsAt(record) >= MIN_VISITS ? record : -1;
+    }
+
+    // Smallest of the 8 symmetric images of (own, opp) as {own, opp}
+    static long[] canonical(long own, long opp) {
+        int s = canonicalSymmetry(own, opp);
+        return new long[]{symmetry(own, s), symmetry(opp, s)};
+    }
+
+    // The symmetry that maps (own, opp) to its smallest image
+    static int canonicalSymmetry(long own, long opp) {
+        int best = 0;
+        long bestOwn = own;
+        long bestOpp = opp;
+        for (int s = 1; s < 8; s++) {
+            long o = symmetry(own, s);
+            long p = symmetry(opp, s);
+            if (compare(o, p, bestOwn, bestOpp) < 0) {
+                best = s;
+                bestOwn = o;
+                bestOpp = p;
+            }
+        }
+        return best;
+    }
+
+    // Bit 2 of `s` transposes, bit 1 flips the rows upside down, bit 0 mirrors the columns
+    static long symmetry(long b, int s) {
+        if ((s & 4) != 0) b = OthelloPatternEval.transpose(b);
+        if ((s & 2) != 0) b = Long.reverseBytes(b);
+        if ((s & 1) != 0) b = OthelloPatternEval.mirror(b);
+        return b;
+    }
+
+    // Undoes symmetry(b, s)
+    static long inverseSymmetry(long b, int s) {
+        if ((s & 1) != 0) b = OthelloPatternEval.mirror(b);
+        if ((s & 2) != 0) b = Long.reverseBytes(b);
+        if ((s & 4) != 0) b = OthelloPatternEval.transpose(b);
+        return b;
+    }
+
+    private static int compare(long own1, long opp1, long own2, long opp2) {
+        int c = Long.compareUnsigned(own1, own2);
+        return c != 0 ? c : Long.compareUnsigned(opp1, opp2);
+    }
+
+    // --- OFFLINE BUILDER ---
+
+    public static void main(String[] args) throws IOException {
+        OthelloPatternTrainer.Arguments arguments = OthelloPatternTrainer.Arguments.parse(args, "-plies",
+            DEFAULT_PLIES, bookFile(new File(TicTacToeTablebase.TABLE_DIR)));
+        File output = arguments.output;
+
+        long start = System.currentTimeMillis();
+        OthelloPatternTrainer.GameStream games = arguments.open(System.nanoTime());
+        List<Entry> entries = new ArrayList<>(collect(games, arguments.option).values());
+        games.close();
+        entries.sort(null);
+        int total = merge(output, entries);
+        System.out.println(String.format("%d new positions merged, %d in the book: %s (%d bytes, %d ms)",
+            entries.size(), total, output, output.length(), System.currentTimeMillis() - start));
+    }
+
+    // Visits and summed margins of the first `plies` positions of every game, by canonical key
+    static Map<Entry, Entry> collect(OthelloPatternTrainer.GameStream games, int plies) throws IOException {
+        Map<Entry, Entry> entries = new HashMap<>();
+        int[] squares = new int[OthelloBitboard.MAX_MOVES];
+        OthelloPatternTrainer.Replay replay = new OthelloPatternTrainer.Replay();
+        int moves;
+        while ((moves = games.next(squares)) >= 0) {
+            if (!replay.play(squares, moves, plies)) continue;
+            for (int i = 0; i < replay.positions; i++) {
+                long[] key = canonical(replay.own[i], replay.opp[i]);
+                Entry probe = new Entry(key[0], key[1]);
+                Entry entry = entries.get(probe);
+                if (entry == null) entries.put(probe, entry = probe);
+                entry.visits++;
+                entry.scoreSum += replay.target(i);
+            }
+        }
+        return entries;
+    }
+
+    // Writes the union of the book at `file` (if any) and the sorted `entries` to a temporary
+    // file in one streaming pass over both, then swaps it in; returns the number of records.
+    // The old book is read as a stream rather than mapped so it can be replaced on any OS.
+    static int merge(File file, List<Entry> entries) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        int written = 0;
+        int oldCount = Math.max(0, recordCount(file));
+        try (DataInputStream in = oldCount > 0
+                 ? new DataInputStream(new BufferedInputStream(new FileInputStream(file))) : null;
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            if (in != null) in.skipBytes(HEADER_BYTES);
+            out.writeInt(MAGIC);
+            out.writeInt(0); // record count, filled in below
+            Entry current = oldCount > 0 ? readRecord(in) : null;
+            int i = current != null ? 1 : 0;
+            int j = 0;
+            while (current != null || j < entries.size()) {
+                Entry next = j < entries.size() ? entries.get(j) : null;
+                int c = current == null ? 1 : next == null ? -1 : current.compareTo(next);
+                if (c > 0) {
+                    writeRecord(out, next);
+                    j++;
+                } else {
+                    if (c == 0) {
+                        current.visits += next.visits;
+                        current.scoreSum += next.scoreSum;
+                        j++;
+                    }
+                    writeRecord(out, current);
+                    current = i < oldCount ? readRecord(in) : null;
+                    i++;
+                }
+                written++;
+            }
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw")) {
+            raf.seek(4);
+            raf.writeInt(written);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return written;
+    }
+
+    // Number of records in the book at `file`, or -1 when there is no valid book there
+    private static int recordCount(File file) throws IOException {
+        if (!file.isFile()) return -1;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < HEADER_BYTES || raf.readInt() != MAGIC) return -1;
+            int count = raf.readInt();
+            return count >= 0 && raf.length() == HEADER_BYTES + (long) count * RECORD_BYTES ? count : -1;
+        }
+    }
+
+    private static Entry readRecord(DataInputStream in) throws IOException {
+        Entry entry = new Entry(in.readLong(), in.readLong());
+        entry.visits = in.readInt();
+        entry.scoreSum = in.readInt();
+        return entry;
+    }
+
+    // Counts saturate rather than wrap once a position has been played a few million times
+    private static void writeRecord(DataOutputStream out, Entry entry) throws IOException {
+        long visits = entry.visits;
+        long scoreSum = entry.scoreSum;
+        if (visits > Integer.MAX_VALUE / 64) {
+            scoreSum = scoreSum * (Integer.MAX_VALUE / 64) / visits;
+            visits = Integer.MAX_VALUE / 64;
+        }
+        out.writeLong(entry.own);
+        out.writeLong(entry.opp);
+        out.writeInt((int) visits);
+        out.writeInt((int) scoreSum);
+    }
+
+    // A canonical position being counted by the builder, ordered like the book's records
+    static final class Entry implements Comparable<Entry> {
+        final long own;
+        final long opp;
+        long visits;
+        long scoreSum;
+
+        Entry(long own, long opp) {
+            this.own = own;
+            this.opp = opp;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return compare(own, opp, other.own, other.opp);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && ((Entry) o).own == own && ((Entry) o).opp == opp;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(own * 0x9E3779B97F4A7C15L ^ opp);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+// Logistello-style pattern evaluation for Othello.
+// The board is cut into 46 pattern instances: the four edges with their X-squares, the
+// eight 2×5 corner blocks, the four 3×3 corners, rows/columns 2-4 from each side and every
+// diagonal of four or more squares. All instances of a pattern share one table, indexed by
+// the base-3 code of their squares (0 empty, 1 own, 2 opponent disc), and each of the
+// PHASES game stages (by number of discs) has its own set of tables plus a bias and a
+// mobility weight. Evaluating is 46 table lookups on the four rotations of the board (plus
+// their mirror images for the 2×5 corners), each image produced by a few bit-twiddling steps.
+//
+// The weights are fitted offline by OthelloPatternTrainer and stored as 16-bit integers
+// (SCALE per disc of predicted final margin) in tables/othello-patterns.bin, which is read
+// with a single bulk read. Without that file open() returns null and OthelloAI keeps its
+// hand-written evaluation.
+class OthelloPatternEval implements OthelloEvaluator {
+    static final int PHASES = 13;
+    static final int SCALE = 128;
+    static final String FILE_NAME = "othello-patterns.bin";
+
+    // Squares per pattern: edge+2X, 2×5 corner, 3×3 corner, rows 2, 3 and 4, then the
+    // diagonals of 8, 7, 6, 5 and 4 squares
+    static final int[] PATTERN_SIZES = {10, 10, 9, 8, 8, 8, 8, 7, 6, 5, 4};
+    private static final int EDGE = 0, CORNER_2X5 = 1, CORNER_3X3 = 2, ROW_2 = 3, ROW_3 = 4, ROW_4 = 5;
+    private static final int DIAGONAL_8 = 6, DIAGONAL_7 = 7, DIAGONAL_6 = 8, DIAGONAL_5 = 9, DIAGONAL_4 = 10;
+    static final int INSTANCES = 46;
+
+    // Per phase: every pattern table back to back, then the two scalar weights
+    static final int[] PATTERN_OFFSETS = new int[PATTERN_SIZES.length];
+    static final int BIAS_FEATURE;
+    static final int MOBILITY_FEATURE;
+    static final int FEATURES_PER_PHASE;
+
+    private static final int MAGIC = 0x4F545045; // "OTPE"
+    private static final int HEADER_BYTES = 12;
+    private static final long DIAGONAL_MAGIC = 0x0101010101010101L;
+    // Squares (r, r + 8 - k) for r < k: the diagonal of length k touching the top edge
+    private static final long[] DIAGONAL_MASKS = new long[9];
+    // BASE3[bits] = sum of 3^i over the set bits i
+    private static final int[] BASE3 = new int[1 << 10];
+
+    static {
+        int offset = 0;
+        for (int p = 0; p < PATTERN_SIZES.length; p++) {
+            PATTERN_OFFSETS[p] = offset;
+            offset += pow3(PATTERN_SIZES[p]);
+        }
+        BIAS_FEATURE = offset;
+        MOBILITY_FEATURE = offset + 1;
+        FEATURES_PER_PHASE = offset + 2;
+        for (int k = 4; k <= 8; k++) {
+            for (int r = 0; r < k; r++) DIAGONAL_MASKS[k] |= 1L << (r * 8 + r + 8 - k);
+        }
+        for (int bits = 1; bits < BASE3.length; bits++) {
+            int low = Integer.numberOfTrailingZeros(bits);
+            BASE3[bits] = BASE3[bits & (bits - 1)] + pow3(low);
+        }
+    }
+
+    private static OthelloPatternEval loaded;
+    private static boolean triedLoading;
+
+    private final short[] weights; // PHASES * FEATURES_PER_PHASE
+
+    OthelloPatternEval(short[] weights) {
+        if (weights.length != PHASES * FEATURES_PER_PHASE) {
+            throw new IllegalArgumentException("Expected " + PHASES * FEATURES_PER_PHASE + " weights");
+        }
+        this.weights = weights;
+    }
+
+    static File weightsFile(File dir) {
+        return new File(dir, FILE_NAME);
+    }
+
+    // Loads tables/othello-patterns.bin once per process; returns null when it has not been trained
+    static synchronized OthelloPatternEval open() {
+        if (!triedLoading) {
+            triedLoading = true;
+            try {
+                loaded = read(weightsFile(new File(TicTacToeTablebase.TABLE_DIR)));
+            } catch (IOException e) {
+                // Missing or unreadable weights just leave the heuristic evaluation in charge
+            }
+        }
+        return loaded;
+    }
+
+    static OthelloPatternEval read(File file) throws IOException {
+        if (!file.isFile()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            long expected = HEADER_BYTES + 2L * PHASES * FEATURES_PER_PHASE;
+            if (channel.size() != expected) return null;
+            ByteBuffer buffer = ByteBuffer.allocate((int) expected);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // a file channel may return fewer bytes than asked
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != PHASES || buffer.getInt() != FEATURES_PER_PHASE) {
+                return null;
+            }
+            short[] weights = new short[PHASES * FEATURES_PER_PHASE];
+            buffer.asShortBuffer().get(weights);
+            return new OthelloPatternEval(weights);
+        }
+    }
+
+    static void write(File file, short[] weights) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 2 * weights.length);
+            buffer.putInt(MAGIC).putInt(PHASES).putInt(FEATURES_PER_PHASE);
+            buffer.asShortBuffer().put(weights);
+            buffer.rewind();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    // Game stage by number of empty squares: 0 at the start, PHASES - 1 at the very end
+    static int phase(int empties) {
+        return Math.min(PHASES - 1, (60 - empties) * PHASES / 61);
+    }
+
+    @Override
+    public int evaluate(long own, long opp, long legal) {
+        int empties = Long.bitCount(~(own | opp));
+        int base = phase(empties) * FEATURES_PER_PHASE;
+        int mobility = Long.bitCount(legal) - Long.bitCount(OthelloBitboard.legalMoves(opp, own));
+        short[] w = weights;
+        int score = w[base + BIAS_FEATURE] + mobility * w[base + MOBILITY_FEATURE];
+        // Same instances in the same order as features(), written out so each lookup compiles
+        // to a few shifts and masks
+        for (int rotation = 0; rotation < 4; rotation++) {
+            score += w[base + index(EDGE, own, opp)] + w[base + index(CORNER_2X5, own, opp)]
+                + w[base + index(CORNER_3X3, own, opp)] + w[base + index(ROW_2, own, opp)]
+                + w[base + index(ROW_3, own, opp)] + w[base + index(ROW_4, own, opp)]
+                + w[base + index(DIAGONAL_7, own, opp)] + w[base + index(DIAGONAL_6, own, opp)]
+                + w[base + index(DIAGONAL_5, own, opp)] + w[base + index(DIAGONAL_4, own, opp)]
+                + w[base + index(CORNER_2X5, mirror(own), mirror(opp))];
+            // The long diagonals map onto themselves after a half turn
+            if (rotation < 2) score += w[base + index(DIAGONAL_8, own, opp)];
+            own = rotate(own);
+            opp = rotate(opp);
+        }
+        return Math.max(-OthelloAI.WIN_SCORE / 4, Math.min(OthelloAI.WIN_SCORE / 4, score));
+    }
+
+    // Pattern indices (within a phase) of all INSTANCES instances, for the trainer
+    static void features(long own, long opp, int[] out) {
+        int n = 0;
+        for (int rotation = 0; rotation < 4; rotation++) {
+            for (int p = 0; p < PATTERN_SIZES.length; p++) {
+                if (p != DIAGONAL_8 || rotation < 2) out[n++] = index(p, own, opp);
+            }
+            // The 2×5 block is the only pattern that is not its own mirror image
+            out[n++] = index(CORNER_2X5, mirror(own), mirror(opp));
+            own = rotate(own);
+            opp = rotate(opp);
+        }
+    }
+
+    private static int index(int p, long own, long opp) {
+        return PATTERN_OFFSETS[p] + BASE3[bits(p, own)] + 2 * BASE3[bits(p, opp)];
+    }
+
+    // The squares of pattern p in its reference orientation (at the a1 corner / top edge), as bits
+    private static int bits(int p, long b) {
+        switch (p) {
+            case EDGE: return (int) ((b & 0xFF) | (b >>> 9 & 1) << 8 | (b >>> 14 & 1) << 9);
+            case CORNER_2X5: return (int) ((b & 0x1F) | (b >>> 3 & 0x3E0));
+            case CORNER_3X3: return (int) ((b & 7) | (b >>> 5 & 0x38) | (b >>> 10 & 0x1C0));
+            case ROW_2: return (int) (b >>> 8 & 0xFF);
+            case ROW_3: return (int) (b >>> 16 & 0xFF);
+            case ROW_4: return (int) (b >>> 24 & 0xFF);
+            default:
+                int k = PATTERN_SIZES[p];
+                // Each square of the diagonal sits in its own column, so one multiply gathers them
+                return (int) ((b & DIAGONAL_MASKS[k]) * DIAGONAL_MAGIC >>> (56 + 8 - k));
+        }
+    }
+
+    // Quarter turn: transpose, then flip the rows
+    static long rotate(long b) {
+        return Long.reverseBytes(transpose(b));
+    }
+
+    // Reverses the columns of every row
+    static long mirror(long b) {
+        b = (b >>> 1 & 0x5555555555555555L) | (b & 0x5555555555555555L) << 1;
+        b = (b >>> 2 & 0x3333333333333333L) | (b & 0x3333333333333333L) << 2;
+        return (b >>> 4 & 0x0F0F0F0F0F0F0F0FL) | (b & 0x0F0F0F0F0F0F0F0FL) << 4;
+    }
+
+    // Swaps (row, col) with (col, row)
+    static long transpose(long b) {
+        long t = 0x0F0F0F0F00000000L & (b ^ (b << 28));
+        b ^= t ^ (t >>> 28);
+        t = 0x3333000033330000L & (b ^ (b << 14));
+        b ^= t ^ (t >>> 14);
+        t = 0x5500550055005500L & (b ^ (b << 7));
+        return b ^ t ^ (t >>> 7);
+    }
+
+    static int pow3(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) result *= 3;
+        return result;
+    }
+}
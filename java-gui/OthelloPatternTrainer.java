@@ -0,0 +1,279 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Random;
+
+// Offline trainer for OthelloPatternEval.
+// Games stream through one at a time: each is replayed, and every position in it becomes
+// a least-squares sample whose target is the game's final disc margin for the side to
+// move. Weights are fitted by stochastic gradient descent as the samples go by, so memory
+// holds the weights and a single game, however many games are used. Each epoch streams the
+// source again (self-play generates fresh games) with half the learning rate of the last.
+//
+//     java OthelloPatternTrainer [-selfplay games] [-games file] [-epochs n] [output]
+//
+// -selfplay plays the given number of games per epoch (default 2000): random openings,
+// then a shallow OthelloAI search with occasional random moves, with the last
+// SOLVE_EMPTIES squares played perfectly by OthelloEndgameSolver so the margins are
+// exact. -games reads a text file with one game per line as move pairs ("f5d6c3..."), or
+// an OthelloGameArchive (.otg) imported from WTHOR by OthelloWthorImporter.
+// The weights are written to tables/othello-patterns.bin unless another output is given.
+class OthelloPatternTrainer {
+    private static final int SOLVE_EMPTIES = 12;
+    private static final int RANDOM_OPENING_PLIES = 8;
+    private static final double RANDOM_MOVE_RATE = 0.1;
+    private static final double LEARNING_RATE = 0.002;
+    private static final double MOBILITY_RATE = 0.00005;
+
+    // A source of whole games; next() fills `squares` with the moves in order and returns
+    // how many there are, or -1 when the source is exhausted
+    interface GameStream {
+        int next(int[] squares) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final float[] weights = new float[OthelloPatternEval.PHASES * OthelloPatternEval.FEATURES_PER_PHASE];
+    private final int[] features = new int[OthelloPatternEval.INSTANCES];
+    private double squaredError;
+    private long samples;
+
+    public static void main(String[] args) throws IOException {
+        Arguments arguments = Arguments.parse(args, "-epochs", 3,
+            OthelloPatternEval.weightsFile(new File(TicTacToeTablebase.TABLE_DIR)));
+
+        OthelloPatternTrainer trainer = new OthelloPatternTrainer();
+        double rate = LEARNING_RATE;
+        for (int epoch = 1; epoch <= arguments.option; epoch++) {
+            long start = System.currentTimeMillis();
+            GameStream games = arguments.open(0x5E1F0000L + epoch);
+            int count = trainer.train(games, rate);
+            games.close();
+            System.out.println(String.format("epoch %d: %d games, %d positions, rms error %.2f discs (%d ms)",
+                epoch, count, trainer.samples, trainer.rmsError(), System.currentTimeMillis() - start));
+            rate /= 2;
+        }
+        OthelloPatternEval.write(arguments.output, trainer.quantize());
+        System.out.println("Wrote " + arguments.output + " (" + arguments.output.length() + " bytes)");
+    }
+
+    // The command line shared by the trainers and the opening book builder:
+    // [-selfplay games] [-games file] [optionFlag n] [output]
+    static final class Arguments {
+        int selfPlayGames = 2000;
+        File gamesFile;
+        int option;
+        File output;
+
+        // Also creates the output's directory
+        static Arguments parse(String[] args, String optionFlag, int optionDefault, File defaultOutput)
+                throws IOException {
+            Arguments parsed = new Arguments();
+            parsed.option = optionDefault;
+            parsed.output = defaultOutput;
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-selfplay")) {
+                    parsed.selfPlayGames = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("-games")) {
+                    parsed.gamesFile = new File(args[++i]);
+                } else if (args[i].equals(optionFlag)) {
+                    parsed.option = Integer.parseInt(args[++i]);
+                } else {
+                    parsed.output = new File(args[i]);
+                }
+            }
+            File dir = parsed.output.getAbsoluteFile().getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            return parsed;
+        }
+
+        // The -games file, or `selfPlayGames` fresh self-play games from `seed`
+        GameStream open(long seed) throws IOException {
+            return gamesFile != null ? openGames(gamesFile) : new SelfPlayGames(selfPlayGames, seed);
+        }
+    }
+
+    // One game replayed from the start, keeping each position before a move from the
+    // mover's side, who the mover was, and the final margin
+    static final class Replay {
+        final long[] own = new long[OthelloBitboard.MAX_MOVES];
+        final long[] opp = new long[OthelloBitboard.MAX_MOVES];
+        final boolean[] blackToMove = new boolean[OthelloBitboard.MAX_MOVES];
+        int positions;
+        int blackMargin;
+
+        // Replays `moves` squares, keeping the first `keep` positions; false if a move is illegal
+        boolean play(int[] squares, int moves, int keep) {
+            OthelloBitboard board = new OthelloBitboard();
+            int player = OthelloBitboard.BLACK;
+            positions = 0;
+            for (int i = 0; i < moves; i++) {
+                if (!board.hasLegalMove(player)) player = OthelloBitboard.opponent(player);
+                if (i < keep) {
+                    own[positions] = board.discs(player);
+                    opp[positions] = board.discs(OthelloBitboard.opponent(player));
+                    blackToMove[positions++] = player == OthelloBitboard.BLACK;
+                }
+                if (board.play(player, squares[i]) == 0) return false;
+                player = OthelloBitboard.opponent(player);
+            }
+            blackMargin = finalMargin(board.discs(OthelloBitboard.BLACK), board.discs(OthelloBitboard.WHITE));
+            return true;
+        }
+
+        // Final margin for the side to move in position i
+        int target(int i) {
+            return blackToMove[i] ? blackMargin : -blackMargin;
+        }
+    }
+
+    // One pass over `games`; returns the number of games used
+    int train(GameStream games, double rate) throws IOException {
+        squaredError = 0;
+        samples = 0;
+        int[] squares = new int[OthelloBitboard.MAX_MOVES];
+        Replay replay = new Replay();
+        int count = 0;
+        int moves;
+        while ((moves = games.next(squares)) >= 0) {
+            if (!replay.play(squares, moves, moves)) continue;
+            for (int i = 0; i < replay.positions; i++) {
+                fit(replay.own[i], replay.opp[i], replay.target(i), rate);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // One gradient step on a single position towards `target` (final margin for the mover)
+    private void fit(long own, long opp, int target, double rate) {
+        int base = OthelloPatternEval.phase(Long.bitCount(~(own | opp))) * OthelloPatternEval.FEATURES_PER_PHASE;
+        int mobility = Long.bitCount(OthelloBitboard.legalMoves(own, opp))
+            - Long.bitCount(OthelloBitboard.legalMoves(opp, own));
+        OthelloPatternEval.features(own, opp, features);
+        double prediction = weights[base + OthelloPatternEval.BIAS_FEATURE]
+            + mobility * weights[base + OthelloPatternEval.MOBILITY_FEATURE];
+        for (int index : features) prediction += weights[base + index];
+        double error = target - prediction;
+        squaredError += error * error;
+        samples++;
+        float step = (float) (rate * error);
+        for (int index : features) weights[base + index] += step;
+        weights[base + OthelloPatternEval.BIAS_FEATURE] += step;
+        weights[base + OthelloPatternEval.MOBILITY_FEATURE] += (float) (MOBILITY_RATE * error * mobility);
+    }
+
+    double rmsError() {
+        return samples > 0 ? Math.sqrt(squaredError / samples) : 0;
+    }
+
+    short[] quantize() {
+        short[] result = new short[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            long q = Math.round(weights[i] * OthelloPatternEval.SCALE);
+            result[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, q));
+        }
+        return result;
+    }
+
+    // Final disc margin for Black; empty squares go to the winner
+    static int finalMargin(long black, long white) {
+        int diff = Long.bitCount(black) - Long.bitCount(white);
+        int empties = Long.bitCount(~(black | white));
+        return diff > 0 ? diff + empties : diff < 0 ? diff - empties : 0;
+    }
+
+    // Games generated on the fly; the same seed gives the same games
+    static final class SelfPlayGames implements GameStream {
+        private final int games;
+        private final Random random;
+        private final OthelloAI engine;
+        private final OthelloEndgameSolver solver = new OthelloEndgameSolver(18);
+        private int played;
+
+        SelfPlayGames(int games, long seed) {
+            this.games = games;
+            this.random = new Random(seed);
+            OthelloPatternEval patterns = OthelloPatternEval.open();
+            this.engine = new OthelloAI(2, 1000, patterns != null ? patterns : OthelloAI.HEURISTIC);
+        }
+
+        @Override
+        public int next(int[] squares) {
+            if (played++ >= games) return -1;
+            OthelloBitboard board = new OthelloBitboard();
+            int player = OthelloBitboard.BLACK;
+            int moves = 0;
+            while (!board.isGameOver()) {
+                long legal = board.legalMoves(player);
+                if (legal == 0) {
+                    player = OthelloBitboard.opponent(player);
+                    continue;
+                }
+                int square;
+                if (board.emptyCount() <= SOLVE_EMPTIES) {
+                    square = OthelloEndgameSolver.bestSquare(solver.solve(board, player, null));
+                } else if (moves < RANDOM_OPENING_PLIES || random.nextDouble() < RANDOM_MOVE_RATE) {
+                    square = randomSquare(legal);
+                } else {
+                    square = engine.chooseMove(board, player);
+                }
+                board.play(player, square);
+                squares[moves++] = square;
+                player = OthelloBitboard.opponent(player);
+            }
+            return moves;
+        }
+
+        private int randomSquare(long legal) {
+            for (int skip = random.nextInt(Long.bitCount(legal)); skip > 0; skip--) legal &= legal - 1;
+            return Long.numberOfTrailingZeros(legal);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // An imported archive or a text file of games, by extension
+    static GameStream openGames(File file) throws IOException {
+        return file.getName().endsWith(OthelloGameArchive.EXTENSION)
+            ? new OthelloGameArchive.Reader(file) : new TextGames(file);
+    }
+
+    // One game per line as move pairs in standard notation, a1 to h8 ("f5d6c3...")
+    static final class TextGames implements GameStream {
+        private final BufferedReader reader;
+
+        TextGames(File file) throws IOException {
+            this.reader = new BufferedReader(new FileReader(file));
+        }
+
+        @Override
+        public int next(int[] squares) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim().toLowerCase();
+                int moves = line.length() / 2;
+                if (moves == 0 || moves > squares.length) continue;
+                boolean valid = true;
+                for (int i = 0; i < moves && valid; i++) {
+                    int col = line.charAt(2 * i) - 'a';
+                    int row = line.charAt(2 * i + 1) - '1';
+                    valid = col >= 0 && col < 8 && row >= 0 && row < 8;
+                    if (valid) squares[i] = OthelloBitboard.square(row, col);
+                }
+                if (valid) return moves;
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
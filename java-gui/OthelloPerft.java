@@ -0,0 +1,219 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Perft for the Othello rules: counts the leaf positions of the game tree from the
+// starting position (the one OthelloGame.initializeBoard sets up) to a fixed depth, and
+// checks the counts against the published reference numbers. A pass counts as a ply,
+// and a position where neither side can move is a leaf however shallow it is.
+//
+// Run it whenever the move generator changes:
+//     java OthelloPerft [depth] [-parallel] [-size n]
+// Every depth from 1 to `depth` (default 9) is counted and timed; -parallel splits the
+// top of the tree into fork-join tasks. -size counts on an n×n OthelloWideBoard instead
+// of OthelloBitboard (-size 8 checks the wide board against the published 8×8 numbers).
+// The exit status is 1 if any count is wrong.
+class OthelloPerft {
+    // Leaf counts from the starting position, indexed by depth
+    static final long[] REFERENCE = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L,
+        24571284L, 212258800L, 1939886636L
+    };
+
+    // The same counts for the other sizes, from OthelloWideBoard at depths 1-11, checked against
+    // a square-by-square move generator to depth 9 (6×6), 7 (8×8) and 8 (10×10, 12×12)
+    static final long[] REFERENCE_6X6 = {
+        1L, 4L, 12L, 56L, 244L, 1364L, 7604L, 47740L, 308716L, 2114912L,
+        14976792L, 108820292L
+    };
+    static final long[] REFERENCE_10X10 = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55180L, 392268L, 3045812L,
+        25168320L, 221261132L
+    };
+    static final long[] REFERENCE_12X12 = {
+        1L, 4L, 12L, 56L, 244L, 1396L, 8200L, 55180L, 392268L, 3046196L,
+        25179208L, 221496484L
+    };
+
+    private static final int DEFAULT_DEPTH = 9;
+    private static final int SPLIT_PLIES = 3;
+
+    // Leaf count below a position with `own` to move; `passed` if the previous ply was a pass
+    static long perft(long own, long opp, int depth, boolean passed) {
+        long moves = OthelloBitboard.legalMoves(own, opp);
+        if (moves == 0) {
+            if (passed) return 1;
+            return depth == 1 ? 1 : perft(opp, own, depth - 1, true);
+        }
+        // Bulk counting: the last ply's leaves are just the legal moves
+        if (depth == 1) return Long.bitCount(moves);
+        long count = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int sq = Long.numberOfTrailingZeros(moves);
+            long flips = OthelloBitboard.flips(own, opp, sq);
+            count += perft(opp & ~flips, own | flips | (1L << sq), depth - 1, false);
+        }
+        return count;
+    }
+
+    // The same count on any board size, making and unmaking moves on one OthelloWideBoard;
+    // moves[d] holds the moves generated at remaining depth d
+    static long perft(OthelloWideBoard board, int player, int depth, boolean passed, long[][] moves) {
+        long[] legal = moves[depth];
+        board.legalMoves(player, legal);
+        if (OthelloWideBoard.isEmpty(legal)) {
+            if (passed) return 1;
+            return depth == 1 ? 1 : perft(board, OthelloBitboard.opponent(player), depth - 1, true, moves);
+        }
+        if (depth == 1) return OthelloWideBoard.bitCount(legal);
+        long count = 0;
+        for (int w = 0; w < legal.length; w++) {
+            for (long m = legal[w]; m != 0; m &= m - 1) {
+                board.makeMove(player, (w << 6) + Long.numberOfTrailingZeros(m));
+                count += perft(board, OthelloBitboard.opponent(player), depth - 1, false, moves);
+                board.undoMove();
+            }
+        }
+        return count;
+    }
+
+    static long perft(OthelloWideBoard position, int player, int depth, boolean parallel) {
+        if (depth == 0) return 1;
+        if (!parallel) return perft(position, player, depth, false, moveBuffers(position, depth));
+        return ForkJoinPool.commonPool().invoke(new WidePerftTask(position, player, depth, false, SPLIT_PLIES));
+    }
+
+    private static long[][] moveBuffers(OthelloWideBoard board, int depth) {
+        long[][] moves = new long[depth + 1][];
+        for (int d = 0; d <= depth; d++) moves[d] = board.newMask();
+        return moves;
+    }
+
+    static long perft(OthelloBitboard position, int player, int depth, boolean parallel) {
+        long own = position.discs(player);
+        long opp = position.discs(OthelloBitboard.opponent(player));
+        if (depth == 0) return 1;
+        if (!parallel) return perft(own, opp, depth, false);
+        return ForkJoinPool.commonPool().invoke(new PerftTask(own, opp, depth, false, SPLIT_PLIES));
+    }
+
+    // Splits the first few plies into subtasks and counts each subtree sequentially below that
+    private static final class PerftTask extends RecursiveTask<Long> {
+        private final long own;
+        private final long opp;
+        private final int depth;
+        private final boolean passed;
+        private final int splitPlies;
+
+        PerftTask(long own, long opp, int depth, boolean passed, int splitPlies) {
+            this.own = own;
+            this.opp = opp;
+            this.depth = depth;
+            this.passed = passed;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            long moves = OthelloBitboard.legalMoves(own, opp);
+            if (splitPlies == 0 || depth <= 1 || moves == 0) return perft(own, opp, depth, passed);
+            List<PerftTask> children = new ArrayList<>(Long.bitCount(moves));
+            for (; moves != 0; moves &= moves - 1) {
+                int sq = Long.numberOfTrailingZeros(moves);
+                long flips = OthelloBitboard.flips(own, opp, sq);
+                children.add(new PerftTask(opp & ~flips, own | flips | (1L << sq), depth - 1, false, splitPlies - 1));
+            }
+            long count = 0;
+            for (PerftTask child : invokeAll(children)) count += child.join();
+            return count;
+        }
+    }
+
+    // PerftTask for other board sizes; every task counts on a board of its own
+    private static final class WidePerftTask extends RecursiveTask<Long> {
+        private final OthelloWideBoard board;
+        private final int player;
+        private final int depth;
+        private final boolean passed;
+        private final int splitPlies;
+
+        WidePerftTask(OthelloWideBoard position, int player, int depth, boolean passed, int splitPlies) {
+            board = new OthelloWideBoard(position.size);
+            board.copyFrom(position);
+            this.player = player;
+            this.depth = depth;
+            this.passed = passed;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            long[] legal = board.newMask();
+            board.legalMoves(player, legal);
+            if (splitPlies == 0 || depth <= 1 || OthelloWideBoard.isEmpty(legal)) {
+                return perft(board, player, depth, passed, moveBuffers(board, depth));
+            }
+            List<WidePerftTask> children = new ArrayList<>(OthelloWideBoard.bitCount(legal));
+            int next = OthelloBitboard.opponent(player);
+            for (int w = 0; w < legal.length; w++) {
+                for (long m = legal[w]; m != 0; m &= m - 1) {
+                    board.makeMove(player, (w << 6) + Long.numberOfTrailingZeros(m));
+                    children.add(new WidePerftTask(board, next, depth - 1, false, splitPlies - 1));
+                    board.undoMove();
+                }
+            }
+            long count = 0;
+            for (WidePerftTask child : invokeAll(children)) count += child.join();
+            return count;
+        }
+    }
+
+    static long[] reference(int size) {
+        switch (size) {
+            case 6: return REFERENCE_6X6;
+            case 10: return REFERENCE_10X10;
+            case 12: return REFERENCE_12X12;
+            default: return REFERENCE;
+        }
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = DEFAULT_DEPTH;
+        boolean parallel = false;
+        int size = 0; // 0: OthelloBitboard
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-parallel")) {
+                parallel = true;
+            } else if (args[i].equals("-size")) {
+                size = Integer.parseInt(args[++i]);
+            } else {
+                maxDepth = Integer.parseInt(args[i]);
+            }
+        }
+        OthelloBitboard start = new OthelloBitboard();
+        OthelloWideBoard wideStart = size == 0 ? null : new OthelloWideBoard(size);
+        long[] reference = reference(size);
+        boolean ok = true;
+        System.out.println("Othello perft" + (size == 0 ? "" : " " + size + "x" + size) + (parallel
+            ? " (parallel, " + ForkJoinPool.commonPool().getParallelism() + " workers)" : ""));
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long begin = System.nanoTime();
+            long count = wideStart == null ? perft(start, OthelloBitboard.BLACK, depth, parallel)
+                : perft(wideStart, OthelloBitboard.BLACK, depth, parallel);
+            long nanos = Math.max(1, System.nanoTime() - begin);
+            String check;
+            if (depth >= reference.length) {
+                check = "no reference";
+            } else if (count == reference[depth]) {
+                check = "ok";
+            } else {
+                check = "MISMATCH, expected " + reference[depth];
+                ok = false;
+            }
+            System.out.println(String.format("depth %2d: %,15d leaves %8d ms %,12d leaves/s  %s",
+                depth, count, nanos / 1000000, count * 1000000000L / nanos, check));
+        }
+        if (!ok) System.exit(1);
+    }
+}
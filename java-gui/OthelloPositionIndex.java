@@ -0,0 +1,540 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Index of every position in a directory of OthelloGameArchive files: which games reached
+// it, at which ply, what was played next and how the game ended for the side to move.
+// Positions are keyed by a 64-bit hash of their canonical image (see OthelloOpeningBook),
+// so symmetric positions share a key, and the next move is stored in that canonical frame
+// and mapped back onto the board it is asked about. positions.idx in the archive
+// directory lists the archives, then 257 bucket starts, then 16-byte entries (key, then
+// game number, ply, next move and result) sorted by key. The entries are memory-mapped
+// in 1 GB segments; a lookup is one bucket jump and a binary search, and each game that
+// reached the position costs one more entry read. Positions reached by SUMMARY_MIN_GAMES
+// games or more (the first few plies of most games) also get a precomputed summary of
+// results per continuation after the entries, so their statistics are one more binary
+// search instead of a scan over hundreds of thousands of entries.
+//
+//     java OthelloPositionIndex build [dir]          (default dir: games)
+//     java OthelloPositionIndex query [dir] f5d6c3...
+//
+// The build reads every game exactly once, archives in parallel, hashing each position into
+// one of 256 spill files by the top byte of its key. Each spill file is then sorted with
+// a 7-pass radix sort on the remaining key bytes and written to its place in the index, so
+// both the build time and the index size grow linearly with the number of games.
+class OthelloPositionIndex {
+    static final String DEFAULT_DIR = "games";
+    static final String FILE_NAME = "positions.idx";
+    static final int NO_MOVE = 0xFF;
+    static final int WIN = 0, DRAW = 1, LOSS = 2;
+
+    private static final int MAGIC = 0x4F545049; // "OTPI"
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKETS = 256;
+    private static final int SEGMENT_BITS = 26; // entries per mapped segment, as a power of two
+    private static final int SPILL_BUFFER_ENTRIES = 256;
+    static final int SUMMARY_MIN_GAMES = 256;
+    // Key, results for the games ending here, then per canonical square the results of the
+    // games that continued there, all as ints
+    private static final int SUMMARY_BYTES = 8 + 4 * 3 * (1 + OthelloBitboard.SQUARES);
+
+    private static OthelloPositionIndex loaded;
+    private static boolean triedLoading;
+
+    private final String[] archiveNames;
+    private final int[] firstGame; // number of the first game in each archive, plus the total
+    private final long[] bucketStart = new long[BUCKETS + 1];
+    private final MappedByteBuffer[] segments;
+    private final MappedByteBuffer summaries;
+    private final int summaryCount;
+
+    // Games reaching one position, from the point of view of the side to move in it
+    static final class Stats {
+        int games;
+        final int[] results = new int[3]; // WIN, DRAW, LOSS
+        // Per square of the board asked about: games that continued there, and their results
+        final int[] moveGames = new int[OthelloBitboard.SQUARES];
+        final int[][] moveResults = new int[OthelloBitboard.SQUARES][3];
+
+        // Squares played next, most frequent first
+        int[] continuations() {
+            int count = 0;
+            int[] moves = new int[OthelloBitboard.SQUARES];
+            for (int sq = 0; sq < moves.length; sq++) {
+                if (moveGames[sq] > 0) moves[count++] = sq;
+            }
+            Integer[] sorted = new Integer[count];
+            for (int i = 0; i < count; i++) sorted[i] = moves[i];
+            Arrays.sort(sorted, (a, b) -> moveGames[b] - moveGames[a]);
+            int[] result = new int[count];
+            for (int i = 0; i < count; i++) result[i] = sorted[i];
+            return result;
+        }
+    }
+
+    private OthelloPositionIndex(String[] archiveNames, int[] firstGame, MappedByteBuffer[] segments,
+                                 MappedByteBuffer summaries) {
+        this.archiveNames = archiveNames;
+        this.firstGame = firstGame;
+        this.segments = segments;
+        this.summaries = summaries;
+        this.summaryCount = summaries.getInt(0);
+    }
+
+    static File indexFile(File dir) {
+        return new File(dir, FILE_NAME);
+    }
+
+    // Maps games/positions.idx once per process; returns null when it has not been built
+    static synchronized OthelloPositionIndex open() {
+        if (!triedLoading) {
+            triedLoading = true;
+            try {
+                loaded = read(indexFile(new File(DEFAULT_DIR)));
+            } catch (IOException e) {
+                // Missing or unreadable index just hides the database statistics
+            }
+        }
+        return loaded;
+    }
+
+    static OthelloPositionIndex read(File file) throws IOException {
+        if (!file.isFile()) return null;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (raf.length() < 16 || raf.readInt() != MAGIC) return null;
+            int archives = raf.readInt();
+            long entries = raf.readLong();
+            String[] names = new String[archives];
+            int[] firstGame = new int[archives + 1];
+            for (int a = 0; a < archives; a++) {
+                byte[] name = new byte[raf.readUnsignedShort()];
+                raf.readFully(name);
+                names[a] = new String(name, StandardCharsets.UTF_8);
+                firstGame[a + 1] = firstGame[a] + raf.readInt();
+            }
+            long[] bucketStart = new long[BUCKETS + 1];
+            for (int b = 0; b <= BUCKETS; b++) bucketStart[b] = raf.readLong();
+            long entriesOffset = raf.getFilePointer();
+            long summariesOffset = entriesOffset + entries * ENTRY_BYTES;
+            if (bucketStart[BUCKETS] != entries || raf.length() < summariesOffset + 4) return null;
+            raf.seek(summariesOffset);
+            long summaryBytes = 4 + (long) raf.readInt() * SUMMARY_BYTES;
+            if (raf.length() != summariesOffset + summaryBytes || summaryBytes > Integer.MAX_VALUE) return null;
+
+            long segmentEntries = 1L << SEGMENT_BITS;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((entries + segmentEntries - 1) / segmentEntries)];
+            for (int s = 0; s < segments.length; s++) {
+                long first = s * segmentEntries;
+                long size = Math.min(segmentEntries, entries - first) * ENTRY_BYTES;
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY, entriesOffset + first * ENTRY_BYTES, size);
+            }
+            MappedByteBuffer summaries = channel.map(FileChannel.MapMode.READ_ONLY, summariesOffset, summaryBytes);
+            OthelloPositionIndex index = new OthelloPositionIndex(names, firstGame, segments, summaries);
+            System.arraycopy(bucketStart, 0, index.bucketStart, 0, bucketStart.length);
+            return index;
+        }
+    }
+
+    int gameCount() {
+        return firstGame[firstGame.length - 1];
+    }
+
+    long entryCount() {
+        return bucketStart[BUCKETS];
+    }
+
+    // "archive name #n" (n counted from 1 within its archive) for a game number from the index
+    String describeGame(int game) {
+        int a = 0;
+        while (firstGame[a + 1] <= game) a++;
+        return archiveNames[a] + " #" + (game - firstGame[a] + 1);
+    }
+
+    // First entry with the key of the position with `own` to move, or -1 if no game reached it
+    long find(long own, long opp) {
+        long[] canonical = OthelloOpeningBook.canonical(own, opp);
+        long key = key(canonical[0], canonical[1]);
+        int bucket = (int) (key >>> 56);
+        long lo = bucketStart[bucket];
+        long hi = bucketStart[bucket + 1];
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo < bucketStart[bucket + 1] && keyAt(lo) == key ? lo : -1;
+    }
+
+    // Results and next moves of every game that reached the position with `own` to move
+    Stats stats(long own, long opp) {
+        Stats stats = new Stats();
+        int s = OthelloOpeningBook.canonicalSymmetry(own, opp);
+        long canonicalKey = key(OthelloOpeningBook.symmetry(own, s), OthelloOpeningBook.symmetry(opp, s));
+        int summary = findSummary(canonicalKey);
+        if (summary >= 0) {
+            int offset = 4 + summary * SUMMARY_BYTES + 8;
+            for (int r = 0; r < 3; r++) stats.results[r] = summaries.getInt(offset + 4 * r);
+            for (int move = 0; move < OthelloBitboard.SQUARES; move++) {
+                int square = Long.numberOfTrailingZeros(OthelloOpeningBook.inverseSymmetry(1L << move, s));
+                for (int r = 0; r < 3; r++) {
+                    int games = summaries.getInt(offset + 12 * (move + 1) + 4 * r);
+                    stats.moveResults[square][r] = games;
+                    stats.moveGames[square] += games;
+                    stats.results[r] += games;
+                }
+            }
+            stats.games = stats.results[WIN] + stats.results[DRAW] + stats.results[LOSS];
+            return stats;
+        }
+        long first = find(own, opp);
+        if (first < 0) return stats;
+        long key = keyAt(first);
+        long end = entryCount();
+        for (long e = first; e < end && keyAt(e) == key; e++) {
+            long payload = payloadAt(e);
+            int result = (int) payload & 0xFF;
+            int move = (int) (payload >>> 8) & 0xFF;
+            stats.games++;
+            stats.results[result]++;
+            if (move != NO_MOVE) {
+                // Back from the canonical frame onto the board asked about
+                int square = Long.numberOfTrailingZeros(OthelloOpeningBook.inverseSymmetry(1L << move, s));
+                stats.moveGames[square]++;
+                stats.moveResults[square][result]++;
+            }
+        }
+        return stats;
+    }
+
+    // Up to `limit` {game, ply} pairs of games that reached the position with `own` to move
+    List<int[]> games(long own, long opp, int limit) {
+        List<int[]> result = new ArrayList<>();
+        long first = find(own, opp);
+        if (first < 0) return result;
+        long key = keyAt(first);
+        for (long e = first; e < entryCount() && keyAt(e) == key && result.size() < limit; e++) {
+            long payload = payloadAt(e);
+            result.add(new int[]{(int) (payload >>> 32), (int) (payload >>> 16) & 0xFF});
+        }
+        return result;
+    }
+
+    private int findSummary(long key) {
+        int lo = 0;
+        int hi = summaryCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = Long.compareUnsigned(summaries.getLong(4 + mid * SUMMARY_BYTES), key);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private long keyAt(long entry) {
+        return segments[(int) (entry >>> SEGMENT_BITS)].getLong((int) (entry & ((1L << SEGMENT_BITS) - 1)) * ENTRY_BYTES);
+    }
+
+    private long payloadAt(long entry) {
+        return segments[(int) (entry >>> SEGMENT_BITS)].getLong((int) (entry & ((1L << SEGMENT_BITS) - 1)) * ENTRY_BYTES + 8);
+    }
+
+    // 64-bit mix of a canonical position
+    static long key(long own, long opp) {
+        long h = own * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(opp * 0xC2B2AE3D27D4EB4FL, 31);
+        h ^= h >>> 29;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ h >>> 32;
+    }
+
+    // Game number, ply, next move (canonical frame) and result for the side to move
+    static long payload(int game, int ply, int move, int result) {
+        return (long) game << 32 | (long) ply << 16 | (long) move << 8 | result;
+    }
+
+    // --- OFFLINE BUILDER ---
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length == 0 || !(args[0].equals("build") || args[0].equals("query"))) {
+            System.out.println("Usage: java OthelloPositionIndex build [dir] | query [dir] f5d6c3...");
+            return;
+        }
+        boolean query = args[0].equals("query");
+        File dir = new File(args.length > (query ? 2 : 1) ? args[1] : DEFAULT_DIR);
+        if (!query) {
+            long start = System.currentTimeMillis();
+            long entries = build(dir, Runtime.getRuntime().availableProcessors());
+            File file = indexFile(dir);
+            System.out.println(String.format("%,d positions indexed: %s (%,d bytes, %d ms)",
+                entries, file, file.length(), System.currentTimeMillis() - start));
+            return;
+        }
+
+        OthelloPositionIndex index = read(indexFile(dir));
+        if (index == null) {
+            System.out.println("No index in " + dir + "; run: java OthelloPositionIndex build " + dir);
+            return;
+        }
+        String line = args[args.length - 1].trim().toLowerCase();
+        OthelloBitboard board = new OthelloBitboard();
+        int player = OthelloBitboard.BLACK;
+        for (int i = 0; i < line.length(); i += 2) {
+            if (!board.hasLegalMove(player)) player = OthelloBitboard.opponent(player);
+            int col = line.charAt(i) - 'a';
+            int row = i + 1 < line.length() ? line.charAt(i + 1) - '1' : -1;
+            // Checked before square() so "i1" or "z9" cannot wrap onto another square
+            if (col < 0 || col >= OthelloBitboard.SIZE || row < 0 || row >= OthelloBitboard.SIZE
+                    || board.play(player, OthelloBitboard.square(row, col)) == 0) {
+                System.out.println("Illegal move " + line.substring(i, Math.min(i + 2, line.length())));
+                return;
+            }
+            player = OthelloBitboard.opponent(player);
+        }
+        if (!board.hasLegalMove(player)) player = OthelloBitboard.opponent(player);
+        long own = board.discs(player);
+        long opp = board.discs(OthelloBitboard.opponent(player));
+        long start = System.nanoTime();
+        Stats stats = index.stats(own, opp);
+        long micros = (System.nanoTime() - start) / 1000;
+        System.out.println(String.format("%d games (%d us): %d won, %d drawn, %d lost by the side to move",
+            stats.games, micros, stats.results[WIN], stats.results[DRAW], stats.results[LOSS]));
+        for (int move : stats.continuations()) {
+            int[] r = stats.moveResults[move];
+            System.out.println(String.format("  %s  %d games  +%d =%d -%d", OthelloBitboard.squareName(move),
+                stats.moveGames[move], r[WIN], r[DRAW], r[LOSS]));
+        }
+        for (int[] game : index.games(own, opp, 10)) {
+            System.out.println("  " + index.describeGame(game[0]) + " at ply " + game[1]);
+        }
+    }
+
+    // Indexes every archive in `dir` into dir/positions.idx; returns the number of entries
+    static long build(File dir, int threads) throws IOException, InterruptedException, ExecutionException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(OthelloGameArchive.EXTENSION));
+        if (files == null) throw new IOException("Cannot list " + dir);
+        Arrays.sort(files);
+        int[] firstGame = new int[files.length + 1];
+        for (int a = 0; a < files.length; a++) {
+            try (OthelloGameArchive.Reader reader = new OthelloGameArchive.Reader(files[a])) {
+                firstGame[a + 1] = firstGame[a] + reader.gameCount();
+            }
+        }
+
+        File spillDir = new File(dir, FILE_NAME + ".spill");
+        if (!spillDir.isDirectory() && !spillDir.mkdirs()) throw new IOException("Cannot create " + spillDir);
+        FileChannel[] spills = new FileChannel[BUCKETS];
+        RandomAccessFile[] spillFiles = new RandomAccessFile[BUCKETS];
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            for (int b = 0; b < BUCKETS; b++) {
+                spillFiles[b] = new RandomAccessFile(new File(spillDir, b + ".bin"), "rw");
+                spillFiles[b].setLength(0);
+                spills[b] = spillFiles[b].getChannel();
+            }
+            // Pass 1: every game once, each archive on its own thread
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int a = 0; a < files.length; a++) {
+                File file = files[a];
+                int base = firstGame[a];
+                tasks.add(executor.submit(() -> {
+                    spillArchive(file, base, spills);
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) task.get();
+
+            // Pass 2: sort each bucket and write it to its place after the header
+            File output = indexFile(dir);
+            long[] bucketStart = new long[BUCKETS + 1];
+            for (int b = 0; b < BUCKETS; b++) bucketStart[b + 1] = bucketStart[b] + spills[b].size() / ENTRY_BYTES;
+            ByteBuffer header = header(files, firstGame, bucketStart);
+            try (RandomAccessFile raf = new RandomAccessFile(output, "rw");
+                 FileChannel out = raf.getChannel()) {
+                raf.setLength(0);
+                while (header.hasRemaining()) out.write(header);
+                long entriesOffset = out.size();
+                List<Future<ByteBuffer>> buckets = new ArrayList<>();
+                for (int b = 0; b < BUCKETS; b++) {
+                    FileChannel spill = spills[b];
+                    long position = entriesOffset + bucketStart[b] * ENTRY_BYTES;
+                    buckets.add(executor.submit(() -> sortBucket(spill, out, position)));
+                }
+                // Summaries follow the entries, in bucket order and so in key order
+                long position = entriesOffset + bucketStart[BUCKETS] * ENTRY_BYTES + 4;
+                int summaryCount = 0;
+                for (Future<ByteBuffer> bucket : buckets) {
+                    ByteBuffer summaries = bucket.get();
+                    summaryCount += summaries.remaining() / SUMMARY_BYTES;
+                    while (summaries.hasRemaining()) position += out.write(summaries, position);
+                }
+                ByteBuffer count = ByteBuffer.allocate(4).putInt(summaryCount);
+                count.flip();
+                out.write(count, entriesOffset + bucketStart[BUCKETS] * ENTRY_BYTES);
+            }
+            return bucketStart[BUCKETS];
+        } finally {
+            executor.shutdown();
+            for (int b = 0; b < BUCKETS; b++) {
+                if (spillFiles[b] != null) spillFiles[b].close();
+                new File(spillDir, b + ".bin").delete();
+            }
+            spillDir.delete();
+        }
+    }
+
+    // Appends an entry for every position of every game in one archive to the spill files,
+    // through a small buffer per bucket
+    private static void spillArchive(File file, int firstGame, FileChannel[] spills) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) buffers[b] = ByteBuffer.allocate(SPILL_BUFFER_ENTRIES * ENTRY_BYTES);
+        int[] squares = new int[OthelloBitboard.MAX_MOVES];
+        try (OthelloGameArchive.Reader reader = new OthelloGameArchive.Reader(file)) {
+            int game = firstGame;
+            int moves;
+            while ((moves = reader.next(squares)) >= 0) {
+                // WTHOR scores give the empties to the winner, so 32 discs is a draw
+                int blackResult = reader.blackDiscs > 32 ? WIN : reader.blackDiscs < 32 ? LOSS : DRAW;
+                long own = OthelloBitboard.START_BLACK;
+                long opp = OthelloBitboard.START_WHITE;
+                boolean blackToMove = true;
+                for (int ply = 0; ply <= moves; ply++) {
+                    if (OthelloBitboard.legalMoves(own, opp) == 0) {
+                        long swap = own;
+                        own = opp;
+                        opp = swap;
+                        blackToMove = !blackToMove;
+                    }
+                    int s = OthelloOpeningBook.canonicalSymmetry(own, opp);
+                    long key = key(OthelloOpeningBook.symmetry(own, s), OthelloOpeningBook.symmetry(opp, s));
+                    int move = ply < moves ? Long.numberOfTrailingZeros(OthelloOpeningBook.symmetry(1L << squares[ply], s)) : NO_MOVE;
+                    int result = blackToMove ? blackResult : LOSS - blackResult;
+                    ByteBuffer buffer = buffers[(int) (key >>> 56)];
+                    buffer.putLong(key).putLong(payload(game, ply, move, result));
+                    if (!buffer.hasRemaining()) flushSpill(buffer, spills[(int) (key >>> 56)]);
+                    if (ply == moves) break;
+                    long flips = OthelloBitboard.flips(own, opp, squares[ply]);
+                    long next = opp & ~flips;
+                    opp = own | flips | (1L << squares[ply]);
+                    own = next;
+                    blackToMove = !blackToMove;
+                }
+                game++;
+            }
+        }
+        for (int b = 0; b < BUCKETS; b++) flushSpill(buffers[b], spills[b]);
+    }
+
+    // Appends are whole entries under the channel's lock, so threads never interleave inside one
+    private static void flushSpill(ByteBuffer buffer, FileChannel spill) throws IOException {
+        buffer.flip();
+        synchronized (spill) {
+            while (buffer.hasRemaining()) spill.write(buffer, spill.size());
+        }
+        buffer.clear();
+    }
+
+    // Sorts one bucket into place and returns the summaries of its popular positions
+    private static ByteBuffer sortBucket(FileChannel spill, FileChannel out, long position) throws IOException {
+        int count = (int) (spill.size() / ENTRY_BYTES);
+        if (count == 0) return ByteBuffer.allocate(0);
+        ByteBuffer bytes = ByteBuffer.allocate(count * ENTRY_BYTES);
+        while (bytes.hasRemaining() && spill.read(bytes, bytes.position()) > 0) {
+            // a file channel may return fewer bytes than asked
+        }
+        bytes.flip();
+        long[] keys = new long[count];
+        long[] payloads = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = bytes.getLong();
+            payloads[i] = bytes.getLong();
+        }
+        radixSort(keys, payloads);
+        bytes.clear();
+        for (int i = 0; i < count; i++) bytes.putLong(keys[i]).putLong(payloads[i]);
+        bytes.flip();
+        while (bytes.hasRemaining()) out.write(bytes, position + bytes.position());
+
+        List<int[]> summaries = new ArrayList<>();
+        List<Long> summaryKeys = new ArrayList<>();
+        for (int i = 0, j; i < count; i = j) {
+            for (j = i + 1; j < count && keys[j] == keys[i]; j++) {
+                // find the end of this position's run
+            }
+            if (j - i < SUMMARY_MIN_GAMES) continue;
+            int[] results = new int[3 * (1 + OthelloBitboard.SQUARES)];
+            for (int e = i; e < j; e++) {
+                int move = (int) (payloads[e] >>> 8) & 0xFF;
+                results[3 * (move == NO_MOVE ? 0 : move + 1) + ((int) payloads[e] & 0xFF)]++;
+            }
+            summaries.add(results);
+            summaryKeys.add(keys[i]);
+        }
+        ByteBuffer result = ByteBuffer.allocate(summaries.size() * SUMMARY_BYTES);
+        for (int i = 0; i < summaries.size(); i++) {
+            result.putLong(summaryKeys.get(i));
+            for (int value : summaries.get(i)) result.putInt(value);
+        }
+        result.flip();
+        return result;
+    }
+
+    // LSD radix sort by the low 7 bytes of the key (a bucket shares the top byte), carrying
+    // the payloads along; stable, so entries of one position stay in game order
+    static void radixSort(long[] keys, long[] payloads) {
+        int n = keys.length;
+        long[] fromKeys = keys;
+        long[] fromPayloads = payloads;
+        long[] toKeys = new long[n];
+        long[] toPayloads = new long[n];
+        int[] counts = new int[257];
+        for (int shift = 0; shift < 56; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (long key : fromKeys) counts[(int) (key >>> shift & 0xFF) + 1]++;
+            for (int d = 0; d < 256; d++) counts[d + 1] += counts[d];
+            for (int i = 0; i < n; i++) {
+                int slot = counts[(int) (fromKeys[i] >>> shift & 0xFF)]++;
+                toKeys[slot] = fromKeys[i];
+                toPayloads[slot] = fromPayloads[i];
+            }
+            long[] swap = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swap;
+            swap = fromPayloads;
+            fromPayloads = toPayloads;
+            toPayloads = swap;
+        }
+        // Seven passes leave the result in the scratch arrays
+        System.arraycopy(fromKeys, 0, keys, 0, n);
+        System.arraycopy(fromPayloads, 0, payloads, 0, n);
+    }
+
+    private static ByteBuffer header(File[] files, int[] firstGame, long[] bucketStart) {
+        byte[][] names = new byte[files.length][];
+        int size = 16 + 8 * (BUCKETS + 1);
+        for (int a = 0; a < files.length; a++) {
+            names[a] = files[a].getName().getBytes(StandardCharsets.UTF_8);
+            size += 2 + names[a].length + 4;
+        }
+        ByteBuffer header = ByteBuffer.allocate(size);
+        header.putInt(MAGIC).putInt(files.length).putLong(bucketStart[BUCKETS]);
+        for (int a = 0; a < files.length; a++) {
+            header.putShort((short) names[a].length).put(names[a]).putInt(firstGame[a + 1] - firstGame[a]);
+        }
+        for (long start : bucketStart) header.putLong(start);
+        header.flip();
+        return header;
+    }
+}
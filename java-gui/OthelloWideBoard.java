@@ -0,0 +1,359 @@
+import java.util.Arrays;
+
+// Bitboard position for Othello on any even board from 6×6 to 12×12.
+// Square (row, col) is bit row * size + col of a disc mask spread over as few longs as
+// the board needs: one for 6×6 and 8×8 (where the squares match OthelloBitboard), two
+// for 10×10 and three for 12×12. Moves and flips use the same Kogge-Stone occluded fills
+// as OthelloBitboard, with shifts carried across words and the edge masks (board squares
+// without the first or last column) built once per size in the constructor; boards wider
+// than 8 take a fourth doubling step so a fill can cross 10 opponent discs. Every mask
+// argument is a long[words] the caller keeps, and the generators work in scratch arrays
+// owned by the instance, so nothing allocates after construction — which also means an
+// instance must not be shared between threads. The move history works like
+// OthelloBitboard's: square, player and flip mask per move, undone and redone by XOR.
+class OthelloWideBoard {
+    static final int[] SIZES = {6, 8, 10, 12};
+
+    final int size;
+    final int squares;
+    final int words;
+    private final int maxMoves;
+
+    // Direction d moves by shifts[d] bits (negative = towards bit 0); masks[d] keeps the
+    // board squares that shift can land on without wrapping round a row
+    private final int[] shifts;
+    private final long[][] masks;
+    private final long[] boardMask;
+    private final int fillSteps;
+
+    private final long[] black;
+    private final long[] white;
+    // History: moves [0, ply) are on the board, [ply, historyEnd) can be redone
+    private final short[] historySquares;
+    private final byte[] historyPlayers;
+    private final long[] historyFlips; // words longs per move
+    private int ply;
+    private int historyEnd;
+
+    // Scratch for the generators
+    private final long[] gen;
+    private final long[] pro;
+    private final long[] step;
+    private final long[] run;
+    private final long[] flipped;
+
+    OthelloWideBoard(int size) {
+        if (size < SIZES[0] || size > SIZES[SIZES.length - 1] || size % 2 != 0) {
+            throw new IllegalArgumentException("Unsupported board size " + size);
+        }
+        this.size = size;
+        squares = size * size;
+        words = (squares + 63) >>> 6;
+        maxMoves = squares - 4;
+        fillSteps = size - 2 <= 7 ? 3 : 4;
+
+        boardMask = new long[words];
+        long[] notFirstCol = new long[words];
+        long[] notLastCol = new long[words];
+        for (int sq = 0; sq < squares; sq++) {
+            long bit = 1L << sq;
+            boardMask[sq >>> 6] |= bit;
+            if (sq % size != 0) notFirstCol[sq >>> 6] |= bit;
+            if (sq % size != size - 1) notLastCol[sq >>> 6] |= bit;
+        }
+        shifts = new int[] {1, -1, size, -size, size + 1, size - 1, -(size - 1), -(size + 1)};
+        masks = new long[][] {
+            notFirstCol, notLastCol, boardMask, boardMask, notFirstCol, notLastCol, notFirstCol, notLastCol
+        };
+
+        black = new long[words];
+        white = new long[words];
+        historySquares = new short[maxMoves];
+        historyPlayers = new byte[maxMoves];
+        historyFlips = new long[maxMoves * words];
+        gen = new long[words];
+        pro = new long[words];
+        step = new long[words];
+        run = new long[words];
+        flipped = new long[words];
+        reset();
+    }
+
+    // A mask sized for this board, for the caller to keep and reuse
+    long[] newMask() {
+        return new long[words];
+    }
+
+    int square(int row, int col) {
+        return row * size + col;
+    }
+
+    int rowOf(int square) {
+        return square / size;
+    }
+
+    int colOf(int square) {
+        return square % size;
+    }
+
+    // Column letter then row number, "a1" to "l12" on the largest board
+    String squareName(int square) {
+        return "" + (char) ('a' + colOf(square)) + (rowOf(square) + 1);
+    }
+
+    static boolean contains(long[] mask, int square) {
+        return (mask[square >>> 6] & (1L << square)) != 0;
+    }
+
+    static boolean isEmpty(long[] mask) {
+        for (long w : mask) {
+            if (w != 0) return false;
+        }
+        return true;
+    }
+
+    static int bitCount(long[] mask) {
+        int count = 0;
+        for (long w : mask) count += Long.bitCount(w);
+        return count;
+    }
+
+    // The four central discs, White on the a1-h8 diagonal as on the standard board
+    void reset() {
+        Arrays.fill(black, 0);
+        Arrays.fill(white, 0);
+        int c = size / 2;
+        setBit(white, square(c - 1, c - 1));
+        setBit(white, square(c, c));
+        setBit(black, square(c - 1, c));
+        setBit(black, square(c, c - 1));
+        ply = 0;
+        historyEnd = 0;
+    }
+
+    // Copies the discs only; the copy starts with an empty history
+    void copyFrom(OthelloWideBoard other) {
+        if (other.size != size) throw new IllegalArgumentException("Board sizes differ");
+        System.arraycopy(other.black, 0, black, 0, words);
+        System.arraycopy(other.white, 0, white, 0, words);
+        ply = 0;
+        historyEnd = 0;
+    }
+
+    // Sets a one-word board (6×6 or 8×8) from its disc masks, e.g. an OthelloBitboard position
+    void set(long blackDiscs, long whiteDiscs) {
+        if (words != 1) throw new IllegalStateException(size + "x" + size + " discs do not fit in a long");
+        black[0] = blackDiscs;
+        white[0] = whiteDiscs;
+        ply = 0;
+        historyEnd = 0;
+    }
+
+    // One player's discs on a one-word board; on 8×8 this is OthelloBitboard.discs
+    long narrowDiscs(int player) {
+        if (words != 1) throw new IllegalStateException(size + "x" + size + " discs do not fit in a long");
+        return player == OthelloBitboard.BLACK ? black[0] : white[0];
+    }
+
+    int get(int square) {
+        return contains(black, square) ? OthelloBitboard.BLACK
+            : contains(white, square) ? OthelloBitboard.WHITE : OthelloBitboard.EMPTY;
+    }
+
+    int get(int row, int col) {
+        return get(square(row, col));
+    }
+
+    int count(int player) {
+        return bitCount(player == OthelloBitboard.BLACK ? black : white);
+    }
+
+    int emptyCount() {
+        return squares - bitCount(black) - bitCount(white);
+    }
+
+    boolean isFull() {
+        return emptyCount() == 0;
+    }
+
+    void legalMoves(int player, long[] moves) {
+        if (player == OthelloBitboard.BLACK) {
+            legalMoves(black, white, moves);
+        } else {
+            legalMoves(white, black, moves);
+        }
+    }
+
+    boolean hasLegalMove(int player) {
+        legalMoves(player, flipped);
+        return !isEmpty(flipped);
+    }
+
+    // Game over when neither side can move
+    boolean isGameOver() {
+        return !hasLegalMove(OthelloBitboard.BLACK) && !hasLegalMove(OthelloBitboard.WHITE);
+    }
+
+    // Places a disc for `player` and flips; false (and nothing changes) if the move is illegal
+    boolean play(int player, int square) {
+        long[] own = player == OthelloBitboard.BLACK ? black : white;
+        long[] opp = player == OthelloBitboard.BLACK ? white : black;
+        if (contains(own, square) || contains(opp, square)) return false;
+        if (!flips(own, opp, square, flipped)) return false;
+        for (int w = 0; w < words; w++) {
+            own[w] |= flipped[w];
+            opp[w] &= ~flipped[w];
+        }
+        setBit(own, square);
+        return true;
+    }
+
+    // play() that also records the move for undo; a new move discards anything left to redo
+    boolean makeMove(int player, int square) {
+        if (ply == maxMoves || !play(player, square)) return false;
+        historySquares[ply] = (short) square;
+        historyPlayers[ply] = (byte) player;
+        System.arraycopy(flipped, 0, historyFlips, ply * words, words);
+        historyEnd = ++ply;
+        return true;
+    }
+
+    // Takes back the last move; returns its square, or -1 if there is none
+    int undoMove() {
+        if (ply == 0) return -1;
+        ply--;
+        toggle(ply);
+        return historySquares[ply];
+    }
+
+    // Replays the last undone move; returns its square, or -1 if there is none
+    int redoMove() {
+        if (ply == historyEnd) return -1;
+        toggle(ply);
+        return historySquares[ply++];
+    }
+
+    // Applying a recorded move and taking it back are the same XOR
+    private void toggle(int i) {
+        long[] own = historyPlayers[i] == OthelloBitboard.BLACK ? black : white;
+        long[] opp = historyPlayers[i] == OthelloBitboard.BLACK ? white : black;
+        for (int w = 0, f = i * words; w < words; w++, f++) {
+            own[w] ^= historyFlips[f];
+            opp[w] ^= historyFlips[f];
+        }
+        own[historySquares[i] >>> 6] ^= 1L << historySquares[i];
+    }
+
+    boolean canUndo() {
+        return ply > 0;
+    }
+
+    boolean canRedo() {
+        return ply < historyEnd;
+    }
+
+    int moveCount() {
+        return ply;
+    }
+
+    // Who made the move at index i of the history (0 = first move of the game)
+    int moverAt(int i) {
+        return historyPlayers[i];
+    }
+
+    int squareAt(int i) {
+        return historySquares[i];
+    }
+
+    // Every empty square that brackets at least one opponent disc, all directions at once
+    void legalMoves(long[] own, long[] opp, long[] moves) {
+        Arrays.fill(moves, 0);
+        for (int d = 0; d < 8; d++) {
+            System.arraycopy(own, 0, gen, 0, words);
+            fill(gen, opp, d);
+            for (int w = 0; w < words; w++) gen[w] &= opp[w];
+            shift(gen, d, gen);
+            for (int w = 0; w < words; w++) moves[w] |= gen[w];
+        }
+        for (int w = 0; w < words; w++) moves[w] &= ~(own[w] | opp[w]);
+    }
+
+    // Discs flipped when the side owning `own` plays on `square` go into `flips`; false if none
+    boolean flips(long[] own, long[] opp, int square, long[] flips) {
+        Arrays.fill(flips, 0);
+        boolean any = false;
+        for (int d = 0; d < 8; d++) {
+            Arrays.fill(run, 0);
+            setBit(run, square);
+            fill(run, opp, d);
+            shift(run, d, gen);
+            boolean closed = false;
+            for (int w = 0; w < words; w++) closed |= (gen[w] & own[w]) != 0;
+            if (!closed) continue;
+            for (int w = 0; w < words; w++) {
+                long f = run[w] & opp[w];
+                flips[w] |= f;
+                any |= f != 0;
+            }
+        }
+        return any;
+    }
+
+    // Kogge-Stone occluded fill in place: `g` plus every square reachable from it in
+    // direction d through a contiguous run of `p` squares
+    private void fill(long[] g, long[] p, int d) {
+        long[] mask = masks[d];
+        for (int w = 0; w < words; w++) pro[w] = p[w] & mask[w];
+        int s = shifts[d];
+        for (int i = 0; i < fillSteps; i++) {
+            shiftBits(g, s, step);
+            for (int w = 0; w < words; w++) g[w] |= pro[w] & step[w];
+            if (i + 1 < fillSteps) {
+                shiftBits(pro, s, step);
+                for (int w = 0; w < words; w++) pro[w] &= step[w];
+                s *= 2;
+            }
+        }
+    }
+
+    // One step in direction d, dropping squares that wrapped or left the board
+    private void shift(long[] src, int d, long[] dst) {
+        shiftBits(src, shifts[d], dst);
+        long[] mask = masks[d];
+        for (int w = 0; w < words; w++) dst[w] &= mask[w];
+    }
+
+    // Shifts the multi-word mask by s bits (negative = towards bit 0); src and dst may be the same
+    private void shiftBits(long[] src, int s, long[] dst) {
+        if (s > 0) {
+            int ws = s >>> 6;
+            int bs = s & 63;
+            for (int i = words - 1; i >= 0; i--) {
+                int j = i - ws;
+                long v = 0;
+                if (j >= 0) {
+                    v = src[j] << bs;
+                    if (bs != 0 && j > 0) v |= src[j - 1] >>> (64 - bs);
+                }
+                dst[i] = v;
+            }
+        } else {
+            s = -s;
+            int ws = s >>> 6;
+            int bs = s & 63;
+            for (int i = 0; i < words; i++) {
+                int j = i + ws;
+                long v = 0;
+                if (j < words) {
+                    v = src[j] >>> bs;
+                    if (bs != 0 && j + 1 < words) v |= src[j + 1] << (64 - bs);
+                }
+                dst[i] = v;
+            }
+        }
+    }
+
+    private static void setBit(long[] mask, int square) {
+        mask[square >>> 6] |= 1L << square;
+    }
+}
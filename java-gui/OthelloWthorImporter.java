@@ -0,0 +1,195 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Imports WTHOR game databases (.wtb) into OthelloGameArchive files.
+//     java OthelloWthorImporter [-threads n] outputDir input...
+// Every input is a .wtb file or a directory of them; x.wtb becomes outputDir/x.otg.
+// A WTHOR file is a 16-byte little-endian header (creation date, number of games, year,
+// board size) and 68-byte games: tournament, Black and White player numbers, Black's
+// discs, the theoretical score and 60 move bytes (10 * row + col, counted from 1, 0 after
+// the last move). Each file is read through its channel RECORDS_PER_CHUNK games at a
+// time into one reused buffer, and each game is replayed on two disc masks; a game with
+// an illegal or unreadable move is counted and left out. Files are imported in parallel,
+// one per thread, each into its own archive, so the threads share nothing.
+class OthelloWthorImporter {
+    private static final int WTHOR_HEADER_BYTES = 16;
+    private static final int WTHOR_GAME_BYTES = 68;
+    private static final int WTHOR_MOVES_OFFSET = 8;
+    private static final int RECORDS_PER_CHUNK = 4096;
+
+    // Games written and rejected for one input file
+    static final class Result {
+        final File input;
+        final int games;
+        final int rejected;
+
+        Result(File input, int games, int rejected) {
+            this.input = input;
+            this.games = games;
+            this.rejected = rejected;
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<File> inputs = new ArrayList<>();
+        File outputDir = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (outputDir == null) {
+                outputDir = new File(args[i]);
+            } else {
+                addInputs(new File(args[i]), inputs);
+            }
+        }
+        if (outputDir == null || inputs.isEmpty()) {
+            System.out.println("Usage: java OthelloWthorImporter [-threads n] outputDir input.wtb|dir...");
+            return;
+        }
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create " + outputDir);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, inputs.size())));
+        List<Future<Result>> results = new ArrayList<>();
+        for (File input : inputs) {
+            File output = new File(outputDir, input.getName().replaceFirst("(?i)\\.wtb$", "") + OthelloGameArchive.EXTENSION);
+            results.add(executor.submit(() -> importFile(input, output)));
+        }
+        executor.shutdown();
+        long games = 0;
+        long rejected = 0;
+        for (Future<Result> future : results) {
+            try {
+                Result result = future.get();
+                games += result.games;
+                rejected += result.rejected;
+                if (result.rejected > 0) {
+                    System.out.println(result.input + ": " + result.rejected + " invalid games skipped");
+                }
+            } catch (ExecutionException e) {
+                System.out.println("Import failed: " + e.getCause());
+            }
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        System.out.println(String.format("%d files, %,d games imported, %,d rejected (%,d games/s)",
+            inputs.size(), games, rejected, (games + rejected) * 1000000000L / nanos));
+    }
+
+    private static void addInputs(File input, List<File> inputs) {
+        if (input.isDirectory()) {
+            File[] files = input.listFiles((dir, name) -> name.toLowerCase().endsWith(".wtb"));
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) inputs.add(file);
+            }
+        } else {
+            inputs.add(input);
+        }
+    }
+
+    static Result importFile(File input, File output) throws IOException {
+        int games = 0;
+        int rejected = 0;
+        int[] squares = new int[OthelloBitboard.MAX_MOVES];
+        try (RandomAccessFile raf = new RandomAccessFile(input, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(WTHOR_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            if (header.position() < WTHOR_HEADER_BYTES) throw new IOException(input + " has no WTHOR header");
+            long declared = header.getInt(4) & 0xFFFFFFFFL;
+            int year = header.getShort(10) & 0xFFFF;
+            int boardSize = header.get(12);
+            if (boardSize != 0 && boardSize != OthelloBitboard.SIZE) {
+                throw new IOException(input + " holds " + boardSize + "x" + boardSize + " games");
+            }
+
+            // Opened only once the header is accepted, so a rejected input leaves no archive behind
+            try (OthelloGameArchive.Writer writer = new OthelloGameArchive.Writer(output)) {
+                ByteBuffer chunk = ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * WTHOR_GAME_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                long remaining = declared;
+                while (remaining > 0) {
+                    chunk.clear();
+                    if (remaining < RECORDS_PER_CHUNK) chunk.limit((int) remaining * WTHOR_GAME_BYTES);
+                    readFully(channel, chunk);
+                    int records = chunk.position() / WTHOR_GAME_BYTES; // a truncated file ends early
+                    if (records == 0) break;
+                    for (int r = 0; r < records; r++) {
+                        int base = r * WTHOR_GAME_BYTES;
+                        int moves = decode(chunk, base + WTHOR_MOVES_OFFSET, squares);
+                        if (moves < 0 || !replays(squares, moves)) {
+                            rejected++;
+                            continue;
+                        }
+                        writer.write(chunk.getShort(base) & 0xFFFF, chunk.getShort(base + 2) & 0xFFFF,
+                            chunk.getShort(base + 4) & 0xFFFF, year, chunk.get(base + 6) & 0xFF,
+                            chunk.get(base + 7) & 0xFF, squares, moves);
+                        games++;
+                    }
+                    remaining -= records;
+                    if (records < chunk.limit() / WTHOR_GAME_BYTES) break;
+                }
+            }
+        }
+        return new Result(input, games, rejected);
+    }
+
+    // WTHOR move bytes to squares; returns the move count, or -1 for a byte that is no square
+    static int decode(ByteBuffer chunk, int offset, int[] squares) {
+        int moves = 0;
+        while (moves < OthelloBitboard.MAX_MOVES) {
+            int code = chunk.get(offset + moves) & 0xFF;
+            if (code == 0) break;
+            int row = code / 10 - 1;
+            int col = code % 10 - 1;
+            if (row < 0 || row >= OthelloBitboard.SIZE || col < 0 || col >= OthelloBitboard.SIZE) return -1;
+            squares[moves++] = OthelloBitboard.square(row, col);
+        }
+        return moves;
+    }
+
+    // True when every move is legal for the side to move, passing whenever it has none.
+    // A move that flips something on an empty square is legal, so the full move generator
+    // only runs when a move flips nothing, to tell a pass from an illegal move.
+    static boolean replays(int[] squares, int moves) {
+        long own = OthelloBitboard.START_BLACK;
+        long opp = OthelloBitboard.START_WHITE;
+        for (int i = 0; i < moves; i++) {
+            long bit = 1L << squares[i];
+            if (((own | opp) & bit) != 0) return false;
+            long flips = OthelloBitboard.flips(own, opp, squares[i]);
+            if (flips == 0) {
+                if (OthelloBitboard.legalMoves(own, opp) != 0) return false;
+                long swap = own;
+                own = opp;
+                opp = swap;
+                flips = OthelloBitboard.flips(own, opp, squares[i]);
+                if (flips == 0) return false;
+            }
+            long next = opp & ~flips;
+            opp = own | flips | bit;
+            own = next;
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            // a file channel may return fewer bytes than asked
+        }
+    }
+}
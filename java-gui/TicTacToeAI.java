@@ -0,0 +1,344 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Computer opponent for N×N Tic-Tac-Toe (3×3 up to 19×19, any win length).
+// Iterative-deepening negamax with alpha-beta over a private TicTacToeBitboard copy.
+// Positions are stored in a Zobrist-hashed transposition table under their canonical
+// (smallest of the 8 rotations/reflections) hash, so symmetric positions share entries.
+// Every search honours a hard deadline and always returns a legal move.
+// On 3×3 and 4×4, when a perfect-play table has been generated, any search that
+// would be exhaustive anyway is answered straight from the table instead.
+class TicTacToeAI implements TicTacToeEngine {
+    // Strength presets: {max depth, time budget in ms}
+    static final String[] STRENGTH_NAMES = {"Easy", "Medium", "Hard"};
+    static final int[][] STRENGTH_PRESETS = {{2, 250}, {4, 1000}, {64, 2500}};
+
+    static final int WIN_SCORE = 1000000;
+    private static final int INFINITY = WIN_SCORE + 1;
+    private static final int TT_BITS = 20;
+    private static final int FLAG_EXACT = 0, FLAG_LOWER = 1, FLAG_UPPER = 2;
+
+    private final int maxDepth;
+    private final long timeBudgetMillis;
+
+    // Search state, set up per size
+    private TicTacToeBitboard board;
+    private int size;
+    private int[][] symCell;      // symCell[s][cell]: cell after symmetry s
+    private int[][] symInverse;   // symInverse[s][cell]: cell before symmetry s
+    private long[][] zobrist;     // zobrist[player][cell]
+    private long sideKey;
+    private final long[] symHash = new long[8];
+    private int[] staticOrder;    // cells ordered centre/diagonals first
+    private int[][] moveBuffers;  // one move list per ply, reused between searches
+    private TicTacToeTablebase tablebase;
+
+    // Transposition table: parallel arrays, always-replace on deeper or equal depth
+    private final long[] ttKeys = new long[1 << TT_BITS];
+    private final long[] ttData = new long[1 << TT_BITS];
+
+    private long deadlineNanos;
+    private final AtomicInteger stops = new AtomicInteger();
+    private int stopToken;
+    private boolean aborted;
+    private long nodes;
+    private long elapsedNanos;
+    private int depthReached;
+    private int lastScore;
+
+    TicTacToeAI(int maxDepth, long timeBudgetMillis) {
+        this.maxDepth = Math.max(1, maxDepth);
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+    }
+
+    static TicTacToeAI forStrength(int level) {
+        int[] preset = STRENGTH_PRESETS[Math.max(0, Math.min(STRENGTH_PRESETS.length - 1, level))];
+        return new TicTacToeAI(preset[0], preset[1]);
+    }
+
+    // Can be called from any thread to make a running search return early, or one whose
+    // token was taken before this call return at once; the next chooseMove waits for the
+    // stopped search to unwind first
+    @Override
+    public void stop() {
+        stops.incrementAndGet();
+    }
+
+    @Override
+    public int stopToken() {
+        return stops.get();
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    int getDepthReached() {
+        return depthReached;
+    }
+
+    int getLastScore() {
+        return lastScore;
+    }
+
+    @Override
+    public String describeLastSearch() {
+        long knps = elapsedNanos > 0 ? nodes * 1000000L / elapsedNanos : 0;
+        return "Alpha-beta: depth " + depthReached + ", " + nodes + " nodes (" + knps + "k nodes/s)";
+    }
+
+    // Picks a move for `player` on a snapshot of `position`; returns a cell index or -1 if the game is over
+    @Override
+    public synchronized int chooseMove(TicTacToeBitboard position, int player, int stopToken) {
+        this.stopToken = stopToken;
+        long start = System.nanoTime();
+        try {
+            return search(position, player, start);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private int search(TicTacToeBitboard position, int player, long start) {
+        deadlineNanos = start + timeBudgetMillis * 1000000L;
+        aborted = false;
+        nodes = 0;
+        depthReached = 0;
+        lastScore = 0;
+        prepare(position);
+        if (board.winner() != TicTacToeBitboard.EMPTY || board.isFull()) return -1;
+
+        int empties = board.cells - board.moveCount();
+        if (tablebase != null && maxDepth >= empties) {
+            int perfect = tablebase.bestMove(board, player);
+            if (perfect >= 0) {
+                depthReached = empties;
+                return perfect;
+            }
+        }
+        int bestMove = -1;
+        int[] rootMoves = new int[empties];
+        int rootCount = generateMoves(rootMoves, -1);
+        bestMove = rootMoves[0];
+
+        for (int depth = 1; depth <= Math.min(maxDepth, empties); depth++) {
+            int alpha = -INFINITY;
+            int iterationBest = -1;
+            for (int i = 0; i < rootCount; i++) {
+                int move = rootMoves[i];
+                makeMove(player, move);
+                int score = -negamax(depth - 1, 1, -INFINITY, -alpha, 3 - player);
+                unmakeMove(player, move);
+                if (aborted) break;
+                if (score > alpha) {
+                    alpha = score;
+                    iterationBest = move;
+                }
+            }
+            if (aborted) break;
+            bestMove = iterationBest;
+            lastScore = alpha;
+            depthReached = depth;
+            // Search the previous best move first next iteration
+            for (int i = 0; i < rootCount; i++) {
+                if (rootMoves[i] == bestMove) {
+                    System.arraycopy(rootMoves, 0, rootMoves, 1, i);
+                    rootMoves[0] = bestMove;
+                    break;
+                }
+            }
+            if (Math.abs(alpha) >= WIN_SCORE - board.cells) break; // forced result found
+        }
+        return bestMove;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, int player) {
+        if ((++nodes & 1023) == 0 && (stops.get() != stopToken || System.nanoTime() > deadlineNanos)) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+        // The previous mover may have just completed a line
+        if (board.winner() != TicTacToeBitboard.EMPTY) return -(WIN_SCORE - ply);
+        if (board.isFull()) return 0;
+        if (depth == 0) return evaluate(player);
+
+        long key = canonicalHash(player);
+        int sym = canonicalSymmetry();
+        int slot = (int) (key & ((1 << TT_BITS) - 1));
+        int ttMove = -1;
+        if (ttKeys[slot] == key) {
+            long data = ttData[slot];
+            int ttDepth = (int) (data >>> 48) & 0xFF;
+            int flag = (int) (data >>> 56) & 0x3;
+            int ttScore = fromTT((int) data, ply);
+            int stored = (int) (data >>> 32) & 0xFFFF;
+            if (stored != 0xFFFF) ttMove = symInverse[sym][stored];
+            if (ttDepth >= depth) {
+                if (flag == FLAG_EXACT) return ttScore;
+                if (flag == FLAG_LOWER && ttScore >= beta) return ttScore;
+                if (flag == FLAG_UPPER && ttScore <= alpha) return ttScore;
+            }
+        }
+
+        int originalAlpha = alpha;
+        int[] moves = moveBuffers[ply];
+        int count = generateMoves(moves, ttMove);
+        int best = -INFINITY;
+        int bestMove = -1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            makeMove(player, move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha, 3 - player);
+            unmakeMove(player, move);
+            if (aborted) return 0;
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (score > alpha) alpha = score;
+            if (alpha >= beta) break;
+        }
+
+        int flag = best <= originalAlpha ? FLAG_UPPER : (best >= beta ? FLAG_LOWER : FLAG_EXACT);
+        int storedDepth = (int) (ttData[slot] >>> 48) & 0xFF;
+        if (ttKeys[slot] != key || depth >= storedDepth) {
+            ttKeys[slot] = key;
+            ttData[slot] = ((long) flag << 56) | ((long) depth << 48)
+                | ((long) symCell[sym][bestMove] << 32) | (toTT(best, ply) & 0xFFFFFFFFL);
+        }
+        return best;
+    }
+
+    // Line-based heuristic from the side to move's point of view: lines still open
+    // for only one player are worth more the fuller they get.
+    private int evaluate(int player) {
+        int opponent = 3 - player;
+        int score = 0;
+        for (int line = 0; line < board.lineCount; line++) {
+            int mine = board.lineCount(player, line);
+            int theirs = board.lineCount(opponent, line);
+            if (theirs == 0 && mine > 0) {
+                score += 1 << Math.min(2 * mine, 14);
+            } else if (mine == 0 && theirs > 0) {
+                score -= 1 << Math.min(2 * theirs, 14);
+            }
+        }
+        // Keep heuristic scores clear of the mate range on boards with many windows
+        return Math.max(-WIN_SCORE / 2, Math.min(WIN_SCORE / 2, score));
+    }
+
+    private int generateMoves(int[] moves, int firstMove) {
+        int count = 0;
+        if (firstMove >= 0 && board.isEmpty(firstMove)) moves[count++] = firstMove;
+        for (int cell : staticOrder) {
+            if (cell != firstMove && board.isEmpty(cell)) moves[count++] = cell;
+        }
+        return count;
+    }
+
+    private void makeMove(int player, int cell) {
+        board.place(player, cell);
+        for (int s = 0; s < 8; s++) symHash[s] ^= zobrist[player][symCell[s][cell]];
+    }
+
+    private void unmakeMove(int player, int cell) {
+        board.clear(cell);
+        for (int s = 0; s < 8; s++) symHash[s] ^= zobrist[player][symCell[s][cell]];
+    }
+
+    private long canonicalHash(int player) {
+        long min = symHash[0];
+        for (int s = 1; s < 8; s++) {
+            if (Long.compareUnsigned(symHash[s], min) < 0) min = symHash[s];
+        }
+        return player == TicTacToeBitboard.PLAYER2 ? min ^ sideKey : min;
+    }
+
+    private int canonicalSymmetry() {
+        int best = 0;
+        for (int s = 1; s < 8; s++) {
+            if (Long.compareUnsigned(symHash[s], symHash[best]) < 0) best = s;
+        }
+        return best;
+    }
+
+    // Mate scores are stored relative to the node so they stay valid at any ply
+    private static int toTT(int score, int ply) {
+        if (score >= WIN_SCORE - 1000) return score + ply;
+        if (score <= -WIN_SCORE + 1000) return score - ply;
+        return score;
+    }
+
+    private static int fromTT(int score, int ply) {
+        if (score >= WIN_SCORE - 1000) return score - ply;
+        if (score <= -WIN_SCORE + 1000) return score + ply;
+        return score;
+    }
+
+    private void prepare(TicTacToeBitboard position) {
+        if (!position.sameShape(board)) {
+            size = position.size;
+            board = new TicTacToeBitboard(size, position.winLength);
+            symCell = symmetryTable(size);
+            symInverse = new int[8][size * size];
+            for (int s = 0; s < 8; s++) {
+                for (int c = 0; c < size * size; c++) symInverse[s][symCell[s][c]] = c;
+            }
+            Random random = new Random(0x5EED0000L + size);
+            zobrist = new long[3][size * size];
+            for (int p = 1; p <= 2; p++) {
+                for (int c = 0; c < size * size; c++) zobrist[p][c] = random.nextLong();
+            }
+            sideKey = random.nextLong();
+            staticOrder = centreFirstOrder(board);
+            moveBuffers = new int[size * size + 1][size * size];
+            tablebase = TicTacToeTablebase.open(board);
+            java.util.Arrays.fill(ttKeys, 0L);
+        }
+        board.copyFrom(position);
+        java.util.Arrays.fill(symHash, 0L);
+        for (int c = 0; c < size * size; c++) {
+            int p = board.get(c);
+            if (p != TicTacToeBitboard.EMPTY) {
+                for (int s = 0; s < 8; s++) symHash[s] ^= zobrist[p][symCell[s][c]];
+            }
+        }
+    }
+
+    // The 8 symmetries of the square: 4 rotations, each optionally mirrored
+    static int[][] symmetryTable(int size) {
+        int[][] table = new int[8][size * size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                int cell = r * size + c;
+                int n = size - 1;
+                table[0][cell] = r * size + c;
+                table[1][cell] = c * size + (n - r);
+                table[2][cell] = (n - r) * size + (n - c);
+                table[3][cell] = (n - c) * size + r;
+                table[4][cell] = r * size + (n - c);
+                table[5][cell] = (n - r) * size + c;
+                table[6][cell] = c * size + r;
+                table[7][cell] = (n - c) * size + (n - r);
+            }
+        }
+        return table;
+    }
+
+    // Cells on more lines first, then closer to the centre
+    static int[] centreFirstOrder(TicTacToeBitboard board) {
+        Integer[] order = new Integer[board.cells];
+        for (int c = 0; c < board.cells; c++) order[c] = c;
+        double mid = (board.size - 1) / 2.0;
+        java.util.Arrays.sort(order, (a, b) -> {
+            int byLines = board.linesThrough(b).length - board.linesThrough(a).length;
+            if (byLines != 0) return byLines;
+            double da = Math.abs(board.rowOf(a) - mid) + Math.abs(board.colOf(a) - mid);
+            double db = Math.abs(board.rowOf(b) - mid) + Math.abs(board.colOf(b) - mid);
+            return Double.compare(da, db);
+        });
+        int[] result = new int[board.cells];
+        for (int c = 0; c < board.cells; c++) result[c] = order[c];
+        return result;
+    }
+}
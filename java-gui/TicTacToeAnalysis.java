@@ -0,0 +1,157 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Per-cell analysis for the Tic-Tac-Toe heatmap: the value of the side to move playing
+// each empty cell. Every candidate is an independent fork-join task, so cells are
+// evaluated in parallel and each result is handed to the listener as soon as it is known.
+// 3×3 and 4×4 cells get an exact value (perfect-play table, else the df-pn solver);
+// larger boards get a win-rate estimate from random playouts.
+class TicTacToeAnalysis {
+    static final int WIN = 1;      // playing the cell forces a win
+    static final int LOSS = 2;     // the opponent can force a win after it
+    static final int DRAW = 3;
+    static final int ESTIMATE = 4; // only a playout win rate is known
+
+    // Playouts per cell, fewer on big boards where each playout is longer
+    private static final int MAX_PLAYOUTS_PER_CELL = 3000;
+    private static final int PLAYOUT_CELL_BUDGET = 250000;
+    private static final int EXACT_MAX_SIZE = 4;
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    // One small solver per pool thread; solve() is synchronized so tasks never share one
+    private static final ThreadLocal<TicTacToeProofSolver> SOLVERS =
+        ThreadLocal.withInitial(() -> new TicTacToeProofSolver(16));
+
+    interface Listener {
+        // Called from a pool thread; winRate is in [0, 1] for the side to move (1 for WIN, 0.5 for DRAW)
+        void cellAnalysed(int cell, int kind, float winRate);
+    }
+
+    // The set of tasks analysing one position; cancel() stops all of them
+    static final class Job {
+        private final List<CellTask> tasks = new ArrayList<>();
+        private volatile boolean cancelled;
+
+        void cancel() {
+            cancelled = true;
+            for (CellTask task : tasks) {
+                task.cancel(false);
+                TicTacToeProofSolver solver = task.solver;
+                if (solver != null) solver.cancel();
+            }
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    static Job start(TicTacToeBitboard position, int player, Listener listener) {
+        Job job = new Job();
+        if (position.winner() != TicTacToeBitboard.EMPTY || position.isFull()) return job;
+        for (int cell = 0; cell < position.cells; cell++) {
+            if (!position.isEmpty(cell)) continue;
+            TicTacToeBitboard child = new TicTacToeBitboard(position.size, position.winLength);
+            child.copyFrom(position);
+            child.place(player, cell);
+            job.tasks.add(new CellTask(job, child, player, cell, listener));
+        }
+        for (CellTask task : job.tasks) POOL.execute(task);
+        return job;
+    }
+
+    private static final class CellTask extends RecursiveAction {
+        private final Job job;
+        private final TicTacToeBitboard child;
+        private final int player;
+        private final int cell;
+        private final Listener listener;
+        volatile TicTacToeProofSolver solver;
+
+        CellTask(Job job, TicTacToeBitboard child, int player, int cell, Listener listener) {
+            this.job = job;
+            this.child = child;
+            this.player = player;
+            this.cell = cell;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            if (job.cancelled) return;
+            int kind;
+            float winRate;
+            if (child.winner() == player) {
+                kind = WIN;
+            } else if (child.isFull()) {
+                kind = DRAW;
+            } else if (child.size <= EXACT_MAX_SIZE) {
+                kind = exactValue();
+                if (kind == TicTacToeProofSolver.UNKNOWN) return; // cancelled
+            } else {
+                winRate = playoutWinRate();
+                if (job.cancelled) return;
+                listener.cellAnalysed(cell, ESTIMATE, winRate);
+                return;
+            }
+            winRate = kind == WIN ? 1f : kind == LOSS ? 0f : 0.5f;
+            if (!job.cancelled) listener.cellAnalysed(cell, kind, winRate);
+        }
+
+        // Exact value for `player`, from the child position where the opponent is to move
+        private int exactValue() {
+            TicTacToeTablebase tablebase = TicTacToeTablebase.open(child);
+            int value;
+            if (tablebase != null) {
+                value = tablebase.probe(child);
+            } else {
+                TicTacToeProofSolver own = SOLVERS.get();
+                solver = own;
+                // Job.cancel() sets `cancelled` before it looks at `solver`, so a cancel
+                // either shows up in the check below or moves the solver past this token
+                int cancelToken = own.cancelToken();
+                if (job.cancelled) return TicTacToeProofSolver.UNKNOWN;
+                value = own.solve(child, 3 - player, cancelToken, null);
+                solver = null;
+                if (job.cancelled) return TicTacToeProofSolver.UNKNOWN;
+            }
+            // The child is scored for the opponent: their loss is our win
+            switch (value) {
+                case TicTacToeTablebase.WIN: return LOSS;
+                case TicTacToeTablebase.LOSS: return WIN;
+                case TicTacToeTablebase.DRAW: return DRAW;
+                default: return TicTacToeProofSolver.UNKNOWN;
+            }
+        }
+
+        // Fraction of random playouts from the child that `player` wins, draws counting half
+        private float playoutWinRate() {
+            TicTacToeBitboard scratch = new TicTacToeBitboard(child.size, child.winLength);
+            int[] empties = new int[child.cells];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            float score = 0;
+            int playouts = 0;
+            int target = Math.max(200, Math.min(MAX_PLAYOUTS_PER_CELL, PLAYOUT_CELL_BUDGET / child.cells));
+            while (playouts < target && !job.cancelled) {
+                scratch.copyFrom(child);
+                int count = 0;
+                for (int c = 0; c < scratch.cells; c++) {
+                    if (scratch.isEmpty(c)) empties[count++] = c;
+                }
+                int toMove = 3 - player;
+                while (scratch.winner() == TicTacToeBitboard.EMPTY && count > 0) {
+                    int pick = random.nextInt(count);
+                    scratch.place(toMove, empties[pick]);
+                    empties[pick] = empties[--count];
+                    toMove = 3 - toMove;
+                }
+                int winner = scratch.winner();
+                score += winner == player ? 1f : winner == TicTacToeBitboard.EMPTY ? 0.5f : 0f;
+                playouts++;
+            }
+            return playouts > 0 ? score / playouts : 0.5f;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+// Primitive bitboard position for N×N Tic-Tac-Toe (2×2 up to 19×19) with a k-in-a-row rule.
+// Cell (row, col) is bit row * size + col. Each player owns one mask stored as
+// `words` longs (six words cover 19×19), and every winning line is precomputed as a
+// mask of the same shape, so a win test is a handful of ANDs instead of string comparisons.
+// A "line" is any window of winLength consecutive cells along a row, column or diagonal;
+// with the classic rule (winLength == size) these are exactly the rows, columns and the
+// two main diagonals, while 5-in-a-row on 15×15 gives Gomoku.
+// Alongside the masks it keeps per-line occupancy counters for both players and a
+// move counter, so place/clear touch only the lines through one cell and the
+// winner/draw questions are O(1).
+class TicTacToeBitboard {
+    static final int MIN_SIZE = 2;
+    static final int MAX_SIZE = 19;
+    static final int MIN_WIN_LENGTH = 3;
+    static final int EMPTY = 0;
+    static final int PLAYER1 = 1;
+    static final int PLAYER2 = 2;
+
+    final int size;
+    final int cells;
+    final int words;
+    final int winLength;
+    final int lineCount;
+
+    // bits[player * words + w], player slot 0 is unused so indices match PLAYER1/PLAYER2
+    private final long[] bits;
+    // lineMasks[line * words + w]
+    private final long[] lineMasks;
+    // Cell indices of every line, used for painting the winning line
+    private final int[][] lineCells;
+    // Lines passing through each cell (up to 4 * winLength of them)
+    private final int[][] cellLines;
+    // lineCounts[player * lineCount + line]: stones the player has on that line
+    private final int[] lineCounts;
+    // Number of completed lines per player and the most recent one completed
+    private final int[] completedLines = new int[3];
+    private final int[] completedLine = {-1, -1, -1};
+    private int moveCount;
+
+    // Classic rule: a line must span the whole board
+    TicTacToeBitboard(int size) {
+        this(size, size);
+    }
+
+    TicTacToeBitboard(int size, int winLength) {
+        if (size < MIN_SIZE || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE + ": " + size);
+        }
+        if (winLength != size && (winLength < MIN_WIN_LENGTH || winLength > size)) {
+            throw new IllegalArgumentException("Win length must be between " + MIN_WIN_LENGTH + " and " + size + ": " + winLength);
+        }
+        this.size = size;
+        this.cells = size * size;
+        this.words = (cells + 63) >>> 6;
+        this.winLength = winLength;
+        int starts = size - winLength + 1;
+        this.lineCount = 2 * size * starts + 2 * starts * starts;
+        this.bits = new long[3 * words];
+        this.lineMasks = new long[lineCount * words];
+        this.lineCells = new int[lineCount][winLength];
+        this.lineCounts = new int[3 * lineCount];
+
+        // Row windows, then column windows, then both diagonal directions;
+        // with winLength == size that is rows, columns, main diagonal, anti-diagonal
+        int line = 0;
+        for (int i = 0; i < size; i++) {
+            for (int s = 0; s < starts; s++, line++) {
+                for (int k = 0; k < winLength; k++) lineCells[line][k] = cell(i, s + k);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            for (int s = 0; s < starts; s++, line++) {
+                for (int k = 0; k < winLength; k++) lineCells[line][k] = cell(s + k, i);
+            }
+        }
+        for (int r = 0; r < starts; r++) {
+            for (int c = 0; c < starts; c++, line++) {
+                for (int k = 0; k < winLength; k++) lineCells[line][k] = cell(r + k, c + k);
+            }
+        }
+        for (int r = 0; r < starts; r++) {
+            for (int c = 0; c < starts; c++, line++) {
+                for (int k = 0; k < winLength; k++) lineCells[line][k] = cell(r + k, size - 1 - c - k);
+            }
+        }
+        int[] linesPerCell = new int[cells];
+        for (line = 0; line < lineCount; line++) {
+            for (int c : lineCells[line]) {
+                lineMasks[line * words + (c >>> 6)] |= 1L << c;
+                linesPerCell[c]++;
+            }
+        }
+        cellLines = new int[cells][];
+        for (int c = 0; c < cells; c++) {
+            cellLines[c] = new int[linesPerCell[c]];
+            linesPerCell[c] = 0;
+        }
+        for (line = 0; line < lineCount; line++) {
+            for (int c : lineCells[line]) {
+                cellLines[c][linesPerCell[c]++] = line;
+            }
+        }
+    }
+
+    int cell(int row, int col) {
+        return row * size + col;
+    }
+
+    int rowOf(int cell) {
+        return cell / size;
+    }
+
+    int colOf(int cell) {
+        return cell % size;
+    }
+
+    int get(int row, int col) {
+        return get(cell(row, col));
+    }
+
+    int get(int cell) {
+        int w = cell >>> 6;
+        long bit = 1L << cell;
+        if ((bits[words + w] & bit) != 0) return PLAYER1;
+        if ((bits[2 * words + w] & bit) != 0) return PLAYER2;
+        return EMPTY;
+    }
+
+    boolean isEmpty(int row, int col) {
+        return isEmpty(cell(row, col));
+    }
+
+    boolean isEmpty(int cell) {
+        int w = cell >>> 6;
+        return ((bits[words + w] | bits[2 * words + w]) & (1L << cell)) == 0;
+    }
+
+    void place(int player, int cell) {
+        bits[player * words + (cell >>> 6)] |= 1L << cell;
+        moveCount++;
+        int base = player * lineCount;
+        for (int line : cellLines[cell]) {
+            if (++lineCounts[base + line] == winLength) {
+                completedLines[player]++;
+                completedLine[player] = line;
+            }
+        }
+    }
+
+    void clear(int cell) {
+        int player = get(cell);
+        if (player == EMPTY) return;
+        bits[player * words + (cell >>> 6)] &= ~(1L << cell);
+        moveCount--;
+        int base = player * lineCount;
+        for (int line : cellLines[cell]) {
+            if (lineCounts[base + line]-- == winLength) {
+                completedLines[player]--;
+                if (completedLine[player] == line) completedLine[player] = -1;
+            }
+        }
+        // Only a move that completed two lines at once leaves another one behind
+        if (completedLines[player] > 0 && completedLine[player] < 0) {
+            for (int line = 0; line < lineCount; line++) {
+                if (lineCounts[base + line] == winLength) {
+                    completedLine[player] = line;
+                    break;
+                }
+            }
+        }
+    }
+
+    void reset() {
+        java.util.Arrays.fill(bits, 0L);
+        java.util.Arrays.fill(lineCounts, 0);
+        java.util.Arrays.fill(completedLines, 0);
+        java.util.Arrays.fill(completedLine, -1);
+        moveCount = 0;
+    }
+
+    // Player owning a complete line, or EMPTY
+    int winner() {
+        if (completedLines[PLAYER1] > 0) return PLAYER1;
+        if (completedLines[PLAYER2] > 0) return PLAYER2;
+        return EMPTY;
+    }
+
+    // A completed line of the winner, or -1
+    int winningLine() {
+        int player = winner();
+        return player == EMPTY ? -1 : completedLine[player];
+    }
+
+    boolean isDraw() {
+        return moveCount == cells && winner() == EMPTY;
+    }
+
+    int moveCount() {
+        return moveCount;
+    }
+
+    int lineCount(int player, int line) {
+        return lineCounts[player * lineCount + line];
+    }
+
+    // Returns the first line through `cell` fully owned by `player`, or -1
+    int winningLine(int player, int cell) {
+        int base = player * words;
+        for (int line : cellLines[cell]) {
+            if (ownsLine(base, line)) return line;
+        }
+        return -1;
+    }
+
+    // Returns any line fully owned by `player`, or -1
+    int winningLine(int player) {
+        int base = player * words;
+        for (int line = 0; line < lineCount; line++) {
+            if (ownsLine(base, line)) return line;
+        }
+        return -1;
+    }
+
+    private boolean ownsLine(int base, int line) {
+        int m = line * words;
+        for (int w = 0; w < words; w++) {
+            long mask = lineMasks[m + w];
+            if ((bits[base + w] & mask) != mask) return false;
+        }
+        return true;
+    }
+
+    boolean isFull() {
+        return moveCount == cells;
+    }
+
+    int[] lineCells(int line) {
+        return lineCells[line];
+    }
+
+    int[] linesThrough(int cell) {
+        return cellLines[cell];
+    }
+
+    // Same size and win rule, so copyFrom() between the two is valid
+    boolean sameShape(TicTacToeBitboard other) {
+        return other != null && size == other.size && winLength == other.winLength;
+    }
+
+    // Raw mask word of a player, for engines that work directly on the bits
+    long word(int player, int w) {
+        return bits[player * words + w];
+    }
+
+    void copyFrom(TicTacToeBitboard other) {
+        System.arraycopy(other.bits, 0, bits, 0, bits.length);
+        System.arraycopy(other.lineCounts, 0, lineCounts, 0, lineCounts.length);
+        System.arraycopy(other.completedLines, 0, completedLines, 0, completedLines.length);
+        System.arraycopy(other.completedLine, 0, completedLine, 0, completedLine.length);
+        moveCount = other.moveCount;
+    }
+}
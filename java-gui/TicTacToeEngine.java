@@ -0,0 +1,23 @@
+// A computer player for TicTacToeGame. Implementations search a private copy of the
+// position, may be stopped from another thread, and summarise their last search for
+// the status line.
+// stop() counts stops rather than setting a flag the search would clear on entry: a
+// caller takes stopToken() before handing the search to a worker thread, and the search
+// gives up as soon as the count moves past that token, so a stop() that lands before the
+// worker starts still cancels it.
+interface TicTacToeEngine {
+    // Returns the chosen cell index, or -1 if the game is already over
+    default int chooseMove(TicTacToeBitboard position, int player) {
+        return chooseMove(position, player, stopToken());
+    }
+
+    // As above, but already stopped if stop() was called after `stopToken` was taken
+    int chooseMove(TicTacToeBitboard position, int player, int stopToken);
+
+    // The current stop count, for a later chooseMove to compare against
+    int stopToken();
+
+    void stop();
+
+    String describeLastSearch();
+}
@@ -0,0 +1,343 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Monte Carlo Tree Search opponent for large Tic-Tac-Toe boards (7×7 up to 19×19),
+// where full-line wins are too deep for exhaustive alpha-beta.
+// UCT with RAVE (all-moves-as-first) statistics, root-parallelised: every core grows
+// its own tree from the same root and the root visit counts are summed at the end.
+// Trees live in parallel arrays sized from the board when its shape changes, and
+// playouts run on a reusable TicTacToeBitboard copy, so the steady state allocates
+// nothing per playout. Nodes only get children near stones already played, which
+// keeps the branching factor of a 19×19 board small enough for the tree to grow.
+class TicTacToeMcts implements TicTacToeEngine {
+    // Each worker's node pool is sized from the board, within these bounds
+    private static final int NODES_PER_CELL = 4096;
+    private static final int MIN_CAPACITY = 1 << 17;
+    private static final int MAX_CAPACITY = 1 << 20;
+    // Tree moves are cells within this distance of a stone already on the board
+    private static final int CANDIDATE_RADIUS = 2;
+    private static final int EXPAND_THRESHOLD = 4;
+    private static final double EXPLORATION = 0.4;
+    private static final double RAVE_EQUIVALENCE = 300.0;
+
+    private final long timeBudgetMillis;
+    private final Worker[] workers;
+    private ExecutorService executor;
+    private final AtomicInteger stops = new AtomicInteger();
+    private int stopToken;
+    // Set when one worker fails so the others give up too; unlike stop() it ends only this search
+    private volatile boolean halted;
+
+    // Statistics of the last search
+    private long lastPlayouts;
+    private long lastElapsedNanos;
+    private int lastTreeSize;
+
+    TicTacToeMcts(long timeBudgetMillis) {
+        this(timeBudgetMillis, Runtime.getRuntime().availableProcessors());
+    }
+
+    TicTacToeMcts(long timeBudgetMillis, int threads) {
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+        this.workers = new Worker[Math.max(1, threads)];
+        for (int i = 0; i < workers.length; i++) workers[i] = new Worker(0x9E3779B97F4A7C15L * (i + 1));
+    }
+
+    @Override
+    public void stop() {
+        stops.incrementAndGet();
+    }
+
+    @Override
+    public int stopToken() {
+        return stops.get();
+    }
+
+    long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    long getPlayoutsPerSecond() {
+        return lastElapsedNanos > 0 ? lastPlayouts * 1000000000L / lastElapsedNanos : 0;
+    }
+
+    int getLastTreeSize() {
+        return lastTreeSize;
+    }
+
+    @Override
+    public String describeLastSearch() {
+        return "MCTS: " + lastPlayouts + " playouts (" + getPlayoutsPerSecond() + "/s), "
+            + lastTreeSize + " tree nodes on " + workers.length + " threads";
+    }
+
+    @Override
+    public synchronized int chooseMove(TicTacToeBitboard position, int player, int stopToken) {
+        long start = System.nanoTime();
+        this.stopToken = stopToken;
+        halted = false;
+        lastPlayouts = 0;
+        lastTreeSize = 0;
+        lastElapsedNanos = 0;
+        if (position.winner() != TicTacToeBitboard.EMPTY || position.isFull()) return -1;
+
+        // Immediate wins and forced blocks need no search
+        int forced = completingCell(position, player);
+        if (forced < 0) forced = completingCell(position, 3 - player);
+        if (forced >= 0) return forced;
+
+        long deadline = start + timeBudgetMillis * 1000000L;
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(workers.length, r -> {
+                Thread t = new Thread(r, "tictactoe-mcts");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Worker worker : workers) {
+            tasks.add(() -> {
+                worker.search(position, player, deadline);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) future.get();
+        } catch (Exception e) {
+            halted = true;
+        }
+
+        // Sum root visits per cell over all trees
+        long[] visits = new long[position.cells];
+        for (Worker worker : workers) {
+            lastPlayouts += worker.playouts;
+            lastTreeSize += worker.nodeCount;
+            int first = worker.firstChild[0];
+            for (int i = 0; i < worker.childCount[0]; i++) {
+                visits[worker.move[first + i]] += worker.visits[first + i];
+            }
+        }
+        lastElapsedNanos = System.nanoTime() - start;
+        int best = -1;
+        for (int cell = 0; cell < position.cells; cell++) {
+            if (position.isEmpty(cell) && (best < 0 || visits[cell] > visits[best])) best = cell;
+        }
+        return best;
+    }
+
+    // A cell that completes a line for `player`, or -1
+    private static int completingCell(TicTacToeBitboard board, int player) {
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(player, line) == board.winLength - 1 && board.lineCount(3 - player, line) == 0) {
+                for (int cell : board.lineCells(line)) {
+                    if (board.isEmpty(cell)) return cell;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // One independent tree plus its playout scratch space
+    private final class Worker {
+        int capacity;
+        int[] move;
+        int[] firstChild;
+        int[] childCount;
+        int[] visits;
+        float[] wins;      // for the player who moved into the node
+        int[] amafVisits;
+        float[] amafWins;
+        int nodeCount;
+        long playouts;
+
+        private TicTacToeBitboard board;
+        private int[] path = new int[0];
+        private int[] empties = new int[0];
+        private int[] playedAt = new int[0];     // ply at which a cell was played this episode
+        private int[] playedStamp = new int[0];  // episode that wrote playedAt
+        private int[] playedBy = new int[0];
+        private int episode;
+        private long seed;
+
+        Worker(long seed) {
+            this.seed = seed;
+        }
+
+        void search(TicTacToeBitboard root, int rootPlayer, long deadline) {
+            if (!root.sameShape(board)) {
+                board = new TicTacToeBitboard(root.size, root.winLength);
+                path = new int[root.cells + 1];
+                empties = new int[root.cells];
+                playedAt = new int[root.cells];
+                playedStamp = new int[root.cells];
+                playedBy = new int[root.cells];
+                capacity = (int) Math.max(MIN_CAPACITY, Math.min(MAX_CAPACITY, (long) root.cells * NODES_PER_CELL));
+                move = new int[capacity];
+                firstChild = new int[capacity];
+                childCount = new int[capacity];
+                visits = new int[capacity];
+                wins = new float[capacity];
+                amafVisits = new int[capacity];
+                amafWins = new float[capacity];
+            }
+            nodeCount = 1;
+            playouts = 0;
+            move[0] = -1;
+            firstChild[0] = -1;
+            childCount[0] = 0;
+            visits[0] = 0;
+            wins[0] = 0;
+
+            while (!halted && stops.get() == stopToken && ((playouts & 63) != 0 || System.nanoTime() < deadline)) {
+                board.copyFrom(root);
+                if (++episode == 0) {
+                    java.util.Arrays.fill(playedStamp, 0);
+                    episode = 1;
+                }
+                int depth = 0;
+                int node = 0;
+                int player = rootPlayer;
+                path[0] = 0;
+
+                // Selection
+                while (childCount[node] > 0) {
+                    node = select(node);
+                    play(move[node], player, depth);
+                    player = 3 - player;
+                    path[++depth] = node;
+                }
+                // Expansion
+                if (board.winner() == TicTacToeBitboard.EMPTY && !board.isFull()
+                        && (node == 0 || visits[node] >= EXPAND_THRESHOLD) && expand(node)) {
+                    node = select(node);
+                    play(move[node], player, depth);
+                    player = 3 - player;
+                    path[++depth] = node;
+                }
+                // Simulation
+                int winner = playout(player, depth);
+                // Backpropagation
+                backpropagate(depth, rootPlayer, winner);
+                playouts++;
+            }
+        }
+
+        private int select(int node) {
+            int first = firstChild[node];
+            int count = childCount[node];
+            double logParent = Math.log(visits[node] + 1.0);
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int c = first; c < first + count; c++) {
+                double amaf = amafVisits[c] > 0 ? amafWins[c] / amafVisits[c] : 0.5;
+                double value;
+                if (visits[c] == 0) {
+                    value = 1.0 + amaf; // first-play urgency, ordered by RAVE
+                } else {
+                    double q = wins[c] / visits[c];
+                    double beta = Math.sqrt(RAVE_EQUIVALENCE / (3.0 * visits[c] + RAVE_EQUIVALENCE));
+                    value = (1 - beta) * q + beta * amaf + EXPLORATION * Math.sqrt(logParent / visits[c]);
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = c;
+                }
+            }
+            return best;
+        }
+
+        private boolean expand(int node) {
+            int free = board.cells - board.moveCount();
+            if (nodeCount + free > capacity) return false;
+            int first = nodeCount;
+            boolean anyStone = board.moveCount() > 0;
+            for (int cell = 0; cell < board.cells; cell++) {
+                if (!board.isEmpty(cell) || (anyStone && !nearStone(cell))) continue;
+                int c = nodeCount++;
+                move[c] = cell;
+                firstChild[c] = -1;
+                childCount[c] = 0;
+                visits[c] = 0;
+                wins[c] = 0;
+                amafVisits[c] = 0;
+                amafWins[c] = 0;
+            }
+            firstChild[node] = first;
+            childCount[node] = nodeCount - first;
+            return true;
+        }
+
+        private boolean nearStone(int cell) {
+            int row = board.rowOf(cell);
+            int col = board.colOf(cell);
+            for (int r = Math.max(0, row - CANDIDATE_RADIUS); r <= Math.min(board.size - 1, row + CANDIDATE_RADIUS); r++) {
+                for (int c = Math.max(0, col - CANDIDATE_RADIUS); c <= Math.min(board.size - 1, col + CANDIDATE_RADIUS); c++) {
+                    if (!board.isEmpty(board.cell(r, c))) return true;
+                }
+            }
+            return false;
+        }
+
+        private void play(int cell, int player, int ply) {
+            board.place(player, cell);
+            playedAt[cell] = ply;
+            playedStamp[cell] = episode;
+            playedBy[cell] = player;
+        }
+
+        // Random playout to the end of the game; returns the winner or EMPTY for a draw
+        private int playout(int player, int ply) {
+            int count = 0;
+            for (int cell = 0; cell < board.cells; cell++) {
+                if (board.isEmpty(cell)) empties[count++] = cell;
+            }
+            while (board.winner() == TicTacToeBitboard.EMPTY && count > 0) {
+                int pick = nextInt(count);
+                int cell = empties[pick];
+                empties[pick] = empties[--count];
+                play(cell, player, ++ply);
+                player = 3 - player;
+            }
+            return board.winner();
+        }
+
+        private void backpropagate(int depth, int rootPlayer, int winner) {
+            // path[d] was entered by the player to move at depth d - 1
+            for (int d = depth; d >= 0; d--) {
+                int node = path[d];
+                visits[node]++;
+                int toMove = (d & 1) == 0 ? rootPlayer : 3 - rootPlayer;
+                if (d > 0) wins[node] += result(3 - toMove, winner);
+                // RAVE: credit every child whose move `toMove` played later in this episode
+                int first = firstChild[node];
+                if (first < 0) continue;
+                float reward = result(toMove, winner);
+                for (int c = first; c < first + childCount[node]; c++) {
+                    int cell = move[c];
+                    if (playedStamp[cell] == episode && playedAt[cell] >= d && playedBy[cell] == toMove) {
+                        amafVisits[c]++;
+                        amafWins[c] += reward;
+                    }
+                }
+            }
+        }
+
+        private float result(int player, int winner) {
+            return winner == player ? 1f : winner == TicTacToeBitboard.EMPTY ? 0.5f : 0f;
+        }
+
+        // xorshift64*, allocation-free and private to the worker
+        private int nextInt(int bound) {
+            seed ^= seed >>> 12;
+            seed ^= seed << 25;
+            seed ^= seed >>> 27;
+            long r = (seed * 0x2545F4914F6CDD1DL) >>> 33;
+            return (int) ((r * bound) >>> 31);
+        }
+    }
+}
@@ -0,0 +1,407 @@
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Proves the game-theoretic value of a Tic-Tac-Toe position with depth-first
+// proof-number search (df-pn, in the phi/delta formulation), using the 1+epsilon child
+// threshold, one move per symmetry class, no moves on cells every line through which is
+// dead, and a pairing-strategy check that disproves a side's win without search.
+// A position is solved with two proofs: "the side to move can force a line" and, if
+// that is disproved, "the opponent can force a line"; if both fail the result is a draw.
+// Proof and disproof numbers live in a bounded transposition table keyed by the canonical
+// Zobrist hash over the 8 board symmetries; each bucket holds two entries and a store
+// evicts the one that took fewer nodes to compute, so small tables do not lose expensive
+// subtrees. The search is cancellable from any thread and reports progress while it runs.
+class TicTacToeProofSolver {
+    static final int UNKNOWN = 0;
+    static final int WIN = 1;   // side to move wins
+    static final int LOSS = 2;  // side to move loses
+    static final int DRAW = 3;
+
+    // Saturating "infinity" for proof numbers
+    private static final int INF = 100000000;
+    private static final long PROGRESS_INTERVAL_NANOS = 250000000L;
+    private static final double EPSILON = 0.25;
+
+    interface ProgressListener {
+        void progress(long nodes, long nodesPerSecond, int rootProof, int rootDisproof, String phase);
+    }
+
+    private final int ttMask;
+    private final long[] ttKeys;
+    private final int[] ttProof;
+    private final int[] ttDisproof;
+    private final int[] ttWork;
+
+    private TicTacToeBitboard board;
+    private int size;
+    private int[][] symCell;
+    private long[][] zobrist;
+    private long[] sideKeys;
+    private final long[] symHash = new long[8];
+    private int[][] moveBuffers;
+    private long[][] keyBuffers;
+    // Scratch for pairingBlocksAttacker
+    private int[] slotLines;
+    private int[] cellSlot;
+    private int[] cellStamp;
+    private int matchStamp;
+
+    // Counted like the engines' stops, so a cancel() before solve() starts is not lost
+    private final AtomicInteger cancels = new AtomicInteger();
+    private int cancelToken;
+    private ProgressListener listener;
+    private String phase;
+    private long nodes;
+    private long startNanos;
+    private long nextReportNanos;
+    private int attacker;
+    private int rootProof;
+    private int rootDisproof;
+
+    TicTacToeProofSolver() {
+        this(20);
+    }
+
+    TicTacToeProofSolver(int ttBits) {
+        ttMask = (1 << ttBits) - 1;
+        ttKeys = new long[1 << ttBits];
+        ttProof = new int[1 << ttBits];
+        ttDisproof = new int[1 << ttBits];
+        ttWork = new int[1 << ttBits];
+    }
+
+    void cancel() {
+        cancels.incrementAndGet();
+    }
+
+    // Taken before handing solve() to another thread; a later cancel() stops that solve
+    int cancelToken() {
+        return cancels.get();
+    }
+
+    private boolean cancelled() {
+        return cancels.get() != cancelToken;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
+    // Returns WIN, LOSS or DRAW for `toMove`, or UNKNOWN if cancelled
+    int solve(TicTacToeBitboard position, int toMove, ProgressListener progress) {
+        return solve(position, toMove, cancelToken(), progress);
+    }
+
+    // As above, but cancelled by any cancel() after `cancelToken` was taken
+    synchronized int solve(TicTacToeBitboard position, int toMove, int cancelToken, ProgressListener progress) {
+        this.cancelToken = cancelToken;
+        listener = progress;
+        nodes = 0;
+        startNanos = System.nanoTime();
+        nextReportNanos = startNanos + PROGRESS_INTERVAL_NANOS;
+        prepare(position);
+
+        if (board.winner() != TicTacToeBitboard.EMPTY) {
+            return board.winner() == toMove ? WIN : LOSS;
+        }
+        if (board.isFull()) return DRAW;
+
+        phase = "proving win";
+        int proof = prove(toMove, toMove);
+        if (proof == UNKNOWN) return UNKNOWN;
+        if (proof == WIN) return WIN;
+        phase = "proving loss";
+        proof = prove(3 - toMove, toMove);
+        if (proof == UNKNOWN) return UNKNOWN;
+        if (proof == WIN) return LOSS;
+        return DRAW;
+    }
+
+    // Runs df-pn from the root for "attacker forces a line"; WIN if proved, LOSS if disproved
+    private int prove(int attackingPlayer, int toMove) {
+        attacker = attackingPlayer;
+        java.util.Arrays.fill(ttKeys, 0L);
+        java.util.Arrays.fill(ttWork, 0);
+        rootProof = 1;
+        rootDisproof = 1;
+        long decided = decidedNumbers(toMove);
+        if (decided >= 0) return (int) (decided >>> 32) == 0 ? WIN : LOSS;
+        mid(toMove, INF - 1, INF - 1, 0);
+        if (cancelled()) return UNKNOWN;
+        return rootProof == 0 ? WIN : LOSS;
+    }
+
+    // Multiple iterative deepening at one node. phi/delta are the proof/disproof numbers
+    // seen from the side to move: (pn, dn) at attacker nodes and (dn, pn) at defender nodes.
+    private void mid(int toMove, int thPhi, int thDelta, int ply) {
+        long startNodes = nodes++;
+        if ((nodes & 4095) == 0) report();
+        if (cancelled()) return;
+
+        int[] moves = moveBuffers[ply];
+        int count = 0;
+        int block = completingCell(3 - toMove);
+        if (block >= 0) {
+            // Anything but blocking the opponent's open line loses at once
+            moves[count++] = block;
+        } else {
+            // Symmetric moves lead to the same position: keep one of each, so the sum of
+            // the children's numbers does not count it several times
+            long[] keys = keyBuffers[ply];
+            for (int cell = 0; cell < board.cells; cell++) {
+                if (!board.isEmpty(cell) || !useful(cell)) continue;
+                play(toMove, cell);
+                long childKey = key(3 - toMove);
+                undo(toMove, cell);
+                boolean seen = false;
+                for (int i = 0; i < count && !seen; i++) seen = keys[i] == childKey;
+                if (seen) continue;
+                keys[count] = childKey;
+                moves[count++] = cell;
+            }
+        }
+        long nodeKey = key(toMove);
+
+        while (true) {
+            // phi(n) = min delta(child), delta(n) = sum phi(child)
+            int phi = INF;
+            int delta = 0;
+            int bestIndex = -1;
+            int bestDelta = INF;
+            int secondDelta = INF;
+            int bestPhi = INF;
+            for (int i = 0; i < count; i++) {
+                long entry = childNumbers(moves[i], toMove);
+                int childPhi = (int) (entry >>> 32);
+                int childDelta = (int) entry;
+                if (childDelta < phi) phi = childDelta;
+                delta = Math.min(INF, delta + childPhi);
+                if (childDelta < bestDelta) {
+                    secondDelta = bestDelta;
+                    bestDelta = childDelta;
+                    bestPhi = childPhi;
+                    bestIndex = i;
+                } else if (childDelta < secondDelta) {
+                    secondDelta = childDelta;
+                }
+            }
+            if (ply == 0) {
+                rootProof = toMove == attacker ? phi : delta;
+                rootDisproof = toMove == attacker ? delta : phi;
+            }
+            if (phi >= thPhi || delta >= thDelta || cancelled()) {
+                store(nodeKey, toMove, phi, delta, nodes - startNodes);
+                return;
+            }
+            int childThPhi = Math.min(INF - 1, Math.max(0, thDelta - delta + bestPhi));
+            // 1+epsilon trick: let the best child run until it is clearly worse than the
+            // second best, not just one worse, so the search does not thrash between them
+            int childThDelta = Math.min(thPhi, secondDelta == INF ? INF - 1
+                : (int) Math.min(INF - 1, secondDelta + 1 + (long) (secondDelta * EPSILON)));
+            int cell = moves[bestIndex];
+            play(toMove, cell);
+            if (board.winner() == TicTacToeBitboard.EMPTY && !board.isFull()) {
+                mid(3 - toMove, childThPhi, childThDelta, ply + 1);
+            }
+            undo(toMove, cell);
+            if (cancelled()) return;
+        }
+    }
+
+    // (phi << 32 | delta) of the child reached by `toMove` playing `cell`, from the child's side to move
+    private long childNumbers(int cell, int toMove) {
+        play(toMove, cell);
+        int childToMove = 3 - toMove;
+        int phi;
+        int delta;
+        int winner = board.winner();
+        if (winner != TicTacToeBitboard.EMPTY || board.isFull()) {
+            // The mover just completed a line (or filled the board): the side to move has lost
+            boolean attackerWon = winner == attacker;
+            int pn = attackerWon ? 0 : INF;
+            int dn = attackerWon ? INF : 0;
+            phi = childToMove == attacker ? pn : dn;
+            delta = childToMove == attacker ? dn : pn;
+        } else {
+            long childKey = key(childToMove);
+            int slot = find(childKey);
+            long decided;
+            if (slot >= 0) {
+                phi = childToMove == attacker ? ttProof[slot] : ttDisproof[slot];
+                delta = childToMove == attacker ? ttDisproof[slot] : ttProof[slot];
+            } else if ((decided = decidedNumbers(childToMove)) >= 0) {
+                int pn = (int) (decided >>> 32);
+                int dn = (int) decided;
+                phi = childToMove == attacker ? pn : dn;
+                delta = childToMove == attacker ? dn : pn;
+            } else {
+                long estimate = estimatedNumbers();
+                int pn = (int) (estimate >>> 32);
+                int dn = (int) estimate;
+                phi = childToMove == attacker ? pn : dn;
+                delta = childToMove == attacker ? dn : pn;
+            }
+        }
+        undo(toMove, cell);
+        return ((long) phi << 32) | (delta & 0xFFFFFFFFL);
+    }
+
+    // (pn << 32 | dn) for positions settled without search, or -1: the side to move
+    // completing a line decides it either way, and a pairing that blocks every line the
+    // attacker could still complete disproves it.
+    private long decidedNumbers(int toMove) {
+        if (completingCell(toMove) >= 0) {
+            return toMove == attacker ? INF : ((long) INF << 32);
+        }
+        return pairingBlocksAttacker() ? (long) INF << 32 : -1;
+    }
+
+    // True if every line free of defender stones can be given two empty cells of its own.
+    // The defender then answers each attacker stone on such a cell with its partner and
+    // ends up with a stone on every one of those lines, whoever is to move (the classic
+    // pairing strategy; with no open line at all it holds trivially). Found by bipartite
+    // matching of two slots per line to empty cells, and only tried when there are enough
+    // empty cells to go round.
+    private boolean pairingBlocksAttacker() {
+        int defender = 3 - attacker;
+        int slots = 0;
+        int empty = board.cells - board.moveCount();
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(defender, line) != 0) continue;
+            if (slots + 2 > empty) return false;
+            slotLines[slots++] = line;
+            slotLines[slots++] = line;
+        }
+        java.util.Arrays.fill(cellSlot, -1);
+        for (int slot = 0; slot < slots; slot++) {
+            matchStamp++;
+            if (!augment(slot)) return false;
+        }
+        return true;
+    }
+
+    // Kuhn's augmenting path: finds `slot` an empty cell of its line, moving other slots along
+    private boolean augment(int slot) {
+        for (int cell : board.lineCells(slotLines[slot])) {
+            if (!board.isEmpty(cell) || cellStamp[cell] == matchStamp) continue;
+            cellStamp[cell] = matchStamp;
+            if (cellSlot[cell] < 0 || augment(cellSlot[cell])) {
+                cellSlot[cell] = slot;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // A stone only matters on a line one side can still complete; a cell with no such
+    // line is worth no more than a pass to either player, and an extra stone never hurts
+    // its owner, so any move on a live line is at least as good
+    private boolean useful(int cell) {
+        for (int line : board.linesThrough(cell)) {
+            if (board.lineCount(1, line) == 0 || board.lineCount(2, line) == 0) return true;
+        }
+        return false;
+    }
+
+    // Starting numbers for a new leaf instead of 1/1: proving takes about as many moves as
+    // the attacker's fullest open line still lacks, disproving about one defender stone
+    // for every two open lines
+    private long estimatedNumbers() {
+        int defender = 3 - attacker;
+        int live = 0;
+        int need = board.winLength;
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(defender, line) == 0) {
+                live++;
+                need = Math.min(need, board.winLength - board.lineCount(attacker, line));
+            }
+        }
+        return ((long) Math.max(1, need - 1) << 32) | Math.max(1, live / 2);
+    }
+
+    // An empty cell that completes a line for `player`, or -1
+    private int completingCell(int player) {
+        int opponent = 3 - player;
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(player, line) == board.winLength - 1 && board.lineCount(opponent, line) == 0) {
+                for (int cell : board.lineCells(line)) {
+                    if (board.isEmpty(cell)) return cell;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int find(long key) {
+        int slot = (int) key & ttMask & ~1;
+        if (ttKeys[slot] == key) return slot;
+        if (ttKeys[slot + 1] == key) return slot + 1;
+        return -1;
+    }
+
+    private void store(long nodeKey, int toMove, int phi, int delta, long work) {
+        int slot = find(nodeKey);
+        if (slot < 0) {
+            slot = (int) nodeKey & ttMask & ~1;
+            if (ttWork[slot + 1] < ttWork[slot]) slot++;
+        }
+        ttKeys[slot] = nodeKey;
+        ttWork[slot] = (int) Math.min(Integer.MAX_VALUE, work);
+        ttProof[slot] = toMove == attacker ? phi : delta;
+        ttDisproof[slot] = toMove == attacker ? delta : phi;
+    }
+
+    private void report() {
+        long now = System.nanoTime();
+        if (listener == null || now < nextReportNanos) return;
+        nextReportNanos = now + PROGRESS_INTERVAL_NANOS;
+        long elapsed = Math.max(1, now - startNanos);
+        listener.progress(nodes, nodes * 1000000000L / elapsed, rootProof, rootDisproof, phase);
+    }
+
+    private void play(int player, int cell) {
+        board.place(player, cell);
+        for (int s = 0; s < 8; s++) symHash[s] ^= zobrist[player][symCell[s][cell]];
+    }
+
+    private void undo(int player, int cell) {
+        board.clear(cell);
+        for (int s = 0; s < 8; s++) symHash[s] ^= zobrist[player][symCell[s][cell]];
+    }
+
+    private long key(int toMove) {
+        long min = symHash[0];
+        for (int s = 1; s < 8; s++) {
+            if (Long.compareUnsigned(symHash[s], min) < 0) min = symHash[s];
+        }
+        long k = min ^ sideKeys[toMove];
+        return k == 0 ? 1 : k; // 0 marks an empty slot
+    }
+
+    private void prepare(TicTacToeBitboard position) {
+        if (!position.sameShape(board)) {
+            size = position.size;
+            board = new TicTacToeBitboard(size, position.winLength);
+            symCell = TicTacToeAI.symmetryTable(size);
+            Random random = new Random(0xDF9E0000L + size);
+            zobrist = new long[3][size * size];
+            for (int p = 1; p <= 2; p++) {
+                for (int c = 0; c < size * size; c++) zobrist[p][c] = random.nextLong();
+            }
+            sideKeys = new long[]{0L, random.nextLong(), random.nextLong()};
+            moveBuffers = new int[size * size + 1][size * size];
+            keyBuffers = new long[size * size + 1][size * size];
+            slotLines = new int[2 * board.lineCount];
+            cellSlot = new int[size * size];
+            cellStamp = new int[size * size];
+        }
+        board.copyFrom(position);
+        java.util.Arrays.fill(symHash, 0L);
+        for (int c = 0; c < size * size; c++) {
+            int p = board.get(c);
+            if (p != TicTacToeBitboard.EMPTY) {
+                for (int s = 0; s < 8; s++) symHash[s] ^= zobrist[p][symCell[s][c]];
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+// Unbounded k-in-a-row board for the "infinite board" mode.
+// Stones live in a primitive open-addressing hash map: the key is the packed
+// (row, col) pair as one long, the value one byte per slot, with linear probing and
+// backward-shift deletion so undo never leaves tombstones. Memory grows with the
+// number of stones, not with any board area, and a move only checks the four
+// directions through the new stone for a run of winLength.
+class TicTacToeSparseBoard {
+    static final int EMPTY = 0;
+    static final int PLAYER1 = 1;
+    static final int PLAYER2 = 2;
+    static final int DEFAULT_WIN_LENGTH = 5;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    final int winLength;
+
+    private long[] keys;
+    private byte[] owners;     // EMPTY marks a free slot
+    private int mask;
+    private int stoneCount;
+
+    // The winning run, if any: its first cell and direction
+    private int winner = EMPTY;
+    private int winRow, winCol, winDir;
+
+    TicTacToeSparseBoard(int winLength) {
+        if (winLength < TicTacToeBitboard.MIN_WIN_LENGTH) {
+            throw new IllegalArgumentException("Win length must be at least " + TicTacToeBitboard.MIN_WIN_LENGTH + ": " + winLength);
+        }
+        this.winLength = winLength;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    static long pack(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    static int rowOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    static int colOf(long key) {
+        return (int) key;
+    }
+
+    int get(int row, int col) {
+        int slot = find(pack(row, col));
+        return slot < 0 ? EMPTY : owners[slot];
+    }
+
+    boolean isEmpty(int row, int col) {
+        return find(pack(row, col)) < 0;
+    }
+
+    int stoneCount() {
+        return stoneCount;
+    }
+
+    void place(int player, int row, int col) {
+        if ((stoneCount + 1) * 2 > keys.length) rehash(keys.length * 2);
+        long key = pack(row, col);
+        int slot = home(key);
+        while (owners[slot] != EMPTY) {
+            if (keys[slot] == key) return;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        owners[slot] = (byte) player;
+        stoneCount++;
+        if (winner == EMPTY) checkWin(player, row, col);
+    }
+
+    void clear(int row, int col) {
+        int slot = find(pack(row, col));
+        if (slot < 0) return;
+        if (winner != EMPTY && onWinningRun(row, col)) winner = EMPTY;
+        owners[slot] = EMPTY;
+        stoneCount--;
+        // Backward-shift: pull later entries of the probe chain into the hole
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (owners[next] != EMPTY) {
+            int wanted = home(keys[next]);
+            // Move the entry if its home is not cyclically inside (hole, next]
+            if (((next - wanted) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                owners[hole] = owners[next];
+                owners[next] = EMPTY;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    void reset() {
+        allocate(INITIAL_CAPACITY);
+        stoneCount = 0;
+        winner = EMPTY;
+    }
+
+    int winner() {
+        return winner;
+    }
+
+    // Cells of the winning run as {row, col} pairs, or an empty array
+    int[][] winningCells() {
+        if (winner == EMPTY) return new int[0][];
+        int[][] cells = new int[winLength][];
+        for (int i = 0; i < winLength; i++) {
+            cells[i] = new int[]{winRow + DIRECTIONS[winDir][0] * i, winCol + DIRECTIONS[winDir][1] * i};
+        }
+        return cells;
+    }
+
+    // Slot iteration for painting: O(capacity), a small multiple of the most stones ever placed
+    int capacity() {
+        return keys.length;
+    }
+
+    int ownerAt(int slot) {
+        return owners[slot];
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    // Counts the run through the new stone in each direction only
+    private void checkWin(int player, int row, int col) {
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dr = DIRECTIONS[d][0];
+            int dc = DIRECTIONS[d][1];
+            int back = 0;
+            while (back < winLength - 1 && get(row - dr * (back + 1), col - dc * (back + 1)) == player) back++;
+            int forward = 0;
+            while (back + forward < winLength - 1 && get(row + dr * (forward + 1), col + dc * (forward + 1)) == player) forward++;
+            if (back + forward + 1 >= winLength) {
+                winner = player;
+                winRow = row - dr * back;
+                winCol = col - dc * back;
+                winDir = d;
+                return;
+            }
+        }
+    }
+
+    private boolean onWinningRun(int row, int col) {
+        for (int[] cell : winningCells()) {
+            if (cell[0] == row && cell[1] == col) return true;
+        }
+        return false;
+    }
+
+    private int find(long key) {
+        int slot = home(key);
+        while (owners[slot] != EMPTY) {
+            if (keys[slot] == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Fibonacci hashing spreads neighbouring coordinates across the table
+    private int home(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        owners = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        byte[] oldOwners = owners;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldOwners[i] == EMPTY) continue;
+            int slot = home(oldKeys[i]);
+            while (owners[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            owners[slot] = oldOwners[i];
+        }
+    }
+}
@@ -0,0 +1,280 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Perfect-play tables for 3×3 and 4×4 Tic-Tac-Toe (player 1 always moves first).
+// A position is numbered by its base-3 code (cell c contributes owner * 3^c) after
+// reduction to the smallest code over the 8 board symmetries. The table stores 2 bits
+// per number: the game-theoretic value for the side to move.
+//
+// Generate the tables offline with
+//     java TicTacToeTablebase [outputDir]
+// which runs a retrograde analysis: a forward pass collects every reachable canonical
+// position layer by layer (by stone count), then the layers are solved from the full
+// board back to the empty one. The GUI and bots memory-map the files and answer
+// "who wins from here" with a single array probe.
+class TicTacToeTablebase {
+    static final int UNKNOWN = 0;
+    static final int WIN = 1;   // side to move wins
+    static final int LOSS = 2;  // side to move loses
+    static final int DRAW = 3;
+
+    static final String TABLE_DIR = "tables";
+    private static final int MAGIC = 0x54545442; // "TTTB"
+    private static final int HEADER_BYTES = 8;
+    private static final Map<Integer, TicTacToeTablebase> LOADED = new HashMap<>();
+
+    final int size;
+    private final int cells;
+    private final MappedByteBuffer table;
+    private final int[][] symPow3; // symPow3[s][cell] = 3^(cell after symmetry s)
+
+    private TicTacToeTablebase(int size, MappedByteBuffer table) {
+        this.size = size;
+        this.cells = size * size;
+        this.table = table;
+        this.symPow3 = symmetricPowers(size);
+    }
+
+    static boolean supports(int size) {
+        return size == 3 || size == 4;
+    }
+
+    static File tableFile(File dir, int size) {
+        return new File(dir, "tictactoe-" + size + "x" + size + ".tbl");
+    }
+
+    // Table for the shape of `board`; only the classic full-line rule is tabulated
+    static TicTacToeTablebase open(TicTacToeBitboard board) {
+        return board.winLength == board.size ? open(board.size) : null;
+    }
+
+    // Maps the table for `size` once per process; returns null when it has not been generated
+    static synchronized TicTacToeTablebase open(int size) {
+        if (!supports(size)) return null;
+        if (LOADED.containsKey(size)) return LOADED.get(size);
+        TicTacToeTablebase result = null;
+        File file = tableFile(new File(TABLE_DIR), size);
+        if (file.isFile()) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.getInt(0) == MAGIC && buffer.get(4) == size
+                        && channel.size() == HEADER_BYTES + tableBytes(size)) {
+                    result = new TicTacToeTablebase(size, buffer);
+                }
+            } catch (IOException e) {
+                // Missing or unreadable tables just disable perfect play
+            }
+        }
+        LOADED.put(size, result);
+        return result;
+    }
+
+    // Value for the side to move in `board`
+    int probe(TicTacToeBitboard board) {
+        return valueAt(canonicalCode(board));
+    }
+
+    int valueAt(int canonicalCode) {
+        int b = table.get(HEADER_BYTES + (canonicalCode >>> 2));
+        return (b >>> ((canonicalCode & 3) << 1)) & 3;
+    }
+
+    // Best move for `player` (who must be the side to move), or -1 when the position is unknown
+    int bestMove(TicTacToeBitboard board, int player) {
+        int bestCell = -1;
+        int bestRank = -1;
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isEmpty(cell)) continue;
+            board.place(player, cell);
+            int child = probe(board);
+            board.clear(cell);
+            // The child is scored for the opponent: their loss is our win
+            int rank = child == LOSS ? 3 : child == DRAW ? 2 : child == WIN ? 1 : 0;
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestCell = cell;
+            }
+        }
+        return bestRank > 0 ? bestCell : -1;
+    }
+
+    int canonicalCode(TicTacToeBitboard board) {
+        int best = Integer.MAX_VALUE;
+        for (int[] pow3 : symPow3) {
+            int code = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                code += board.get(cell) * pow3[cell];
+            }
+            if (code < best) best = code;
+        }
+        return best;
+    }
+
+    private static long tableBytes(int size) {
+        return (pow3(size * size) + 3) / 4;
+    }
+
+    private static int pow3(int n) {
+        int result = 1;
+        for (int i = 0; i < n; i++) result *= 3;
+        return result;
+    }
+
+    private static int[][] symmetricPowers(int size) {
+        int[][] sym = TicTacToeAI.symmetryTable(size);
+        int[][] result = new int[8][size * size];
+        for (int s = 0; s < 8; s++) {
+            for (int cell = 0; cell < size * size; cell++) result[s][cell] = pow3(sym[s][cell]);
+        }
+        return result;
+    }
+
+    // --- OFFLINE GENERATOR ---
+
+    public static void main(String[] args) throws IOException {
+        File dir = new File(args.length > 0 ? args[0] : TABLE_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        for (int size = 3; size <= 4; size++) {
+            long start = System.currentTimeMillis();
+            byte[] packed = new Generator(size).run();
+            File file = tableFile(dir, size);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                 FileChannel channel = raf.getChannel()) {
+                raf.setLength(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).put((byte) size).rewind();
+                channel.write(header);
+                channel.write(ByteBuffer.wrap(packed));
+            }
+            System.out.println(size + "x" + size + ": " + file + " (" + file.length() + " bytes, "
+                + (System.currentTimeMillis() - start) + " ms)");
+        }
+    }
+
+    // Retrograde analysis over the reachable canonical positions of one board size
+    private static final class Generator {
+        private final int cells;
+        private final int[][] symPow3;
+        private final int[] lineMasks;
+        private final int[] pow3;
+        private final byte[] packed;
+        private final int[] codes = new int[8];
+
+        Generator(int size) {
+            this.cells = size * size;
+            this.symPow3 = symmetricPowers(size);
+            this.pow3 = new int[cells];
+            for (int c = 0; c < cells; c++) pow3[c] = TicTacToeTablebase.pow3(c);
+            TicTacToeBitboard lines = new TicTacToeBitboard(size);
+            this.lineMasks = new int[lines.lineCount];
+            for (int line = 0; line < lines.lineCount; line++) {
+                for (int c : lines.lineCells(line)) lineMasks[line] |= 1 << c;
+            }
+            this.packed = new byte[(int) tableBytes(size)];
+        }
+
+        byte[] run() {
+            // Forward pass: canonical positions reachable from the empty board, one layer per stone count
+            int[][] layers = new int[cells + 1][];
+            int[] layerSizes = new int[cells + 1];
+            long[] seen = new long[(pow3(cells) + 63) / 64];
+            layers[0] = new int[]{0};
+            layerSizes[0] = 1;
+            for (int k = 0; k < cells; k++) {
+                int[] next = new int[1024];
+                int count = 0;
+                int mover = (k & 1) == 0 ? 1 : 2;
+                for (int i = 0; i < layerSizes[k]; i++) {
+                    int code = layers[k][i];
+                    if (isTerminal(code)) continue;
+                    for (int cell = 0; cell < cells; cell++) {
+                        if (digit(code, cell) != 0) continue;
+                        int child = canonical(code + mover * pow3[cell]);
+                        if ((seen[child >>> 6] & (1L << child)) != 0) continue;
+                        seen[child >>> 6] |= 1L << child;
+                        if (count == next.length) next = Arrays.copyOf(next, count * 2);
+                        next[count++] = child;
+                    }
+                }
+                layers[k + 1] = next;
+                layerSizes[k + 1] = count;
+            }
+
+            // Backward pass: solve from the full board back to the empty one
+            for (int k = cells; k >= 0; k--) {
+                int mover = (k & 1) == 0 ? 1 : 2;
+                for (int i = 0; i < layerSizes[k]; i++) {
+                    int code = layers[k][i];
+                    int value;
+                    if (hasLine(code, 3 - mover)) {
+                        value = LOSS;
+                    } else if (k == cells) {
+                        value = DRAW;
+                    } else {
+                        boolean canDraw = false;
+                        boolean canWin = false;
+                        for (int cell = 0; cell < cells && !canWin; cell++) {
+                            if (digit(code, cell) != 0) continue;
+                            int child = get(canonical(code + mover * pow3[cell]));
+                            if (child == LOSS) canWin = true;
+                            else if (child == DRAW) canDraw = true;
+                        }
+                        value = canWin ? WIN : canDraw ? DRAW : LOSS;
+                    }
+                    set(code, value);
+                }
+                layers[k] = null;
+            }
+            return packed;
+        }
+
+        private int digit(int code, int cell) {
+            return (code / pow3[cell]) % 3;
+        }
+
+        private boolean isTerminal(int code) {
+            return hasLine(code, 1) || hasLine(code, 2);
+        }
+
+        private boolean hasLine(int code, int player) {
+            int mask = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (digit(code, cell) == player) mask |= 1 << cell;
+            }
+            for (int line : lineMasks) {
+                if ((mask & line) == line) return true;
+            }
+            return false;
+        }
+
+        private int canonical(int code) {
+            Arrays.fill(codes, 0);
+            for (int cell = 0; cell < cells; cell++) {
+                int d = digit(code, cell);
+                if (d == 0) continue;
+                for (int s = 0; s < 8; s++) codes[s] += d * symPow3[s][cell];
+            }
+            int best = codes[0];
+            for (int s = 1; s < 8; s++) best = Math.min(best, codes[s]);
+            return best;
+        }
+
+        private int get(int code) {
+            return (packed[code >>> 2] >>> ((code & 3) << 1)) & 3;
+        }
+
+        private void set(int code, int value) {
+            packed[code >>> 2] |= (byte) (value << ((code & 3) << 1));
+        }
+    }
+}
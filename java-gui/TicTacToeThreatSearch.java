@@ -0,0 +1,366 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Computer opponent for k-in-a-row on big boards (Gomoku-style 5-in-a-row on 15×15 or 19×19).
+// Exhaustive search is hopeless there, so it plays like a threat-space searcher:
+//   1. win at once, or block the opponent's immediate win;
+//   2. look for a forced win made only of threats the opponent has to answer —
+//      first continuous "fours" (k-1 in a window, one reply possible), then sequences
+//      that also use "threes" (k-2 in two or more open windows);
+//   3. if the opponent has such a forced win, pick the best-looking move that refutes it;
+//   4. otherwise play the best move by pattern score.
+// Threats and the pattern score are read straight from the bitboard's per-window
+// counters, and every phase stops when the time budget (500 ms by default) is used up.
+class TicTacToeThreatSearch implements TicTacToeEngine {
+    static final long DEFAULT_BUDGET_MILLIS = 500;
+    private static final int CANDIDATE_RADIUS = 2;
+    private static final int MAX_FOUR_DEPTH = 16;   // attacker moves in a fours-only sequence
+    private static final int MAX_THREAT_DEPTH = 5;  // attacker moves when threes are allowed
+    private static final int MAX_THREE_MOVES = 8;  // threes tried per node, best pattern first
+    private static final int MAX_DEFENCES = 12;    // replies tried against an opponent's forced win
+    // findForcedWin results other than a cell
+    private static final int NO_WIN = -1;
+    private static final int UNKNOWN = -2;
+
+    private final long timeBudgetMillis;
+    private final AtomicInteger stops = new AtomicInteger();
+    private int stopToken;
+    private long deadlineNanos;
+    private boolean aborted;
+
+    private TicTacToeBitboard board;
+    private int attacker;
+    private int[][] moveBuffers;
+    private long[][] scoreBuffers;
+    private int[] rootMoves;
+    private long[] rootScores;
+    private int firstThreat;
+
+    // Statistics of the last search
+    private long nodes;
+    private long elapsedNanos;
+    private String lastReason = "";
+
+    TicTacToeThreatSearch() {
+        this(DEFAULT_BUDGET_MILLIS);
+    }
+
+    TicTacToeThreatSearch(long timeBudgetMillis) {
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+    }
+
+    @Override
+    public void stop() {
+        stops.incrementAndGet();
+    }
+
+    @Override
+    public int stopToken() {
+        return stops.get();
+    }
+
+    @Override
+    public String describeLastSearch() {
+        return "Threat search: " + lastReason + ", " + nodes + " nodes in " + elapsedNanos / 1000000 + " ms";
+    }
+
+    @Override
+    public synchronized int chooseMove(TicTacToeBitboard position, int player, int stopToken) {
+        this.stopToken = stopToken;
+        long start = System.nanoTime();
+        try {
+            return search(position, player, start);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private int search(TicTacToeBitboard position, int player, long start) {
+        deadlineNanos = start + timeBudgetMillis * 1000000L;
+        aborted = false;
+        nodes = 0;
+        if (!position.sameShape(board)) {
+            board = new TicTacToeBitboard(position.size, position.winLength);
+            moveBuffers = new int[2 * MAX_FOUR_DEPTH + 2][board.cells];
+            scoreBuffers = new long[2 * MAX_FOUR_DEPTH + 2][board.cells];
+            rootMoves = new int[board.cells];
+            rootScores = new long[board.cells];
+        }
+        board.copyFrom(position);
+        if (board.winner() != TicTacToeBitboard.EMPTY || board.isFull()) return -1;
+        int opponent = 3 - player;
+
+        if (board.moveCount() == 0) {
+            lastReason = "opening";
+            return board.cell(board.size / 2, board.size / 2);
+        }
+        int win = completingCell(player);
+        if (win >= 0) {
+            lastReason = "wins";
+            return win;
+        }
+        int block = completingCell(opponent);
+        if (block >= 0) {
+            lastReason = "forced block";
+            return block;
+        }
+
+        // Our own forced win: fours only first (cheap and exact), then with threes
+        long phaseEnd = start + timeBudgetMillis * 1000000L / 3;
+        int threat = findForcedWin(player, true, MAX_FOUR_DEPTH, phaseEnd);
+        if (threat >= 0) {
+            lastReason = "forced win by fours";
+            return threat;
+        }
+        if (board.winLength >= 4) {
+            phaseEnd = start + timeBudgetMillis * 1000000L * 2 / 3;
+            threat = findForcedWin(player, false, MAX_THREAT_DEPTH, phaseEnd);
+            if (threat >= 0) {
+                lastReason = "threat sequence";
+                return threat;
+            }
+        }
+
+        // Best pattern move, unless it leaves the opponent a forced win by fours
+        int[] moves = rootMoves;
+        int count = orderedCandidates(player, moves, rootScores);
+        int opponentThreat = findForcedWin(opponent, true, MAX_FOUR_DEPTH, deadlineNanos);
+        if (opponentThreat == UNKNOWN) {
+            lastReason = "pattern move, opponent's threats not checked in time";
+        } else if (opponentThreat >= 0) {
+            lastReason = "no defence found";
+            for (int i = 0; i < Math.min(count, MAX_DEFENCES); i++) {
+                int move = moves[i];
+                board.place(player, move);
+                int reply = findForcedWin(opponent, true, MAX_FOUR_DEPTH, deadlineNanos);
+                board.clear(move);
+                if (reply == NO_WIN) {
+                    lastReason = "defends a forced line";
+                    return move;
+                }
+                if (reply == UNKNOWN) {
+                    // Out of time: an unfinished check proves nothing, and the rest would stop at once
+                    lastReason = "no defence found in time";
+                    break;
+                }
+            }
+        } else {
+            lastReason = "pattern move";
+        }
+        return moves[0];
+    }
+
+    // First move of a forced win for `player` within `maxDepth` threats, NO_WIN if there is
+    // none, or UNKNOWN if the phase ran out of time or the search was stopped first
+    private int findForcedWin(int player, boolean foursOnly, int maxDepth, long phaseEnd) {
+        attacker = player;
+        long saved = deadlineNanos;
+        deadlineNanos = Math.min(deadlineNanos, phaseEnd);
+        aborted = false;
+        try {
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                if (attack(depth, 0, foursOnly)) return firstThreat;
+                if (aborted) return UNKNOWN;
+            }
+            return NO_WIN;
+        } finally {
+            deadlineNanos = saved;
+        }
+    }
+
+    // Attacker to move: can they force a line within `depth` more threats?
+    private boolean attack(int depth, int ply, boolean foursOnly) {
+        if ((++nodes & 255) == 0 && (stops.get() != stopToken || System.nanoTime() > deadlineNanos)) aborted = true;
+        if (aborted) return false;
+        int defender = 3 - attacker;
+        int win = completingCell(attacker);
+        if (win >= 0) {
+            if (ply == 0) firstThreat = win;
+            return true;
+        }
+        if (depth == 0) return false;
+        int mustBlock = completingCell(defender);
+
+        int[] moves = moveBuffers[ply];
+        int count = threatMoves(moves, scoreBuffers[ply], foursOnly);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            // A defender four has to be blocked; that only keeps the initiative if the block is itself a threat
+            if (mustBlock >= 0 && move != mustBlock) continue;
+            board.place(attacker, move);
+            boolean won = defend(depth, ply + 1, move, foursOnly);
+            board.clear(move);
+            if (won) {
+                if (ply == 0) firstThreat = move;
+                return true;
+            }
+            if (aborted) return false;
+        }
+        return false;
+    }
+
+    // Defender to move after the attacker's threat at `last`: does every reply still lose?
+    private boolean defend(int depth, int ply, int last, boolean foursOnly) {
+        int defender = 3 - attacker;
+        if (completingCell(defender) >= 0) return false;
+        int[] replies = moveBuffers[ply];
+        int count = 0;
+        int first = -1;
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(attacker, line) == board.winLength - 1 && board.lineCount(defender, line) == 0) {
+                int cell = emptyCell(line);
+                if (first < 0) {
+                    first = cell;
+                } else if (cell != first) {
+                    return true; // two different winning cells cannot both be blocked
+                }
+            }
+        }
+        if (first >= 0) {
+            replies[count++] = first;
+        } else {
+            if (foursOnly) return false;
+            // A three: the defender may fill any empty cell of the threatened windows, or counter with a four
+            for (int line : board.linesThrough(last)) {
+                if (board.lineCount(attacker, line) == board.winLength - 2 && board.lineCount(defender, line) == 0) {
+                    for (int cell : board.lineCells(line)) {
+                        if (board.isEmpty(cell) && !contains(replies, count, cell)) replies[count++] = cell;
+                    }
+                }
+            }
+            for (int line = 0; line < board.lineCount; line++) {
+                if (board.lineCount(defender, line) == board.winLength - 2 && board.lineCount(attacker, line) == 0) {
+                    for (int cell : board.lineCells(line)) {
+                        if (board.isEmpty(cell) && !contains(replies, count, cell)) replies[count++] = cell;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int reply = replies[i];
+            board.place(defender, reply);
+            boolean stillWins = attack(depth - 1, ply + 1, foursOnly);
+            board.clear(reply);
+            if (!stillWins) return false;
+        }
+        return true;
+    }
+
+    // Attacker moves that make a four (and, unless foursOnly, an open three), best pattern first
+    private int threatMoves(int[] moves, long[] scores, boolean foursOnly) {
+        int defender = 3 - attacker;
+        int k = board.winLength;
+        int count = 0;
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(defender, line) != 0 || board.lineCount(attacker, line) != k - 2) continue;
+            for (int cell : board.lineCells(line)) {
+                if (board.isEmpty(cell) && !contains(moves, count, cell)) {
+                    scores[count] = Long.MAX_VALUE; // fours ahead of threes
+                    moves[count++] = cell;
+                }
+            }
+        }
+        int fours = count;
+        if (!foursOnly) {
+            for (int line = 0; line < board.lineCount; line++) {
+                if (board.lineCount(defender, line) != 0 || board.lineCount(attacker, line) != k - 3) continue;
+                for (int cell : board.lineCells(line)) {
+                    if (!board.isEmpty(cell) || contains(moves, count, cell)) continue;
+                    if (openWindowsAfter(cell, k - 3) >= 2) {
+                        scores[count] = patternScore(attacker, cell);
+                        moves[count++] = cell;
+                    }
+                }
+            }
+            sortByScore(moves, scores, fours, count);
+            count = Math.min(count, fours + MAX_THREE_MOVES);
+        }
+        return count;
+    }
+
+    // Windows through `cell` holding `stones` attacker stones and no defender stones
+    private int openWindowsAfter(int cell, int stones) {
+        int defender = 3 - attacker;
+        int n = 0;
+        for (int line : board.linesThrough(cell)) {
+            if (board.lineCount(attacker, line) == stones && board.lineCount(defender, line) == 0) n++;
+        }
+        return n;
+    }
+
+    // Empty cells near existing stones, sorted by pattern score for `player`
+    private int orderedCandidates(int player, int[] moves, long[] scores) {
+        int size = board.size;
+        int count = 0;
+        for (int cell = 0; cell < board.cells; cell++) {
+            if (!board.isEmpty(cell) || !nearStone(board.rowOf(cell), board.colOf(cell), size)) continue;
+            scores[count] = patternScore(player, cell);
+            moves[count++] = cell;
+        }
+        sortByScore(moves, scores, 0, count);
+        return count;
+    }
+
+    private boolean nearStone(int row, int col, int size) {
+        for (int r = Math.max(0, row - CANDIDATE_RADIUS); r <= Math.min(size - 1, row + CANDIDATE_RADIUS); r++) {
+            for (int c = Math.max(0, col - CANDIDATE_RADIUS); c <= Math.min(size - 1, col + CANDIDATE_RADIUS); c++) {
+                if (!board.isEmpty(r, c)) return true;
+            }
+        }
+        return false;
+    }
+
+    // Windows through the cell still open for one side, worth more the fuller they are;
+    // building our own lines counts a little more than spoiling the opponent's
+    private long patternScore(int player, int cell) {
+        int opponent = 3 - player;
+        long attack = 0;
+        long defence = 0;
+        for (int line : board.linesThrough(cell)) {
+            int mine = board.lineCount(player, line);
+            int theirs = board.lineCount(opponent, line);
+            if (theirs == 0) attack += 1L << Math.min(4 * mine, 56);
+            if (mine == 0) defence += 1L << Math.min(4 * theirs, 56);
+        }
+        return attack + attack / 4 + defence;
+    }
+
+    private int completingCell(int player) {
+        int opponent = 3 - player;
+        for (int line = 0; line < board.lineCount; line++) {
+            if (board.lineCount(player, line) == board.winLength - 1 && board.lineCount(opponent, line) == 0) {
+                return emptyCell(line);
+            }
+        }
+        return -1;
+    }
+
+    private int emptyCell(int line) {
+        for (int cell : board.lineCells(line)) {
+            if (board.isEmpty(cell)) return cell;
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] cells, int count, int cell) {
+        for (int i = 0; i < count; i++) {
+            if (cells[i] == cell) return true;
+        }
+        return false;
+    }
+
+    // Insertion sort, descending; candidate lists are a few dozen cells
+    private static void sortByScore(int[] moves, long[] scores, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int move = moves[i];
+            long score = scores[i];
+            int j = i - 1;
+            while (j >= from && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+}